@@ -0,0 +1,42 @@
+package src.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import src.ResolveurSudoku;
+import src.Resultat;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BacktrackingBenchmark {
+
+    // Le backtracking simple ne termine pas sur les grilles du corpus à partir de 16x16 :
+    // une seule invocation y bloquerait tout le benchmark
+    @Param({"2", "3"})
+    public int tailleSousGrille;
+
+    @Param({"16"})
+    public int tailleCorpus;
+
+    @Param({"42"})
+    public long graine;
+
+    private int[][][] corpus;
+    private int suivante;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        corpus = CorpusGrilles.generer(tailleSousGrille, tailleCorpus, graine);
+    }
+
+    @Benchmark
+    public Resultat backtracking() {
+        int[][] grille = corpus[suivante];
+        suivante = (suivante + 1) % corpus.length;
+        return new ResolveurSudoku(tailleSousGrille, CorpusGrilles.copier(grille))
+                .resoudre(ResolveurSudoku.Methode.BACKTRACKING);
+    }
+}
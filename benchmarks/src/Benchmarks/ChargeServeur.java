@@ -0,0 +1,79 @@
+package src.Benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import src.Lots.FormatGrille;
+import src.Serveur.ServeurResolution;
+
+public class ChargeServeur {
+
+    /**
+     * Envoie des grilles au serveur de résolution en gardant un nombre fixe de requêtes en vol, puis affiche
+     * le débit, les codes de réponse et les statistiques du serveur
+     * Arguments : [url] [requêtes] [requêtes en vol] [taille de sous-grille]. Sans url (ou avec "local"),
+     * un serveur est démarré dans la même JVM sur un port libre.
+     * @param args les arguments
+     * @throws IOException si le serveur ne peut pas être démarré
+     * @throws InterruptedException si le thread est interrompu
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String url = args.length >= 1 ? args[0] : "local";
+        int requetes = args.length >= 2 ? Integer.parseInt(args[1]) : 20000;
+        int enVol = args.length >= 3 ? Integer.parseInt(args[2]) : 64;
+        int tailleSousGrille = args.length >= 4 ? Integer.parseInt(args[3]) : 3;
+
+        ServeurResolution local = null;
+        if (url.equals("local")) {
+            local = new ServeurResolution(0);
+            local.demarrer();
+            url = "http://localhost:" + local.getPort();
+        }
+
+        int[][][] corpus = CorpusGrilles.generer(tailleSousGrille, 256, 42);
+        String[] lignes = new String[corpus.length];
+        for (int k = 0; k < corpus.length; k++) {
+            lignes[k] = FormatGrille.ecrire(corpus[k], tailleSousGrille > 5);
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        URI resoudre = URI.create(url + "/resoudre");
+        Semaphore places = new Semaphore(enVol);
+        Map<Integer, LongAdder> codes = new ConcurrentHashMap<>();
+        long depart = System.nanoTime();
+        for (int k = 0; k < requetes; k++) {
+            places.acquire();
+            HttpRequest requete = HttpRequest.newBuilder(resoudre)
+                    .POST(HttpRequest.BodyPublishers.ofString(lignes[k % lignes.length]))
+                    .build();
+            CompletableFuture<HttpResponse<String>> reponse = client.sendAsync(requete, HttpResponse.BodyHandlers.ofString());
+            reponse.whenComplete((r, erreur) -> {
+                codes.computeIfAbsent(erreur == null ? r.statusCode() : -1, code -> new LongAdder()).increment();
+                places.release();
+            });
+        }
+        places.acquire(enVol);
+        long duree = System.nanoTime() - depart;
+
+        System.out.printf("%d requêtes en %d ms, %.0f requêtes/s%n", requetes,
+                TimeUnit.NANOSECONDS.toMillis(duree), requetes * 1e9 / duree);
+        System.out.println("Codes de réponse : " + new TreeMap<>(codes));
+        try {
+            HttpRequest requete = HttpRequest.newBuilder(URI.create(url + "/statistiques")).GET().build();
+            System.out.println("Serveur : " + client.send(requete, HttpResponse.BodyHandlers.ofString()).body());
+        } finally {
+            if (local != null) {
+                local.arreter();
+            }
+        }
+    }
+}
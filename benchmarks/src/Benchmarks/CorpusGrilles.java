@@ -0,0 +1,89 @@
+package src.Benchmarks;
+
+import java.util.Random;
+
+public final class CorpusGrilles {
+
+    private CorpusGrilles() {
+    }
+
+    /**
+     * Construit un corpus reproductible de grilles : chaque grille part d'une grille complète de base,
+     * mélangée par des permutations qui préservent les contraintes, puis vidée des trois quarts
+     * de ses cases comme le fait GenerateurGrilleValide
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param nombre le nombre de grilles du corpus
+     * @param graine la graine du générateur aléatoire
+     * @return les grilles du corpus
+     */
+    public static int[][][] generer(int tailleSousGrille, int nombre, long graine) {
+        Random random = new Random(graine);
+        int tailleGrille = tailleSousGrille * tailleSousGrille;
+        int[][][] corpus = new int[nombre][][];
+        for (int k = 0; k < nombre; k++) {
+            int[] lignes = permutationParBandes(tailleSousGrille, random);
+            int[] colonnes = permutationParBandes(tailleSousGrille, random);
+            int[] valeurs = permutation(tailleGrille, random);
+
+            int[][] grille = new int[tailleGrille][tailleGrille];
+            for (int i = 0; i < tailleGrille; i++) {
+                for (int j = 0; j < tailleGrille; j++) {
+                    int ligne = lignes[i];
+                    int colonne = colonnes[j];
+                    int base = (ligne * tailleSousGrille + ligne / tailleSousGrille + colonne) % tailleGrille;
+                    grille[i][j] = valeurs[base] + 1;
+                }
+            }
+
+            // On vide les trois quarts des cases, dans un ordre aléatoire
+            int[] cases = permutation(tailleGrille * tailleGrille, random);
+            for (int c = 0; c < tailleGrille * tailleGrille * 3 / 4; c++) {
+                grille[cases[c] / tailleGrille][cases[c] % tailleGrille] = 0;
+            }
+            corpus[k] = grille;
+        }
+        return corpus;
+    }
+
+    /**
+     * Copie une grille du corpus pour qu'un résolveur puisse la modifier
+     * @param grille la grille à copier
+     * @return la copie
+     */
+    public static int[][] copier(int[][] grille) {
+        int[][] copie = new int[grille.length][];
+        for (int i = 0; i < grille.length; i++) {
+            copie[i] = grille[i].clone();
+        }
+        return copie;
+    }
+
+    /**
+     * Permutation des lignes (ou colonnes) qui mélange les bandes puis les lignes de chaque bande
+     */
+    private static int[] permutationParBandes(int tailleSousGrille, Random random) {
+        int[] bandes = permutation(tailleSousGrille, random);
+        int[] resultat = new int[tailleSousGrille * tailleSousGrille];
+        for (int b = 0; b < tailleSousGrille; b++) {
+            int[] interne = permutation(tailleSousGrille, random);
+            for (int k = 0; k < tailleSousGrille; k++) {
+                resultat[b * tailleSousGrille + k] = bandes[b] * tailleSousGrille + interne[k];
+            }
+        }
+        return resultat;
+    }
+
+    private static int[] permutation(int taille, Random random) {
+        int[] resultat = new int[taille];
+        for (int k = 0; k < taille; k++) {
+            resultat[k] = k;
+        }
+        for (int k = taille - 1; k > 0; k--) {
+            int l = random.nextInt(k + 1);
+            int temporaire = resultat[k];
+            resultat[k] = resultat[l];
+            resultat[l] = temporaire;
+        }
+        return resultat;
+    }
+}
@@ -0,0 +1,57 @@
+package src.Benchmarks;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import src.Generateurs.GenerateurGrilleUnique;
+import src.Grilles.GrilleCompacte;
+import src.Resolveurs.EvaluateurDifficulte;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DifficulteBenchmark {
+
+    @Param({"2", "3"})
+    public int tailleSousGrille;
+
+    @Param({"512"})
+    public int tailleCorpus;
+
+    @Param({"42"})
+    public long graine;
+
+    private EvaluateurDifficulte evaluateur;
+    private List<GrilleCompacte> grilles;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        evaluateur = new EvaluateurDifficulte(tailleSousGrille);
+        // Grilles minimales à solution unique : ce sont celles qui descendent le plus bas dans l'échelle
+        grilles = new GenerateurGrilleUnique(tailleSousGrille, new SplittableRandom(graine))
+                .genererLot(tailleCorpus, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public int evaluer() {
+        int score = 0;
+        for (GrilleCompacte grille : grilles) {
+            score += evaluateur.evaluer(grille).getScore();
+        }
+        return score;
+    }
+
+    @Benchmark
+    public int evaluerLot() {
+        int score = 0;
+        for (EvaluateurDifficulte.Evaluation evaluation
+                : EvaluateurDifficulte.evaluerLot(grilles, Runtime.getRuntime().availableProcessors())) {
+            score += evaluation.getScore();
+        }
+        return score;
+    }
+}
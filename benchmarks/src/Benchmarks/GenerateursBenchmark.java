@@ -0,0 +1,59 @@
+package src.Benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import src.Generateurs.GenerateurGrille;
+import src.Generateurs.GenerateurGrilleComplete;
+import src.Generateurs.GenerateurGrilleValide;
+import src.Generateurs.GenerateurSolutionFausse;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerateursBenchmark {
+
+    @Param({"2", "3", "4", "5", "6"})
+    public int tailleSousGrille;
+
+    private int tailleGrille;
+    private GenerateurGrilleComplete generateurComplet;
+    private int[][] destination;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        tailleGrille = tailleSousGrille * tailleSousGrille;
+        generateurComplet = new GenerateurGrilleComplete(tailleSousGrille, new SplittableRandom(42));
+        destination = new int[tailleGrille][tailleGrille];
+    }
+
+    @Benchmark
+    public int[][] generateurGrille() {
+        return new GenerateurGrille(tailleGrille).getGrille();
+    }
+
+    @Benchmark
+    public int[][] generateurGrilleValide() {
+        return new GenerateurGrilleValide(tailleGrille).getGrille();
+    }
+
+    @Benchmark
+    public int[][] generateurSolutionFausse() {
+        return new GenerateurSolutionFausse(tailleGrille).getGrille();
+    }
+
+    @Benchmark
+    public int[][] generateurCompletRemplir() {
+        generateurComplet.remplir(destination);
+        return destination;
+    }
+
+    @Benchmark
+    public int[][] generateurCompletPermuter() {
+        generateurComplet.permuter(destination);
+        return destination;
+    }
+}
@@ -0,0 +1,28 @@
+package src.Benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class LanceurBenchmarks {
+
+    /**
+     * Lance les benchmarks avec le profileur du ramasse-miettes pour mesurer le taux d'allocation
+     * Les arguments sont ceux de la ligne de commande JMH, par exemple
+     * "BacktrackingBenchmark.backtracking -p tailleSousGrille=2"
+     * @param args les options JMH
+     * @throws RunnerException si JMH échoue
+     * @throws CommandLineOptionException si les options sont invalides
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options configuration = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(configuration).run();
+    }
+}
@@ -0,0 +1,68 @@
+package src.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import src.ResolveurSudoku;
+import src.Resultat;
+import src.Resolveurs.ResolveurChoco;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolveursBenchmark {
+
+    @Param({"2", "3", "4", "5", "6"})
+    public int tailleSousGrille;
+
+    @Param({"16"})
+    public int tailleCorpus;
+
+    @Param({"42"})
+    public long graine;
+
+    private int[][][] corpus;
+    private int suivante;
+    private ResolveurChoco choco;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        corpus = CorpusGrilles.generer(tailleSousGrille, tailleCorpus, graine);
+        choco = new ResolveurChoco(tailleSousGrille);
+    }
+
+    /**
+     * Crée un résolveur sur la grille suivante du corpus
+     * @return le résolveur
+     */
+    private ResolveurSudoku resolveurSuivant() {
+        int[][] grille = corpus[suivante];
+        suivante = (suivante + 1) % corpus.length;
+        return new ResolveurSudoku(tailleSousGrille, CorpusGrilles.copier(grille));
+    }
+
+    @Benchmark
+    public Resultat rechercheLocale() {
+        return resolveurSuivant().resoudre(ResolveurSudoku.Methode.RECHERCHE_LOCALE);
+    }
+
+    @Benchmark
+    public Resultat gloutonPlusContraint() {
+        return resolveurSuivant().resoudre(ResolveurSudoku.Methode.GLOUTON);
+    }
+
+    @Benchmark
+    public Resultat resolutionChoco() {
+        return resolveurSuivant().resoudre(ResolveurSudoku.Methode.CHOCO);
+    }
+
+    @Benchmark
+    public boolean chocoReutilise() {
+        // Le même modèle sert à tout le corpus : seules les valeurs de départ sont retirées et reposées
+        choco.charger(corpus[suivante]);
+        suivante = (suivante + 1) % corpus.length;
+        return choco.resoudre();
+    }
+}
@@ -0,0 +1,67 @@
+package src.Benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import src.Grilles.GrilleCompacte;
+import src.Grilles.Verificateur;
+import src.Resolveurs.ResolveurDLX;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerificateurBenchmark {
+
+    @Param({"3", "4", "5"})
+    public int tailleSousGrille;
+
+    @Param({"1024"})
+    public int tailleCorpus;
+
+    @Param({"42"})
+    public long graine;
+
+    private Verificateur verificateur;
+    private GrilleCompacte[] solutions;
+    // Les mêmes solutions rangées à plat, les unes à la suite des autres
+    private byte[] aPlat;
+    private int[] unites;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        verificateur = new Verificateur(tailleSousGrille);
+        int[][][] corpus = CorpusGrilles.generer(tailleSousGrille, tailleCorpus, graine);
+        solutions = new GrilleCompacte[tailleCorpus];
+        ResolveurDLX resolveur = new ResolveurDLX(tailleSousGrille);
+        for (int k = 0; k < tailleCorpus; k++) {
+            resolveur.charger(corpus[k]);
+            resolveur.resoudre();
+            solutions[k] = new GrilleCompacte(tailleSousGrille);
+            resolveur.copierSolution(solutions[k]);
+        }
+        int nombreCases = verificateur.getGeometrie().getNombreCases();
+        aPlat = new byte[tailleCorpus * nombreCases];
+        for (int k = 0; k < tailleCorpus; k++) {
+            System.arraycopy(solutions[k].getCases(), 0, aPlat, k * nombreCases, nombreCases);
+        }
+        unites = new int[tailleCorpus];
+    }
+
+    @Benchmark
+    public int verifierUneParUne() {
+        int invalides = 0;
+        for (GrilleCompacte solution : solutions) {
+            if (!verificateur.estSolution(solution)) {
+                invalides++;
+            }
+        }
+        return invalides;
+    }
+
+    @Benchmark
+    public int verifierEnBloc() {
+        return verificateur.verifier(aPlat, tailleCorpus, unites);
+    }
+}
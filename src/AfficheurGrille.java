@@ -0,0 +1,98 @@
+package src;
+
+import java.io.PrintStream;
+import src.Metriques.Mesure;
+
+public class AfficheurGrille {
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    private final String separateur;
+
+    /**
+     * Constructeur d'un afficheur de grilles d'une taille donnée
+     * @param tailleSousGrille la taille de la sous-grille
+     */
+    public AfficheurGrille(int tailleSousGrille) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.separateur = "-".repeat(tailleGrille * 2 + tailleSousGrille + 1);
+    }
+
+    /**
+     * Construit le texte d'une grille
+     * @param grille la grille à afficher
+     * @return le texte de la grille, séparateurs compris
+     */
+    public String rendu(int[][] grille) {
+        StringBuilder texte = new StringBuilder((tailleGrille + tailleSousGrille + 1) * (tailleGrille * 3 + tailleSousGrille * 2 + 2));
+        for (int i = 0; i < tailleGrille; i++) {
+            // Séparateur horizontal
+            if (i % tailleSousGrille == 0) {
+                texte.append(separateur).append('\n');
+            }
+            for (int j = 0; j < tailleGrille; j++) {
+                // Séparateur vertical
+                if (j % tailleSousGrille == 0) {
+                    texte.append("| ");
+                }
+                int valeur = grille[i][j];
+                if (valeur == 0) {
+                    texte.append(" . "); // Case vide
+                } else {
+                    // Alignement sur deux caractères
+                    texte.append(valeur < 10 ? " " : "").append(valeur).append(' ');
+                }
+            }
+            texte.append("|\n");
+        }
+        texte.append(separateur).append('\n');
+        return texte.toString();
+    }
+
+    /**
+     * Affiche une grille sur la sortie standard en une seule écriture
+     * @param grille la grille à afficher
+     */
+    public void afficher(int[][] grille) {
+        afficher(grille, System.out);
+    }
+
+    /**
+     * Affiche une grille en une seule écriture
+     * @param grille la grille à afficher
+     * @param sortie le flux de sortie
+     */
+    public void afficher(int[][] grille, PrintStream sortie) {
+        sortie.print(rendu(grille));
+    }
+
+    /**
+     * Affiche le résultat d'une résolution sur la sortie standard en une seule écriture
+     * @param resultat le résultat à afficher
+     */
+    public void afficher(Resultat resultat) {
+        StringBuilder texte = new StringBuilder(rendu(resultat.getGrille()));
+        texte.append("Statut: ").append(resultat.getStatut()).append('\n');
+        if (resultat.getCasesFixees() > 0) {
+            texte.append("Propagation : ").append(resultat.getCasesFixees()).append(" cases fixées\n");
+        }
+        texte.append("Noeuds explorés: ").append(resultat.getNoeuds()).append('\n');
+        texte.append("Evaluation finale: ").append(resultat.getEvaluation()).append('\n');
+        Mesure mesure = resultat.getMesure();
+        if (mesure != null) {
+            texte.append("Retours arrière: ").append(mesure.getRetoursArriere()).append('\n');
+            if (mesure.getMouvementsAcceptes() + mesure.getMouvementsRefuses() > 0) {
+                texte.append("Mouvements acceptés/refusés: ").append(mesure.getMouvementsAcceptes())
+                        .append('/').append(mesure.getMouvementsRefuses()).append('\n');
+            }
+            if (mesure.getRedemarrages() > 0) {
+                texte.append("Redémarrages: ").append(mesure.getRedemarrages()).append('\n');
+            }
+            if (mesure.getPremiereSolutionNanos() >= 0) {
+                texte.append("Première solution: ").append(mesure.getPremiereSolutionNanos() / 1000000).append(" ms\n");
+            }
+        }
+        System.out.print(texte);
+    }
+}
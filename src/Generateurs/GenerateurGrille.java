@@ -1,19 +1,30 @@
 package src.Generateurs;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 public class GenerateurGrille {
 
     private int tailleGrille;
     private int[][] grille;
+    private final SplittableRandom random;
 
     /**
      * Constructeur d'une grille d'une taille donnée
      * @param tailleGrille la taille de la grille souhaitée
      */
     public GenerateurGrille(int tailleGrille) {
+        this(tailleGrille, new SplittableRandom());
+    }
+
+    /**
+     * Constructeur d'une grille d'une taille donnée, reproductible à partir de la source aléatoire
+     * @param tailleGrille la taille de la grille souhaitée
+     * @param random la source aléatoire
+     */
+    public GenerateurGrille(int tailleGrille, SplittableRandom random) {
         this.tailleGrille = tailleGrille;
         this.grille = new int[tailleGrille][tailleGrille];
+        this.random = random;
         this.remplirCaseAleatoire();
     }
 
@@ -21,7 +32,6 @@ public class GenerateurGrille {
      * Choisi aléatoirement des cases de la grille à remplir
      */
     private void remplirCaseAleatoire() {
-        Random random = new Random();
         for (int i = 0; i < this.tailleGrille; i++) {
             for (int j = 0; j < this.tailleGrille; j++) {
                 // On remplit une case sur 4 en respectant les contraintes
@@ -40,7 +50,6 @@ public class GenerateurGrille {
      * @return la valeur de la case (i, j)
      */
     private int tireNombreAleatoire(int i, int j) {
-        Random random = new Random();
         int valeurAleatoire = random.nextInt(this.tailleGrille) + 1;
 
         // On vérifie que la valeur respecte les contraintes
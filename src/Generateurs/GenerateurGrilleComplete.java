@@ -0,0 +1,361 @@
+package src.Generateurs;
+
+import java.util.SplittableRandom;
+import src.Grilles.Geometrie;
+import src.Grilles.GrilleCompacte;
+
+public class GenerateurGrilleComplete {
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    private final int nombreCases;
+    private final long pleine;
+    private final SplittableRandom random;
+
+    // Etat du remplissage : grille à plat et valeurs présentes par ligne, colonne et sous-grille
+    private final int[] grille;
+    private final int[] sousGrilles;
+    private final long[] masqueLignes;
+    private final long[] masqueColonnes;
+    private final long[] masqueSousGrilles;
+    // Cases de chaque unité : lignes, puis colonnes, puis sous-grilles
+    private final int[][] unites;
+    // Les cases d'indice >= profondeur sont encore vides, positions est la permutation inverse
+    private final int[] cases;
+    private final int[] positions;
+    // Valeurs mélangées de la case choisie à chaque profondeur
+    private final int[][] valeursParProfondeur;
+    private long noeuds;
+    private long limiteNoeuds;
+
+    // Permutations réutilisées par le chemin rapide
+    private final int[] lignes;
+    private final int[] colonnes;
+    private final int[] valeurs;
+    private final int[] bandes;
+
+    /**
+     * Constructeur d'un générateur de grilles complètes
+     * Tous les tableaux sont alloués ici, la génération n'alloue plus rien ensuite.
+     * Une instance n'est pas partagée entre threads : chaque thread crée la sienne avec sa propre source aléatoire.
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param random la source aléatoire du générateur
+     */
+    public GenerateurGrilleComplete(int tailleSousGrille, SplittableRandom random) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.nombreCases = tailleGrille * tailleGrille;
+        this.pleine = tailleGrille == 64 ? -1L : (1L << tailleGrille) - 1;
+        this.random = random;
+
+        Geometrie geometrie = Geometrie.pour(tailleSousGrille);
+        this.grille = new int[nombreCases];
+        this.sousGrilles = geometrie.getSousGrilles();
+        this.masqueLignes = new long[tailleGrille];
+        this.masqueColonnes = new long[tailleGrille];
+        this.masqueSousGrilles = new long[tailleGrille];
+        this.unites = geometrie.getUnites();
+        this.cases = new int[nombreCases];
+        this.positions = new int[nombreCases];
+        this.valeursParProfondeur = new int[nombreCases][tailleGrille];
+
+        this.lignes = new int[tailleGrille];
+        this.colonnes = new int[tailleGrille];
+        this.valeurs = new int[tailleGrille];
+        this.bandes = new int[tailleSousGrille];
+    }
+
+    //region REMPLISSAGE PAR BACKTRACKING
+
+    /**
+     * Remplit une nouvelle grille complète tirée au hasard
+     * @return la grille générée
+     */
+    public int[][] remplir() {
+        int[][] destination = new int[tailleGrille][tailleGrille];
+        remplir(destination);
+        return destination;
+    }
+
+    /**
+     * Remplit une grille complète tirée au hasard par backtracking : on choisit toujours la case qui a
+     * le moins de candidats, ou une valeur qui n'a plus qu'une place dans une unité, et on essaie
+     * les candidats dans un ordre aléatoire.
+     * Une recherche trop longue est relancée depuis le début avec une limite de noeuds doublée.
+     * @param destination la grille à remplir (tailleGrille x tailleGrille)
+     */
+    public void remplir(int[][] destination) {
+        remplirGrille();
+        for (int i = 0; i < tailleGrille; i++) {
+            System.arraycopy(grille, i * tailleGrille, destination[i], 0, tailleGrille);
+        }
+    }
+
+    /**
+     * Remplit une grille compacte complète tirée au hasard
+     * @param destination la grille à remplir, de même taille que le générateur
+     */
+    public void remplir(GrilleCompacte destination) {
+        remplirGrille();
+        byte[] casesDestination = destination.getCases();
+        for (int indice = 0; indice < nombreCases; indice++) {
+            casesDestination[indice] = (byte) grille[indice];
+        }
+    }
+
+    /**
+     * Remplit la grille à plat, en relançant la recherche tant qu'elle n'aboutit pas
+     */
+    private void remplirGrille() {
+        limiteNoeuds = 4L * nombreCases;
+        boolean rempli = false;
+        while (!rempli) {
+            for (int k = 0; k < tailleGrille; k++) {
+                masqueLignes[k] = 0;
+                masqueColonnes[k] = 0;
+                masqueSousGrilles[k] = 0;
+            }
+            for (int indice = 0; indice < nombreCases; indice++) {
+                grille[indice] = 0;
+                cases[indice] = indice;
+                positions[indice] = indice;
+            }
+            noeuds = 0;
+            rempli = remplir(0);
+            limiteNoeuds *= 2;
+        }
+    }
+
+    /**
+     * Remplit la case la plus contrainte parmi les cases vides puis passe à la suivante
+     * @param profondeur le nombre de cases déjà remplies
+     * @return true si la grille a pu être complétée, false sinon
+     */
+    private boolean remplir(int profondeur) {
+        if (profondeur == nombreCases) {
+            return true;
+        }
+        if (++noeuds > limiteNoeuds) {
+            return false;
+        }
+
+        // Case vide qui a le moins de candidats
+        int meilleure = profondeur;
+        int minimum = Integer.MAX_VALUE;
+        long candidats = 0;
+        for (int k = profondeur; k < nombreCases && minimum > 1; k++) {
+            long possibles = candidats(cases[k]);
+            int nombre = Long.bitCount(possibles);
+            if (nombre < minimum) {
+                minimum = nombre;
+                meilleure = k;
+                candidats = possibles;
+            }
+        }
+        if (minimum == 0) {
+            return false;
+        }
+
+        // Sans case forcée, on cherche une valeur qui n'a plus qu'une place dans une unité
+        for (int u = 0; u < unites.length && minimum > 1; u++) {
+            long auMoinsUne = 0;
+            long auMoinsDeux = 0;
+            long placees = 0;
+            for (int indice : unites[u]) {
+                if (grille[indice] != 0) {
+                    placees |= 1L << (grille[indice] - 1);
+                } else {
+                    long possibles = candidats(indice);
+                    auMoinsDeux |= auMoinsUne & possibles;
+                    auMoinsUne |= possibles;
+                }
+            }
+            // Une valeur qui n'a plus aucune place dans l'unité : impasse
+            if ((auMoinsUne | placees) != pleine) {
+                return false;
+            }
+            long uniques = auMoinsUne & ~auMoinsDeux;
+            if (uniques != 0) {
+                long bit = uniques & -uniques;
+                for (int indice : unites[u]) {
+                    if (grille[indice] == 0 && (candidats(indice) & bit) != 0) {
+                        meilleure = positions[indice];
+                        candidats = bit;
+                        minimum = 1;
+                        break;
+                    }
+                }
+            }
+        }
+
+        int indice = cases[meilleure];
+        cases[meilleure] = cases[profondeur];
+        positions[cases[meilleure]] = meilleure;
+        cases[profondeur] = indice;
+        positions[indice] = profondeur;
+
+        // Candidats mélangés dans le tampon de cette profondeur
+        int[] valeursCase = valeursParProfondeur[profondeur];
+        int nombre = 0;
+        while (candidats != 0) {
+            long bit = candidats & -candidats;
+            candidats ^= bit;
+            valeursCase[nombre++] = Long.numberOfTrailingZeros(bit);
+        }
+        melanger(valeursCase, nombre);
+
+        int ligne = indice / tailleGrille;
+        int col = indice % tailleGrille;
+        int sousGrille = sousGrilles[indice];
+        for (int k = 0; k < nombre; k++) {
+            long bit = 1L << valeursCase[k];
+            grille[indice] = valeursCase[k] + 1;
+            masqueLignes[ligne] |= bit;
+            masqueColonnes[col] |= bit;
+            masqueSousGrilles[sousGrille] |= bit;
+
+            if (remplir(profondeur + 1)) {
+                return true;
+            }
+
+            masqueLignes[ligne] ^= bit;
+            masqueColonnes[col] ^= bit;
+            masqueSousGrilles[sousGrille] ^= bit;
+            if (noeuds > limiteNoeuds) {
+                break;
+            }
+        }
+        grille[indice] = 0;
+        return false;
+    }
+
+    /**
+     * Calcule les candidats d'une case vide à partir des masques
+     * @param indice l'indice de la case
+     * @return le masque des candidats (bit v-1 pour la valeur v)
+     */
+    private long candidats(int indice) {
+        return pleine & ~(masqueLignes[indice / tailleGrille] | masqueColonnes[indice % tailleGrille]
+                | masqueSousGrilles[sousGrilles[indice]]);
+    }
+
+    //endregion
+
+    //region CHEMIN RAPIDE PAR PERMUTATIONS
+
+    /**
+     * Construit une nouvelle grille complète en permutant la grille de base
+     * @return la grille générée
+     */
+    public int[][] permuter() {
+        int[][] destination = new int[tailleGrille][tailleGrille];
+        permuter(destination);
+        return destination;
+    }
+
+    /**
+     * Construit une grille complète à partir de la grille de base (i * tailleSousGrille + i / tailleSousGrille + j)
+     * en mélangeant les bandes, les lignes de chaque bande, les piles, les colonnes de chaque pile
+     * et les valeurs, puis en transposant une fois sur deux. Ces transformations préservent les contraintes.
+     * @param destination la grille à remplir (tailleGrille x tailleGrille)
+     */
+    public void permuter(int[][] destination) {
+        tirerPermutations();
+        boolean transposer = random.nextBoolean();
+        for (int i = 0; i < tailleGrille; i++) {
+            int[] ligneDestination = destination[i];
+            for (int j = 0; j < tailleGrille; j++) {
+                int ligne = transposer ? colonnes[j] : lignes[i];
+                int col = transposer ? lignes[i] : colonnes[j];
+                ligneDestination[j] = valeurs[(ligne * tailleSousGrille + ligne / tailleSousGrille + col) % tailleGrille] + 1;
+            }
+        }
+    }
+
+    /**
+     * Construit une grille compacte complète en permutant la grille de base
+     * @param destination la grille à remplir, de même taille que le générateur
+     */
+    public void permuter(GrilleCompacte destination) {
+        tirerPermutations();
+        boolean transposer = random.nextBoolean();
+        byte[] casesDestination = destination.getCases();
+        for (int i = 0; i < tailleGrille; i++) {
+            int debut = i * tailleGrille;
+            for (int j = 0; j < tailleGrille; j++) {
+                int ligne = transposer ? colonnes[j] : lignes[i];
+                int col = transposer ? lignes[i] : colonnes[j];
+                casesDestination[debut + j] = (byte) (valeurs[(ligne * tailleSousGrille + ligne / tailleSousGrille + col) % tailleGrille] + 1);
+            }
+        }
+    }
+
+    /**
+     * Construit une grille complète en appliquant les mêmes transformations à une grille complète donnée
+     * @param base une grille complète valide
+     * @param destination la grille à remplir, différente de base
+     */
+    public void permuter(int[][] base, int[][] destination) {
+        tirerPermutations();
+        boolean transposer = random.nextBoolean();
+        for (int i = 0; i < tailleGrille; i++) {
+            int[] ligneDestination = destination[i];
+            for (int j = 0; j < tailleGrille; j++) {
+                int valeur = transposer ? base[colonnes[j]][lignes[i]] : base[lignes[i]][colonnes[j]];
+                ligneDestination[j] = valeurs[valeur - 1] + 1;
+            }
+        }
+    }
+
+    /**
+     * Tire les permutations des lignes, des colonnes et des valeurs
+     */
+    private void tirerPermutations() {
+        permutationParBandes(lignes);
+        permutationParBandes(colonnes);
+        for (int k = 0; k < tailleGrille; k++) {
+            valeurs[k] = k;
+        }
+        melanger(valeurs, tailleGrille);
+    }
+
+    /**
+     * Tire une permutation des lignes (ou colonnes) qui mélange les bandes puis les lignes de chaque bande
+     * @param permutation le tableau à remplir
+     */
+    private void permutationParBandes(int[] permutation) {
+        for (int b = 0; b < tailleSousGrille; b++) {
+            bandes[b] = b;
+        }
+        melanger(bandes, tailleSousGrille);
+        for (int b = 0; b < tailleSousGrille; b++) {
+            int debut = b * tailleSousGrille;
+            for (int k = 0; k < tailleSousGrille; k++) {
+                permutation[debut + k] = bandes[b] * tailleSousGrille + k;
+            }
+            // Mélange des lignes à l'intérieur de la bande
+            for (int k = tailleSousGrille - 1; k > 0; k--) {
+                int l = random.nextInt(k + 1);
+                int temp = permutation[debut + k];
+                permutation[debut + k] = permutation[debut + l];
+                permutation[debut + l] = temp;
+            }
+        }
+    }
+
+    //endregion
+
+    /**
+     * Mélange de Fisher-Yates des premières valeurs d'un tableau
+     * @param tableau le tableau à mélanger
+     * @param taille le nombre de valeurs à mélanger
+     */
+    private void melanger(int[] tableau, int taille) {
+        for (int k = taille - 1; k > 0; k--) {
+            int l = random.nextInt(k + 1);
+            int temp = tableau[k];
+            tableau[k] = tableau[l];
+            tableau[l] = temp;
+        }
+    }
+}
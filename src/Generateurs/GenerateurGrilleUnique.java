@@ -0,0 +1,179 @@
+package src.Generateurs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import src.Grilles.GrilleCompacte;
+import src.Resolveurs.Propagateur;
+import src.Resolveurs.ResolveurDLX;
+
+public class GenerateurGrilleUnique {
+
+    /**
+     * Difficulté maximale des grilles générées
+     */
+    public enum Difficulte {
+        /** La grille se résout avec les seuls singletons nus et cachés */
+        FACILE,
+        /** La grille se résout par propagation, candidats verrouillés compris */
+        MOYEN,
+        /** La solution est unique mais peut demander une recherche */
+        DIFFICILE
+    }
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    private final SplittableRandom random;
+    private int indicesCibles;
+    private Difficulte difficulte = Difficulte.DIFFICILE;
+
+    // Chaque thread garde son résolveur pour réutiliser sa matrice d'une vérification à l'autre
+    private final ThreadLocal<ResolveurDLX> resolveurs;
+
+    /**
+     * Constructeur d'un générateur de grilles à solution unique
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param random la source aléatoire du générateur
+     */
+    public GenerateurGrilleUnique(int tailleSousGrille, SplittableRandom random) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.random = random;
+        this.resolveurs = ThreadLocal.withInitial(() -> new ResolveurDLX(tailleSousGrille));
+    }
+
+    /**
+     * Constructeur d'un générateur de grilles à solution unique
+     * @param tailleSousGrille la taille de la sous-grille
+     */
+    public GenerateurGrilleUnique(int tailleSousGrille) {
+        this(tailleSousGrille, new SplittableRandom());
+    }
+
+    /**
+     * Fixe le nombre d'indices visé : on arrête de vider des cases quand il est atteint
+     * Si aucune case ne peut plus être retirée, la grille garde plus d'indices que demandé.
+     * @param indicesCibles le nombre d'indices visé, 0 pour retirer autant de cases que possible
+     */
+    public void setIndicesCibles(int indicesCibles) {
+        this.indicesCibles = indicesCibles;
+    }
+
+    /**
+     * Fixe la difficulté maximale des grilles générées
+     * @param difficulte la difficulté
+     */
+    public void setDifficulte(Difficulte difficulte) {
+        this.difficulte = difficulte;
+    }
+
+    /**
+     * Génère une grille dont la solution est unique
+     * @return la grille générée (0 pour une case vide)
+     */
+    public int[][] generer() {
+        return generer(random.split()).versTableau();
+    }
+
+    /**
+     * Génère une grille compacte dont la solution est unique
+     * @return la grille générée (0 pour une case vide)
+     */
+    public GrilleCompacte genererCompacte() {
+        return generer(random.split());
+    }
+
+    /**
+     * Génère plusieurs grilles en parallèle
+     * Les sources aléatoires sont tirées avant le lancement, le lot ne dépend donc pas de l'ordre d'exécution.
+     * @param nombre le nombre de grilles
+     * @param parallelisme le nombre de threads
+     * @return les grilles générées, sous forme compacte
+     */
+    public List<GrilleCompacte> genererLot(int nombre, int parallelisme) {
+        List<Callable<GrilleCompacte>> taches = new ArrayList<>(nombre);
+        for (int k = 0; k < nombre; k++) {
+            SplittableRandom graine = random.split();
+            taches.add(() -> generer(graine));
+        }
+
+        ExecutorService executeur = Executors.newFixedThreadPool(parallelisme);
+        try {
+            List<GrilleCompacte> grilles = new ArrayList<>(nombre);
+            for (Future<GrilleCompacte> future : executeur.invokeAll(taches)) {
+                grilles.add(future.get());
+            }
+            return grilles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Génération interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Génération impossible", e.getCause());
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    /**
+     * Part d'une grille complète et vide ses cases dans un ordre aléatoire, en annulant chaque retrait
+     * qui rendrait la solution non unique ou la grille trop difficile
+     * @param random la source aléatoire
+     * @return la grille générée
+     */
+    private GrilleCompacte generer(SplittableRandom random) {
+        GrilleCompacte grille = new GrilleCompacte(tailleSousGrille);
+        new GenerateurGrilleComplete(tailleSousGrille, random).remplir(grille);
+        int nombreCases = tailleGrille * tailleGrille;
+
+        // Ordre de retrait des cases (mélange de Fisher-Yates)
+        int[] ordre = new int[nombreCases];
+        for (int k = 0; k < nombreCases; k++) {
+            ordre[k] = k;
+        }
+        for (int k = nombreCases - 1; k > 0; k--) {
+            int l = random.nextInt(k + 1);
+            int temp = ordre[k];
+            ordre[k] = ordre[l];
+            ordre[l] = temp;
+        }
+
+        GrilleCompacte essai = new GrilleCompacte(grille.getGeometrie());
+        int indices = nombreCases;
+        for (int k = 0; k < nombreCases && indices > indicesCibles; k++) {
+            int valeur = grille.get(ordre[k]);
+            grille.set(ordre[k], 0);
+            if (resteValide(grille, essai)) {
+                indices--;
+            } else {
+                grille.set(ordre[k], valeur);
+            }
+        }
+        return grille;
+    }
+
+    /**
+     * Vérifie qu'une grille a toujours une solution unique et respecte la difficulté demandée
+     * @param grille la grille à vérifier
+     * @param essai une grille de travail pour la propagation
+     * @return true si le retrait peut être gardé, false sinon
+     */
+    private boolean resteValide(GrilleCompacte grille, GrilleCompacte essai) {
+        if (difficulte == Difficulte.DIFFICILE) {
+            // On s'arrête dès la deuxième solution
+            ResolveurDLX resolveur = resolveurs.get();
+            resolveur.charger(grille);
+            return resolveur.compterSolutions(2) == 1;
+        }
+
+        // Une grille complétée par déductions seules a forcément une solution unique
+        grille.copierDans(essai);
+        Propagateur propagateur = new Propagateur(essai);
+        propagateur.propager(difficulte == Difficulte.MOYEN);
+        return !propagateur.estContradictoire() && essai.nombreVides() == 0;
+    }
+}
@@ -1,86 +1,90 @@
 package src.Generateurs;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Random;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import src.Resolveurs.EvaluateurDifficulte;
 
 public final class GenerateurGrilleValide {
 
+    // Sans source donnée, chaque thread a sa propre source tirée de la source racine,
+    // et garde un générateur par taille de sous-grille
+    private static final SplittableRandom RACINE = new SplittableRandom();
+    private static final ThreadLocal<SplittableRandom> SOURCES = ThreadLocal.withInitial(GenerateurGrilleValide::nouvelleSource);
+    private static final ThreadLocal<Map<Integer, GenerateurGrilleComplete>> MOTEURS = ThreadLocal.withInitial(HashMap::new);
+
     private int tailleGrille;
     private int[][] grille;
+    private final SplittableRandom random;
 
     public GenerateurGrilleValide(int tailleGrille) {
+        this(tailleGrille, tailleGrille * tailleGrille * 3 / 4);
+    }
+
+    /**
+     * Constructeur d'une grille valide dont on enlève un nombre donné de cases
+     * @param tailleGrille la taille de la grille
+     * @param nombreDeCases le nombre de cases à vider, 0 pour garder la grille complète
+     */
+    public GenerateurGrilleValide(int tailleGrille, int nombreDeCases) {
         this.tailleGrille = tailleGrille;
         this.grille = new int[tailleGrille][tailleGrille];
-        this.remplirGrille(0, 0);
-        this.enleverElements(tailleGrille * tailleGrille * 3 / 4);
+        this.random = SOURCES.get();
+        MOTEURS.get()
+                .computeIfAbsent(tailleSousGrille(), taille -> new GenerateurGrilleComplete(taille, random))
+                .remplir(this.grille);
+        this.enleverElements(nombreDeCases);
     }
 
-    private boolean remplirGrille(int i, int j) {
-        if (i == this.tailleGrille) {
-            return true;
-        }
-        
-        int nextI = (j == this.tailleGrille - 1) ? i + 1 : i;
-        int nextJ = (j + 1) % this.tailleGrille;
-        
-        List<Integer> valeurs = genererValAleatoire();
-        
-        for(int num : valeurs) {
-            if (respecteContraintes(i, j, num)) {
-                this.grille[i][j] = num;
-                
-                if (remplirGrille(nextI, nextJ)) {
-                    return true;
-                }
-                
-                this.grille[i][j] = 0;
-            }
-        }
-        
-        return false;
+    /**
+     * Constructeur d'une grille valide reproductible à partir de la source aléatoire
+     * @param tailleGrille la taille de la grille
+     * @param nombreDeCases le nombre de cases à vider, 0 pour garder la grille complète
+     * @param random la source aléatoire
+     */
+    public GenerateurGrilleValide(int tailleGrille, int nombreDeCases, SplittableRandom random) {
+        this.tailleGrille = tailleGrille;
+        this.grille = new int[tailleGrille][tailleGrille];
+        this.random = random;
+        new GenerateurGrilleComplete(tailleSousGrille(), random).remplir(this.grille);
+        this.enleverElements(nombreDeCases);
     }
 
-    private List<Integer> genererValAleatoire() {
-        List<Integer> valeurs = new ArrayList<>();
-        for (int i = 1; i <= this.tailleGrille; i++) {
-            valeurs.add(i);
-        }
-        
-        Collections.shuffle(valeurs);
-        return valeurs;
+    /**
+     * Calcule la taille de la sous-grille
+     * @return la racine de la taille de la grille
+     */
+    private int tailleSousGrille() {
+        return (int) Math.round(Math.sqrt(this.tailleGrille));
     }
 
-    private boolean respecteContraintes(int i, int j, int valeur) {
-        for (int k = 0; k < this.tailleGrille; k++) {
-            if (this.grille[i][k] == valeur || this.grille[k][j] == valeur) {
-                return false;
-            }
+    /**
+     * Tire une source aléatoire indépendante depuis la source racine
+     * @return la nouvelle source
+     */
+    private static SplittableRandom nouvelleSource() {
+        synchronized (RACINE) {
+            return RACINE.split();
         }
-        
-        int sousGrilleTaille = (int) Math.sqrt(this.tailleGrille);
-        int debutLigne = i - i % sousGrilleTaille;
-        int debutColonne = j - j % sousGrilleTaille;
-        for (int k = 0; k < sousGrilleTaille; k++) {
-            for (int l = 0; l < sousGrilleTaille; l++) {
-                if (this.grille[debutLigne + k][debutColonne + l] == valeur) {
-                    return false;
-                }
-            }
-        }
-        
-        return true;
     }
 
     public void enleverElements(int nombreDeCases) {
-        Random random = new Random();
+        int nombreCases = this.tailleGrille * this.tailleGrille;
+
+        // Mélange partiel de Fisher-Yates : chaque case n'est tirée qu'une seule fois
+        int[] cases = new int[nombreCases];
+        for (int k = 0; k < nombreCases; k++) {
+            cases[k] = k;
+        }
         int casesEnlevees = 0;
-        
-        while (casesEnlevees < nombreDeCases) {
-            int i = random.nextInt(this.tailleGrille);
-            int j = random.nextInt(this.tailleGrille);
-            
+        for (int k = 0; k < nombreCases && casesEnlevees < nombreDeCases; k++) {
+            int l = k + random.nextInt(nombreCases - k);
+            int tiree = cases[l];
+            cases[l] = cases[k];
+            cases[k] = tiree;
+
+            int i = tiree / this.tailleGrille;
+            int j = tiree % this.tailleGrille;
             if (this.grille[i][j] != 0) {
                 this.grille[i][j] = 0;
                 casesEnlevees++;
@@ -91,4 +95,12 @@ public final class GenerateurGrilleValide {
     public int[][] getGrille() {
         return this.grille;
     }
+
+    /**
+     * Evalue la difficulté de la grille générée avec l'échelle des techniques humaines
+     * @return l'évaluation (niveau, score et techniques employées)
+     */
+    public EvaluateurDifficulte.Evaluation evaluerDifficulte() {
+        return new EvaluateurDifficulte(tailleSousGrille()).evaluer(this.grille);
+    }
 }   
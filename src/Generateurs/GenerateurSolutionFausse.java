@@ -7,21 +7,75 @@ public class GenerateurSolutionFausse {
     private int tailleGrille;
     private int[][] grille;
     private final ArrayList<int[]> listeCasesModifiables = new ArrayList<>();
+    private final SplittableRandom random;
 
     /**
      * Constructeur d'une solution fausse pour la recherche locale
      * @param tailleGrille la taille de la grille souhaitée
      */
     public GenerateurSolutionFausse(int tailleGrille) {
+        this(tailleGrille, new SplittableRandom());
+    }
+
+    /**
+     * Constructeur d'une solution fausse reproductible à partir de la source aléatoire
+     * @param tailleGrille la taille de la grille souhaitée
+     * @param random la source aléatoire
+     */
+    public GenerateurSolutionFausse(int tailleGrille, SplittableRandom random) {
         this.tailleGrille = tailleGrille;
         this.grille = new int[tailleGrille][tailleGrille];
+        this.random = random;
         // On génère une grille valide
-        GenerateurGrilleValide generateurGrilleValide = new GenerateurGrilleValide(tailleGrille);
+        GenerateurGrilleValide generateurGrilleValide = new GenerateurGrilleValide(tailleGrille,
+                tailleGrille * tailleGrille * 3 / 4, random.split());
         this.grille = generateurGrilleValide.getGrille();
         // On ajoute des valeurs aléatoires dans la grille pour constituer une solution fausse
         this.remplirCaseAleatoire();
     }
 
+    /**
+     * Constructeur d'une solution fausse à partir d'une grille donnée
+     * @param tailleGrille la taille de la grille
+     * @param grille la grille de départ (elle est copiée), les cases vides deviennent modifiables
+     */
+    public GenerateurSolutionFausse(int tailleGrille, int[][] grille) {
+        this(tailleGrille, grille, false);
+    }
+
+    /**
+     * Constructeur d'une solution fausse à partir d'une grille donnée
+     * @param tailleGrille la taille de la grille
+     * @param grille la grille de départ (elle est copiée), les cases vides deviennent modifiables
+     * @param permutations true pour que chaque ligne soit une permutation des valeurs,
+     *                     false pour remplir chaque case au hasard
+     */
+    public GenerateurSolutionFausse(int tailleGrille, int[][] grille, boolean permutations) {
+        this(tailleGrille, grille, permutations, new SplittableRandom());
+    }
+
+    /**
+     * Constructeur d'une solution fausse à partir d'une grille donnée, reproductible à partir de la source aléatoire
+     * @param tailleGrille la taille de la grille
+     * @param grille la grille de départ (elle est copiée), les cases vides deviennent modifiables
+     * @param permutations true pour que chaque ligne soit une permutation des valeurs,
+     *                     false pour remplir chaque case au hasard
+     * @param random la source aléatoire
+     */
+    public GenerateurSolutionFausse(int tailleGrille, int[][] grille, boolean permutations, SplittableRandom random) {
+        this.tailleGrille = tailleGrille;
+        this.random = random;
+        this.grille = new int[tailleGrille][tailleGrille];
+        for (int i = 0; i < tailleGrille; i++) {
+            System.arraycopy(grille[i], 0, this.grille[i], 0, tailleGrille);
+        }
+        if (permutations) {
+            this.remplirLignesPermutees();
+        } else {
+            this.remplirCaseAleatoire();
+        }
+    }
+
     /**
      * Rempli chaque ligne de la grille avec des valeurs au hasard
      */
@@ -30,13 +84,47 @@ public class GenerateurSolutionFausse {
             for (int colonne = 0; colonne < this.tailleGrille; colonne++) {
                 if (this.grille[ligne][colonne] == 0) {
                     this.listeCasesModifiables.add(new int[]{ligne, colonne});
-                    Random random = new Random();
                     this.grille[ligne][colonne] = random.nextInt(this.tailleGrille) + 1;
                 }
             }
         }
     }
 
+    /**
+     * Complète chaque ligne avec les valeurs qui y manquent, dans un ordre aléatoire,
+     * de sorte que chaque ligne soit une permutation de 1 à tailleGrille
+     */
+    private void remplirLignesPermutees() {
+        for (int ligne = 0; ligne < this.tailleGrille; ligne++) {
+            // On liste les valeurs absentes de la ligne
+            boolean[] presentes = new boolean[this.tailleGrille + 1];
+            for (int colonne = 0; colonne < this.tailleGrille; colonne++) {
+                presentes[this.grille[ligne][colonne]] = true;
+            }
+            int[] manquantes = new int[this.tailleGrille];
+            int nombre = 0;
+            for (int valeur = 1; valeur <= this.tailleGrille; valeur++) {
+                if (!presentes[valeur]) {
+                    manquantes[nombre++] = valeur;
+                }
+            }
+            for (int k = nombre - 1; k > 0; k--) {
+                int l = random.nextInt(k + 1);
+                int temp = manquantes[k];
+                manquantes[k] = manquantes[l];
+                manquantes[l] = temp;
+            }
+
+            // On les place dans les cases vides de la ligne
+            int index = 0;
+            for (int colonne = 0; colonne < this.tailleGrille; colonne++) {
+                if (this.grille[ligne][colonne] == 0) {
+                    this.listeCasesModifiables.add(new int[]{ligne, colonne});
+                    this.grille[ligne][colonne] = manquantes[index++];
+                }
+            }
+        }
+    }
 
     /**
      * Récupère la grille générée
@@ -0,0 +1,372 @@
+package src.Grilles;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class FormeCanonique {
+
+    // Au-delà de ce nombre d'ordres à essayer, les égalités restantes gardent l'ordre d'origine
+    private static final int LIMITE_ESSAIS = 4096;
+
+    private final GrilleCompacte grille;
+    private final boolean transposee;
+    // Ligne (et colonne) de la grille d'origine placée à chaque position de la forme canonique
+    private final int[] lignes;
+    private final int[] colonnes;
+    // Chiffre d'origine de chaque chiffre canonique
+    private final int[] inverses;
+    private final boolean exacte;
+
+    private FormeCanonique(GrilleCompacte grille, boolean transposee, int[] lignes, int[] colonnes,
+                           int[] chiffres, boolean exacte) {
+        this.grille = grille;
+        this.transposee = transposee;
+        this.lignes = lignes;
+        this.colonnes = colonnes;
+        this.inverses = new int[chiffres.length];
+        for (int v = 0; v < chiffres.length; v++) {
+            inverses[chiffres[v]] = v;
+        }
+        this.exacte = exacte;
+    }
+
+    /**
+     * Calcule le représentant d'une grille parmi toutes ses grilles symétriques : renommage des chiffres,
+     * échanges de lignes dans une bande, de colonnes dans une pile, de bandes, de piles, et transposition
+     * Les lignes et les colonnes sont d'abord triées selon des invariants (nombre d'indices par ligne et
+     * par sous-grille), puis toutes les façons de départager les égalités sont essayées et la plus petite
+     * grille, chiffres renommés dans l'ordre d'apparition, est gardée. Si les égalités sont trop nombreuses,
+     * une partie d'entre elles garde l'ordre d'origine : la forme reste une transformée exacte de la grille
+     * mais deux grilles symétriques peuvent alors avoir des formes différentes.
+     * @param grille la grille à transformer (elle n'est pas modifiée)
+     * @return la forme canonique et la transformation qui y mène
+     */
+    public static FormeCanonique calculer(GrilleCompacte grille) {
+        Recherche recherche = new Recherche(grille);
+        recherche.parcourir(false);
+        recherche.parcourir(true);
+        return recherche.resultat();
+    }
+
+    /**
+     * Ramène une grille de la forme canonique (typiquement sa solution) dans le repère de la grille d'origine
+     * @param canonique la grille dans le repère canonique
+     * @return une nouvelle grille dans le repère d'origine
+     */
+    public GrilleCompacte versOrigine(GrilleCompacte canonique) {
+        int tailleGrille = grille.getGeometrie().getTailleGrille();
+        GrilleCompacte origine = new GrilleCompacte(grille.getGeometrie());
+        for (int p = 0; p < tailleGrille; p++) {
+            for (int q = 0; q < tailleGrille; q++) {
+                int valeur = inverses[canonique.get(p, q)];
+                if (transposee) {
+                    origine.set(colonnes[q], lignes[p], valeur);
+                } else {
+                    origine.set(lignes[p], colonnes[q], valeur);
+                }
+            }
+        }
+        return origine;
+    }
+
+    /**
+     * Récupère la forme canonique, à utiliser comme clé
+     * @return la grille canonique (à ne pas modifier)
+     */
+    public GrilleCompacte getGrille() {
+        return this.grille;
+    }
+
+    /**
+     * Indique si toutes les égalités ont été départagées
+     * @return true si deux grilles symétriques ont forcément la même forme, false sinon
+     */
+    public boolean estExacte() {
+        return this.exacte;
+    }
+
+    /**
+     * Parcours des ordres de lignes et de colonnes compatibles avec les invariants
+     */
+    private static final class Recherche {
+
+        private final GrilleCompacte grille;
+        private final int tailleSousGrille;
+        private final int tailleGrille;
+        private boolean exacte = true;
+
+        // Orientation et ordres en cours d'essai
+        private boolean transposee;
+        private final int[] bandes;
+        private final int[][] lignesDeBande;
+        private final int[] piles;
+        private final int[][] colonnesDePile;
+        private final int[] ordreLignes;
+        private final int[] ordreColonnes;
+        private final int[] etiquettes;
+        private final byte[] code;
+
+        // Meilleur essai
+        private byte[] meilleurCode;
+        private boolean meilleureTransposee;
+        private int[] meilleuresLignes;
+        private int[] meilleuresColonnes;
+        private int[] meilleuresEtiquettes;
+
+        Recherche(GrilleCompacte grille) {
+            this.grille = grille;
+            this.tailleSousGrille = grille.getGeometrie().getTailleSousGrille();
+            this.tailleGrille = grille.getGeometrie().getTailleGrille();
+            this.bandes = new int[tailleSousGrille];
+            this.lignesDeBande = new int[tailleSousGrille][tailleSousGrille];
+            this.piles = new int[tailleSousGrille];
+            this.colonnesDePile = new int[tailleSousGrille][tailleSousGrille];
+            this.ordreLignes = new int[tailleGrille];
+            this.ordreColonnes = new int[tailleGrille];
+            this.etiquettes = new int[tailleGrille + 1];
+            this.code = new byte[tailleGrille * tailleGrille];
+        }
+
+        private int valeur(int ligne, int col) {
+            return transposee ? grille.get(col, ligne) : grille.get(ligne, col);
+        }
+
+        /**
+         * Essaie tous les départages des égalités pour une orientation
+         * @param transposee true pour travailler sur la grille transposée
+         */
+        void parcourir(boolean transposee) {
+            this.transposee = transposee;
+
+            // Invariants : nombre d'indices de la ligne, puis nombres d'indices par pile triés
+            int[][] signaturesLignes = new int[tailleGrille][];
+            int[][] signaturesColonnes = new int[tailleGrille][];
+            for (int k = 0; k < tailleGrille; k++) {
+                signaturesLignes[k] = signature(k, true);
+                signaturesColonnes[k] = signature(k, false);
+            }
+
+            List<int[]> groupes = new ArrayList<>();
+            ordonner(bandes, lignesDeBande, signaturesLignes, true, groupes);
+            ordonner(piles, colonnesDePile, signaturesColonnes, false, groupes);
+
+            // Les groupes sont gardés dans l'ordre tant que le nombre d'essais reste sous la limite
+            List<int[]> retenus = new ArrayList<>();
+            long essais = 1;
+            for (int[] groupe : groupes) {
+                long permutations = factorielle(groupe[2] - groupe[1], LIMITE_ESSAIS + 1L);
+                if (essais * permutations <= LIMITE_ESSAIS) {
+                    essais *= permutations;
+                    retenus.add(groupe);
+                } else {
+                    exacte = false;
+                }
+            }
+
+            do {
+                evaluer();
+            } while (suivant(retenus));
+        }
+
+        /**
+         * Calcule la signature d'une ligne ou d'une colonne : son nombre d'indices suivi des nombres
+         * d'indices dans chaque pile (ou bande), triés pour ne pas dépendre de leur ordre
+         * @param k l'indice de la ligne ou de la colonne
+         * @param ligne true pour une ligne, false pour une colonne
+         * @return la signature
+         */
+        private int[] signature(int k, boolean ligne) {
+            int[] signature = new int[tailleSousGrille + 1];
+            for (int autre = 0; autre < tailleGrille; autre++) {
+                if ((ligne ? valeur(k, autre) : valeur(autre, k)) != 0) {
+                    signature[0]++;
+                    signature[1 + autre / tailleSousGrille]++;
+                }
+            }
+            Arrays.sort(signature, 1, signature.length);
+            return signature;
+        }
+
+        /**
+         * Trie les blocs (bandes ou piles) et leurs lignes selon les signatures et relève les égalités
+         * @param blocs l'ordre des blocs à remplir
+         * @param elements l'ordre des lignes de chaque bloc à remplir
+         * @param signatures la signature de chaque ligne
+         * @param cote true pour les bandes et les lignes, false pour les piles et les colonnes
+         * @param groupes les groupes d'égalités : {numéro du tableau, début, fin, côté}
+         */
+        private void ordonner(int[] blocs, int[][] elements, int[][] signatures, boolean cote, List<int[]> groupes) {
+            int[][] signaturesBlocs = new int[tailleSousGrille][];
+            for (int b = 0; b < tailleSousGrille; b++) {
+                for (int r = 0; r < tailleSousGrille; r++) {
+                    elements[b][r] = b * tailleSousGrille + r;
+                }
+                trier(elements[b], signatures);
+                int[] signatureBloc = new int[0];
+                for (int r = 0; r < tailleSousGrille; r++) {
+                    int[] s = signatures[elements[b][r]];
+                    int[] concat = Arrays.copyOf(signatureBloc, signatureBloc.length + s.length);
+                    System.arraycopy(s, 0, concat, signatureBloc.length, s.length);
+                    signatureBloc = concat;
+                }
+                signaturesBlocs[b] = signatureBloc;
+                blocs[b] = b;
+            }
+            trier(blocs, signaturesBlocs);
+
+            // Le numéro de tableau repère blocs (-1) ou les lignes d'un bloc (b) dans suivant()
+            relever(blocs, signaturesBlocs, -1, cote, groupes);
+            for (int b = 0; b < tailleSousGrille; b++) {
+                relever(elements[b], signatures, b, cote, groupes);
+            }
+        }
+
+        /**
+         * Tri par insertion stable des indices selon leurs signatures
+         */
+        private static void trier(int[] indices, int[][] signatures) {
+            for (int i = 1; i < indices.length; i++) {
+                int courant = indices[i];
+                int j = i - 1;
+                while (j >= 0 && Arrays.compare(signatures[indices[j]], signatures[courant]) > 0) {
+                    indices[j + 1] = indices[j];
+                    j--;
+                }
+                indices[j + 1] = courant;
+            }
+        }
+
+        /**
+         * Ajoute aux groupes chaque suite d'indices consécutifs de même signature
+         */
+        private void relever(int[] indices, int[][] signatures, int tableau, boolean cote, List<int[]> groupes) {
+            int debut = 0;
+            for (int i = 1; i <= indices.length; i++) {
+                if (i == indices.length || !Arrays.equals(signatures[indices[i]], signatures[indices[debut]])) {
+                    if (i - debut > 1) {
+                        groupes.add(new int[]{tableau, debut, i, cote ? 1 : 0});
+                    }
+                    debut = i;
+                }
+            }
+        }
+
+        private static long factorielle(int n, long plafond) {
+            long resultat = 1;
+            for (int k = 2; k <= n && resultat < plafond; k++) {
+                resultat *= k;
+            }
+            return Math.min(resultat, plafond);
+        }
+
+        /**
+         * Passe au départage suivant, comme un compteur dont chaque chiffre est une permutation
+         * @param groupes les groupes d'égalités retenus
+         * @return false quand tous les départages ont été essayés
+         */
+        private boolean suivant(List<int[]> groupes) {
+            for (int[] groupe : groupes) {
+                int[] tableau;
+                if (groupe[3] == 1) {
+                    tableau = groupe[0] < 0 ? bandes : lignesDeBande[groupe[0]];
+                } else {
+                    tableau = groupe[0] < 0 ? piles : colonnesDePile[groupe[0]];
+                }
+                if (permutationSuivante(tableau, groupe[1], groupe[2])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Permutation suivante dans l'ordre lexicographique d'une portion de tableau
+         * Après la dernière permutation, la portion revient dans l'ordre croissant.
+         * @return true s'il y avait une permutation suivante, false sinon
+         */
+        private static boolean permutationSuivante(int[] tableau, int debut, int fin) {
+            int i = fin - 2;
+            while (i >= debut && tableau[i] >= tableau[i + 1]) {
+                i--;
+            }
+            if (i >= debut) {
+                int j = fin - 1;
+                while (tableau[j] <= tableau[i]) {
+                    j--;
+                }
+                echanger(tableau, i, j);
+            }
+            for (int a = i + 1, b = fin - 1; a < b; a++, b--) {
+                echanger(tableau, a, b);
+            }
+            return i >= debut;
+        }
+
+        private static void echanger(int[] tableau, int i, int j) {
+            int temp = tableau[i];
+            tableau[i] = tableau[j];
+            tableau[j] = temp;
+        }
+
+        /**
+         * Code la grille dans l'ordre en cours en renommant les chiffres dans l'ordre d'apparition,
+         * et la garde si elle est plus petite que la meilleure (arrêt dès qu'elle est plus grande)
+         */
+        private void evaluer() {
+            for (int p = 0; p < tailleGrille; p++) {
+                int bande = bandes[p / tailleSousGrille];
+                ordreLignes[p] = lignesDeBande[bande][p % tailleSousGrille];
+                int pile = piles[p / tailleSousGrille];
+                ordreColonnes[p] = colonnesDePile[pile][p % tailleSousGrille];
+            }
+
+            Arrays.fill(etiquettes, 0);
+            int prochaine = 1;
+            int comparaison = meilleurCode == null ? -1 : 0;
+            int k = 0;
+            for (int p = 0; p < tailleGrille; p++) {
+                for (int q = 0; q < tailleGrille; q++, k++) {
+                    int v = valeur(ordreLignes[p], ordreColonnes[q]);
+                    if (v != 0 && etiquettes[v] == 0) {
+                        etiquettes[v] = prochaine++;
+                    }
+                    byte c = (byte) (v == 0 ? 0 : etiquettes[v]);
+                    if (comparaison == 0) {
+                        if (c > meilleurCode[k]) {
+                            return;
+                        }
+                        if (c < meilleurCode[k]) {
+                            comparaison = -1;
+                        }
+                    }
+                    code[k] = c;
+                }
+            }
+            if (comparaison < 0) {
+                meilleurCode = code.clone();
+                meilleureTransposee = transposee;
+                meilleuresLignes = ordreLignes.clone();
+                meilleuresColonnes = ordreColonnes.clone();
+                meilleuresEtiquettes = etiquettes.clone();
+            }
+        }
+
+        FormeCanonique resultat() {
+            // Les chiffres absents de la grille prennent les étiquettes restantes, dans l'ordre
+            int prochaine = 1;
+            for (int v = 1; v <= tailleGrille; v++) {
+                prochaine = Math.max(prochaine, meilleuresEtiquettes[v] + 1);
+            }
+            for (int v = 1; v <= tailleGrille; v++) {
+                if (meilleuresEtiquettes[v] == 0) {
+                    meilleuresEtiquettes[v] = prochaine++;
+                }
+            }
+            GrilleCompacte canonique = new GrilleCompacte(grille.getGeometrie());
+            System.arraycopy(meilleurCode, 0, canonique.getCases(), 0, meilleurCode.length);
+            return new FormeCanonique(canonique, meilleureTransposee, meilleuresLignes, meilleuresColonnes,
+                    meilleuresEtiquettes, exacte);
+        }
+    }
+}
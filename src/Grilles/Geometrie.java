@@ -0,0 +1,121 @@
+package src.Grilles;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class Geometrie {
+
+    // Une seule géométrie par taille de sous-grille, partagée par toutes les grilles et tous les threads
+    private static final ConcurrentHashMap<Integer, Geometrie> GEOMETRIES = new ConcurrentHashMap<>();
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    private final int nombreCases;
+    private final long pleine;
+    private final int[] lignes;
+    private final int[] colonnes;
+    private final int[] sousGrilles;
+    private final int[][] unites;
+
+    /**
+     * Constructeur des tables d'indices d'une taille de grille
+     * @param tailleSousGrille la taille de la sous-grille
+     */
+    private Geometrie(int tailleSousGrille) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.nombreCases = tailleGrille * tailleGrille;
+        this.pleine = tailleGrille == 64 ? -1L : (1L << tailleGrille) - 1;
+        this.lignes = new int[nombreCases];
+        this.colonnes = new int[nombreCases];
+        this.sousGrilles = new int[nombreCases];
+        this.unites = new int[3 * tailleGrille][tailleGrille];
+
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                int indice = i * tailleGrille + j;
+                int sousGrille = (i / tailleSousGrille) * tailleSousGrille + j / tailleSousGrille;
+                int position = (i % tailleSousGrille) * tailleSousGrille + j % tailleSousGrille;
+                lignes[indice] = i;
+                colonnes[indice] = j;
+                sousGrilles[indice] = sousGrille;
+                unites[i][j] = indice;
+                unites[tailleGrille + j][i] = indice;
+                unites[2 * tailleGrille + sousGrille][position] = indice;
+            }
+        }
+    }
+
+    /**
+     * Récupère la géométrie d'une taille de sous-grille, calculée une seule fois
+     * @param tailleSousGrille la taille de la sous-grille (de 1 à 8, les valeurs tiennent sur un masque de 64 bits)
+     * @return la géométrie
+     */
+    public static Geometrie pour(int tailleSousGrille) {
+        if (tailleSousGrille < 1 || tailleSousGrille > 8) {
+            throw new IllegalArgumentException("Taille de sous-grille non supportée : " + tailleSousGrille);
+        }
+        return GEOMETRIES.computeIfAbsent(tailleSousGrille, Geometrie::new);
+    }
+
+    public int getTailleSousGrille() {
+        return this.tailleSousGrille;
+    }
+
+    public int getTailleGrille() {
+        return this.tailleGrille;
+    }
+
+    public int getNombreCases() {
+        return this.nombreCases;
+    }
+
+    /**
+     * Récupère le masque de toutes les valeurs (bit v-1 pour la valeur v)
+     * @return le masque plein
+     */
+    public long getPleine() {
+        return this.pleine;
+    }
+
+    /**
+     * Calcule l'indice à plat d'une case
+     * @param ligne la ligne
+     * @param col la colonne
+     * @return l'indice ligne * tailleGrille + col
+     */
+    public int indice(int ligne, int col) {
+        return ligne * tailleGrille + col;
+    }
+
+    /**
+     * Récupère la ligne de chaque case (indice à plat)
+     * @return la table des lignes, à ne pas modifier
+     */
+    public int[] getLignes() {
+        return this.lignes;
+    }
+
+    /**
+     * Récupère la colonne de chaque case (indice à plat)
+     * @return la table des colonnes, à ne pas modifier
+     */
+    public int[] getColonnes() {
+        return this.colonnes;
+    }
+
+    /**
+     * Récupère la sous-grille de chaque case (indice à plat)
+     * @return la table des sous-grilles, à ne pas modifier
+     */
+    public int[] getSousGrilles() {
+        return this.sousGrilles;
+    }
+
+    /**
+     * Récupère les cases de chaque unité : les lignes, puis les colonnes, puis les sous-grilles
+     * @return la table des unités, à ne pas modifier
+     */
+    public int[][] getUnites() {
+        return this.unites;
+    }
+}
@@ -0,0 +1,151 @@
+package src.Grilles;
+
+import java.util.Arrays;
+
+public final class GrilleCompacte {
+
+    private final Geometrie geometrie;
+    // Une valeur par case (0 pour une case vide), rangées ligne par ligne : les valeurs vont jusqu'à 64
+    private final byte[] cases;
+
+    /**
+     * Constructeur d'une grille compacte vide
+     * @param geometrie la géométrie de la grille
+     */
+    public GrilleCompacte(Geometrie geometrie) {
+        this.geometrie = geometrie;
+        this.cases = new byte[geometrie.getNombreCases()];
+    }
+
+    /**
+     * Constructeur d'une grille compacte vide
+     * @param tailleSousGrille la taille de la sous-grille
+     */
+    public GrilleCompacte(int tailleSousGrille) {
+        this(Geometrie.pour(tailleSousGrille));
+    }
+
+    /**
+     * Construit une grille compacte à partir d'une grille int[][]
+     * @param grille la grille à convertir (tailleGrille x tailleGrille, tailleGrille étant un carré)
+     * @return la grille compacte
+     */
+    public static GrilleCompacte depuis(int[][] grille) {
+        GrilleCompacte compacte = new GrilleCompacte((int) Math.round(Math.sqrt(grille.length)));
+        compacte.charger(grille);
+        return compacte;
+    }
+
+    /**
+     * Recopie une grille int[][] de même taille dans la grille compacte
+     * @param grille la grille à recopier
+     */
+    public void charger(int[][] grille) {
+        int tailleGrille = geometrie.getTailleGrille();
+        for (int i = 0; i < tailleGrille; i++) {
+            int[] ligne = grille[i];
+            int debut = i * tailleGrille;
+            for (int j = 0; j < tailleGrille; j++) {
+                cases[debut + j] = (byte) ligne[j];
+            }
+        }
+    }
+
+    /**
+     * Convertit la grille compacte en grille int[][]
+     * @return une nouvelle grille int[][]
+     */
+    public int[][] versTableau() {
+        int tailleGrille = geometrie.getTailleGrille();
+        int[][] grille = new int[tailleGrille][tailleGrille];
+        copierDans(grille);
+        return grille;
+    }
+
+    /**
+     * Recopie la grille compacte dans une grille int[][] de même taille
+     * @param grille la grille de destination
+     */
+    public void copierDans(int[][] grille) {
+        int tailleGrille = geometrie.getTailleGrille();
+        for (int i = 0; i < tailleGrille; i++) {
+            int[] ligne = grille[i];
+            int debut = i * tailleGrille;
+            for (int j = 0; j < tailleGrille; j++) {
+                ligne[j] = cases[debut + j];
+            }
+        }
+    }
+
+    /**
+     * Recopie la grille compacte dans une autre grille compacte de même géométrie
+     * @param destination la grille de destination
+     */
+    public void copierDans(GrilleCompacte destination) {
+        System.arraycopy(cases, 0, destination.cases, 0, cases.length);
+    }
+
+    /**
+     * Copie la grille
+     * @return une nouvelle grille compacte identique
+     */
+    public GrilleCompacte copie() {
+        GrilleCompacte copie = new GrilleCompacte(geometrie);
+        copierDans(copie);
+        return copie;
+    }
+
+    public int get(int indice) {
+        return cases[indice];
+    }
+
+    public int get(int ligne, int col) {
+        return cases[ligne * geometrie.getTailleGrille() + col];
+    }
+
+    public void set(int indice, int valeur) {
+        cases[indice] = (byte) valeur;
+    }
+
+    public void set(int ligne, int col, int valeur) {
+        cases[ligne * geometrie.getTailleGrille() + col] = (byte) valeur;
+    }
+
+    /**
+     * Compte les cases vides
+     * @return le nombre de cases vides
+     */
+    public int nombreVides() {
+        int vides = 0;
+        for (byte valeur : cases) {
+            if (valeur == 0) {
+                vides++;
+            }
+        }
+        return vides;
+    }
+
+    public Geometrie getGeometrie() {
+        return this.geometrie;
+    }
+
+    /**
+     * Récupère le tableau des cases pour les boucles critiques (indice à plat, 0 pour une case vide)
+     * @return le tableau interne, modifiable
+     */
+    public byte[] getCases() {
+        return this.cases;
+    }
+
+    @Override
+    public boolean equals(Object autre) {
+        return autre instanceof GrilleCompacte
+                && ((GrilleCompacte) autre).geometrie == geometrie
+                && Arrays.equals(((GrilleCompacte) autre).cases, cases);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(cases);
+    }
+}
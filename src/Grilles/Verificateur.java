@@ -0,0 +1,220 @@
+package src.Grilles;
+
+public final class Verificateur {
+
+    /** Aucune unité n'est violée : la grille est une solution */
+    public static final int VALIDE = -1;
+    /** La grille proposée ne conserve pas une valeur de départ */
+    public static final int DONNEE_MODIFIEE = -2;
+
+    private final Geometrie geometrie;
+    private final int tailleGrille;
+    private final int nombreCases;
+    private final long pleine;
+    private final int[] sousGrilles;
+    // Bit de chaque valeur d'octet, 0 pour une case vide ou une valeur hors de la grille
+    private final long[] bits = new long[256];
+
+    /**
+     * Constructeur d'un vérificateur de solutions pour une taille de grille
+     * Le vérificateur ne garde aucun état entre deux appels : une même instance peut servir à tous les threads.
+     * @param geometrie la géométrie des grilles à vérifier
+     */
+    public Verificateur(Geometrie geometrie) {
+        this.geometrie = geometrie;
+        this.tailleGrille = geometrie.getTailleGrille();
+        this.nombreCases = geometrie.getNombreCases();
+        this.pleine = geometrie.getPleine();
+        this.sousGrilles = geometrie.getSousGrilles();
+        for (int valeur = 1; valeur <= tailleGrille; valeur++) {
+            bits[valeur] = 1L << (valeur - 1);
+        }
+    }
+
+    /**
+     * Constructeur d'un vérificateur de solutions pour une taille de sous-grille
+     * @param tailleSousGrille la taille de la sous-grille
+     */
+    public Verificateur(int tailleSousGrille) {
+        this(Geometrie.pour(tailleSousGrille));
+    }
+
+    //region VERIFICATION D'UNE GRILLE
+
+    /**
+     * Vérifie qu'une grille est complète et respecte toutes les contraintes
+     * @param grille la grille à vérifier
+     * @return true si la grille est une solution, false sinon
+     */
+    public boolean estSolution(GrilleCompacte grille) {
+        return premiereUniteInvalide(grille) == VALIDE;
+    }
+
+    /**
+     * Vérifie qu'une grille est une solution qui conserve les valeurs d'une grille de départ
+     * @param depart la grille de départ
+     * @param candidate la grille proposée par un résolveur
+     * @return true si la grille proposée est une solution de la grille de départ, false sinon
+     */
+    public boolean estSolution(GrilleCompacte depart, GrilleCompacte candidate) {
+        return premiereUniteInvalide(depart, candidate) == VALIDE;
+    }
+
+    /**
+     * Cherche la première unité violée d'une grille, dans l'ordre des unités de la géométrie
+     * (lignes, puis colonnes, puis sous-grilles)
+     * @param grille la grille à vérifier
+     * @return l'indice de l'unité, VALIDE si la grille est une solution
+     */
+    public int premiereUniteInvalide(GrilleCompacte grille) {
+        return premiereUniteInvalide(grille.getCases(), 0, new long[tailleGrille], new long[tailleGrille]);
+    }
+
+    /**
+     * Cherche la première unité violée d'une grille proposée pour une grille de départ
+     * @param depart la grille de départ
+     * @param candidate la grille proposée par un résolveur
+     * @return l'indice de l'unité, DONNEE_MODIFIEE si une valeur de départ a changé, VALIDE si la grille est
+     *         une solution de la grille de départ
+     */
+    public int premiereUniteInvalide(GrilleCompacte depart, GrilleCompacte candidate) {
+        byte[] donnees = depart.getCases();
+        byte[] cases = candidate.getCases();
+        for (int indice = 0; indice < nombreCases; indice++) {
+            if (donnees[indice] != 0 && donnees[indice] != cases[indice]) {
+                return DONNEE_MODIFIEE;
+            }
+        }
+        return premiereUniteInvalide(candidate);
+    }
+
+    /**
+     * Cherche la première unité violée d'une grille rangée à plat dans un tableau d'octets
+     * Une unité est respectée si le OU des bits de ses valeurs donne le masque plein : ses tailleGrille cases
+     * apportent alors tailleGrille bits différents, donc aucune case vide, hors limites ou en double.
+     * Les lignes sont vérifiées au fil de la lecture, les colonnes et les sous-grilles à la fin.
+     * @param cases les grilles rangées ligne par ligne, les unes à la suite des autres
+     * @param debut l'indice de la première case de la grille
+     * @param colonnes les masques des colonnes, remis à zéro ici
+     * @param boites les masques des sous-grilles, remis à zéro ici
+     * @return l'indice de l'unité, VALIDE si la grille est une solution
+     */
+    private int premiereUniteInvalide(byte[] cases, int debut, long[] colonnes, long[] boites) {
+        for (int k = 0; k < tailleGrille; k++) {
+            colonnes[k] = 0;
+            boites[k] = 0;
+        }
+        for (int i = 0, indice = 0; i < tailleGrille; i++) {
+            long ligne = 0;
+            for (int j = 0; j < tailleGrille; j++, indice++) {
+                long bit = bits[cases[debut + indice] & 0xFF];
+                ligne |= bit;
+                colonnes[j] |= bit;
+                boites[sousGrilles[indice]] |= bit;
+            }
+            if (ligne != pleine) {
+                // Les lignes viennent en premier : inutile de finir la lecture
+                return i;
+            }
+        }
+        int premiere = VALIDE;
+        for (int k = 0; k < tailleGrille && premiere == VALIDE; k++) {
+            if (colonnes[k] != pleine) {
+                premiere = tailleGrille + k;
+            }
+        }
+        for (int k = 0; k < tailleGrille && premiere == VALIDE; k++) {
+            if (boites[k] != pleine) {
+                premiere = 2 * tailleGrille + k;
+            }
+        }
+        return premiere;
+    }
+
+    //endregion
+
+    //region VERIFICATION DE PLUSIEURS GRILLES
+
+    /**
+     * Vérifie plusieurs grilles rangées les unes à la suite des autres dans un même tableau d'octets
+     * @param cases les grilles, nombreCases octets par grille
+     * @param nombre le nombre de grilles à vérifier
+     * @param unites reçoit la première unité violée de chaque grille (VALIDE pour une solution), null si inutile
+     * @return le nombre de grilles qui ne sont pas des solutions
+     */
+    public int verifier(byte[] cases, int nombre, int[] unites) {
+        if ((long) nombre * nombreCases > cases.length) {
+            throw new IllegalArgumentException("Le tableau ne contient pas " + nombre + " grilles");
+        }
+        // Les masques sont alloués une fois pour tout l'appel
+        long[] colonnes = new long[tailleGrille];
+        long[] boites = new long[tailleGrille];
+        int invalides = 0;
+        for (int k = 0; k < nombre; k++) {
+            int unite = premiereUniteInvalide(cases, k * nombreCases, colonnes, boites);
+            if (unite != VALIDE) {
+                invalides++;
+            }
+            if (unites != null) {
+                unites[k] = unite;
+            }
+        }
+        return invalides;
+    }
+
+    /**
+     * Vérifie plusieurs grilles compactes de la taille du vérificateur
+     * @param grilles les grilles à vérifier
+     * @param unites reçoit la première unité violée de chaque grille (VALIDE pour une solution), null si inutile
+     * @return le nombre de grilles qui ne sont pas des solutions
+     */
+    public int verifier(GrilleCompacte[] grilles, int[] unites) {
+        long[] colonnes = new long[tailleGrille];
+        long[] boites = new long[tailleGrille];
+        int invalides = 0;
+        for (int k = 0; k < grilles.length; k++) {
+            if (grilles[k].getGeometrie() != geometrie) {
+                throw new IllegalArgumentException("La grille " + k + " n'a pas la taille du vérificateur");
+            }
+            int unite = premiereUniteInvalide(grilles[k].getCases(), 0, colonnes, boites);
+            if (unite != VALIDE) {
+                invalides++;
+            }
+            if (unites != null) {
+                unites[k] = unite;
+            }
+        }
+        return invalides;
+    }
+
+    //endregion
+
+    /**
+     * Décrit une unité pour les messages de diagnostic
+     * @param unite l'indice de l'unité renvoyé par le vérificateur
+     * @return la description de l'unité, par exemple "colonne 3" (numérotée à partir de 1)
+     */
+    public String decrire(int unite) {
+        if (unite == VALIDE) {
+            return "aucune";
+        }
+        if (unite == DONNEE_MODIFIEE) {
+            return "valeur de départ modifiée";
+        }
+        if (unite < tailleGrille) {
+            return "ligne " + (unite + 1);
+        }
+        if (unite < 2 * tailleGrille) {
+            return "colonne " + (unite - tailleGrille + 1);
+        }
+        return "sous-grille " + (unite - 2 * tailleGrille + 1);
+    }
+
+    /**
+     * Récupère la géométrie des grilles vérifiées
+     * @return la géométrie
+     */
+    public Geometrie getGeometrie() {
+        return this.geometrie;
+    }
+}
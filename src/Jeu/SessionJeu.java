@@ -0,0 +1,498 @@
+package src.Jeu;
+
+import java.util.Arrays;
+import src.Grilles.Geometrie;
+import src.Grilles.GrilleCompacte;
+import src.Resolveurs.Echeance;
+
+public class SessionJeu {
+
+    /**
+     * Réponse d'une vérification de solvabilité bornée
+     */
+    public enum Solvabilite {
+        /** Une solution a été trouvée à partir de l'état courant */
+        SOLUBLE,
+        /** La recherche a prouvé qu'il n'existe aucune solution (ou la grille contient des conflits) */
+        INSOLUBLE,
+        /** La recherche a épuisé son budget avant de conclure */
+        INCONNUE
+    }
+
+    /**
+     * Raisonnement qui justifie un indice
+     */
+    public enum Technique {
+        /** La case contient une valeur déjà présente dans une de ses unités : il faut l'effacer */
+        CONFLIT,
+        /** La case n'a plus qu'un candidat */
+        SINGLETON_NU,
+        /** La valeur n'a plus qu'une case possible dans une unité */
+        SINGLETON_CACHE
+    }
+
+    /**
+     * Indice proposé au joueur : une case, la valeur à y mettre (0 pour l'effacer) et la technique employée
+     */
+    public static final class Indice {
+
+        private final int ligne;
+        private final int colonne;
+        private final int valeur;
+        private final Technique technique;
+
+        private Indice(int ligne, int colonne, int valeur, Technique technique) {
+            this.ligne = ligne;
+            this.colonne = colonne;
+            this.valeur = valeur;
+            this.technique = technique;
+        }
+
+        public int getLigne() {
+            return this.ligne;
+        }
+
+        public int getColonne() {
+            return this.colonne;
+        }
+
+        public int getValeur() {
+            return this.valeur;
+        }
+
+        public Technique getTechnique() {
+            return this.technique;
+        }
+
+        @Override
+        public String toString() {
+            return technique + " (" + (ligne + 1) + ", " + (colonne + 1) + ") = " + valeur;
+        }
+    }
+
+    private final Geometrie geometrie;
+    private final int tailleGrille;
+    private final long pleine;
+    private final int[] lignes;
+    private final int[] colonnes;
+    private final int[] sousGrilles;
+    private final int[][] unites;
+    private final GrilleCompacte grille;
+    private final byte[] cases;
+    // Cases données au départ, que le joueur ne peut pas modifier
+    private final boolean[] donnees;
+
+    // Nombre d'occurrences de chaque valeur dans chaque unité (unite * tailleGrille + valeur - 1)
+    private final byte[] occurrences;
+    // Valeurs présentes au moins une fois dans chaque unité
+    private final long[] presentes;
+    // Nombre de paires de cases d'une même unité qui ont la même valeur
+    private int conflits;
+    private int vides;
+
+    // Journal des coups : indice << 16 | ancienne valeur << 8 | nouvelle valeur
+    private int[] journal = new int[64];
+    private int nombreCoups;
+
+    // Recherche bornée de la solvabilité
+    private Echeance echeance;
+    private long noeuds;
+    private boolean interrompue;
+
+    /**
+     * Constructeur d'une session de jeu sur une grille : ses valeurs non nulles deviennent les données fixes
+     * Une session n'est utilisée que par un joueur à la fois et n'est pas protégée contre les accès concurrents.
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille de départ (elle est copiée)
+     */
+    public SessionJeu(int tailleSousGrille, int[][] grille) {
+        this.geometrie = Geometrie.pour(tailleSousGrille);
+        this.tailleGrille = geometrie.getTailleGrille();
+        this.pleine = geometrie.getPleine();
+        this.lignes = geometrie.getLignes();
+        this.colonnes = geometrie.getColonnes();
+        this.sousGrilles = geometrie.getSousGrilles();
+        this.unites = geometrie.getUnites();
+        this.grille = new GrilleCompacte(geometrie);
+        this.cases = this.grille.getCases();
+        this.donnees = new boolean[cases.length];
+        this.occurrences = new byte[3 * tailleGrille * tailleGrille];
+        this.presentes = new long[3 * tailleGrille];
+
+        this.vides = cases.length;
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                int valeur = grille[i][j];
+                if (valeur != 0) {
+                    int indice = geometrie.indice(i, j);
+                    donnees[indice] = true;
+                    ajouter(indice, valeur);
+                }
+            }
+        }
+    }
+
+    //region COUPS DU JOUEUR
+
+    /**
+     * Vérifie en O(1) qu'un coup respecte les règles : la case n'est pas une donnée, la valeur est dans la
+     * grille et elle n'apparaît dans aucune autre case de la ligne, de la colonne ou de la sous-grille
+     * @param ligne la ligne
+     * @param col la colonne
+     * @param valeur la valeur à placer
+     * @return true si le coup est légal, false sinon
+     */
+    public boolean estLegal(int ligne, int col, int valeur) {
+        if (!dansLaGrille(ligne, col) || valeur < 1 || valeur > tailleGrille) {
+            return false;
+        }
+        int indice = geometrie.indice(ligne, col);
+        if (donnees[indice]) {
+            return false;
+        }
+        // La valeur actuelle de la case ne compte pas : on la remplace
+        int dejaLa = cases[indice] == valeur ? 1 : 0;
+        return occurrences(lignes[indice], valeur) == dejaLa
+                && occurrences(tailleGrille + colonnes[indice], valeur) == dejaLa
+                && occurrences(2 * tailleGrille + sousGrilles[indice], valeur) == dejaLa;
+    }
+
+    /**
+     * Place une valeur dans une case et l'inscrit dans le journal
+     * Un coup illégal est accepté tant que la case n'est pas une donnée : il crée des conflits que
+     * getConflits() et prochainIndice() signalent.
+     * @param ligne la ligne
+     * @param col la colonne
+     * @param valeur la valeur à placer, 0 pour effacer la case
+     * @return true si le coup a été joué, false si la case est une donnée ou si la valeur est hors de la grille
+     */
+    public boolean placer(int ligne, int col, int valeur) {
+        if (!dansLaGrille(ligne, col) || valeur < 0 || valeur > tailleGrille) {
+            return false;
+        }
+        int indice = geometrie.indice(ligne, col);
+        if (donnees[indice]) {
+            return false;
+        }
+        int ancienne = cases[indice];
+        if (ancienne == valeur) {
+            return true;
+        }
+        if (nombreCoups == journal.length) {
+            journal = Arrays.copyOf(journal, 2 * journal.length);
+        }
+        journal[nombreCoups++] = indice << 16 | ancienne << 8 | valeur;
+        remplacer(indice, ancienne, valeur);
+        return true;
+    }
+
+    /**
+     * Efface une case
+     * @param ligne la ligne
+     * @param col la colonne
+     * @return true si le coup a été joué, false si la case est une donnée
+     */
+    public boolean effacer(int ligne, int col) {
+        return placer(ligne, col, 0);
+    }
+
+    /**
+     * Annule le dernier coup du journal
+     * @return true si un coup a été annulé, false si le journal est vide
+     */
+    public boolean annuler() {
+        if (nombreCoups == 0) {
+            return false;
+        }
+        int coup = journal[--nombreCoups];
+        remplacer(coup >>> 16, coup & 0xFF, (coup >>> 8) & 0xFF);
+        return true;
+    }
+
+    private boolean dansLaGrille(int ligne, int col) {
+        return ligne >= 0 && ligne < tailleGrille && col >= 0 && col < tailleGrille;
+    }
+
+    //endregion
+
+    //region TENUE A JOUR DES COMPTEURS
+
+    /**
+     * Remplace la valeur d'une case et met à jour les compteurs des trois unités
+     */
+    private void remplacer(int indice, int ancienne, int nouvelle) {
+        if (ancienne != 0) {
+            retirer(indice, ancienne);
+        }
+        if (nouvelle != 0) {
+            ajouter(indice, nouvelle);
+        }
+    }
+
+    private void ajouter(int indice, int valeur) {
+        cases[indice] = (byte) valeur;
+        vides--;
+        long bit = 1L << (valeur - 1);
+        conflits += incrementer(lignes[indice], valeur, bit)
+                + incrementer(tailleGrille + colonnes[indice], valeur, bit)
+                + incrementer(2 * tailleGrille + sousGrilles[indice], valeur, bit);
+    }
+
+    private void retirer(int indice, int valeur) {
+        cases[indice] = 0;
+        vides++;
+        long bit = 1L << (valeur - 1);
+        conflits -= decrementer(lignes[indice], valeur, bit)
+                + decrementer(tailleGrille + colonnes[indice], valeur, bit)
+                + decrementer(2 * tailleGrille + sousGrilles[indice], valeur, bit);
+    }
+
+    /**
+     * Ajoute une occurrence d'une valeur dans une unité
+     * @return le nombre de paires en conflit créées : une par occurrence déjà présente
+     */
+    private int incrementer(int unite, int valeur, long bit) {
+        int position = unite * tailleGrille + valeur - 1;
+        presentes[unite] |= bit;
+        return occurrences[position]++;
+    }
+
+    /**
+     * Retire une occurrence d'une valeur d'une unité
+     * @return le nombre de paires en conflit supprimées : une par occurrence restante
+     */
+    private int decrementer(int unite, int valeur, long bit) {
+        int position = unite * tailleGrille + valeur - 1;
+        int restantes = --occurrences[position];
+        if (restantes == 0) {
+            presentes[unite] &= ~bit;
+        }
+        return restantes;
+    }
+
+    private int occurrences(int unite, int valeur) {
+        return occurrences[unite * tailleGrille + valeur - 1];
+    }
+
+    /**
+     * Calcule en O(1) les candidats d'une case : les valeurs absentes de ses trois unités
+     * @param indice l'indice de la case
+     * @return le masque des candidats (bit v - 1 pour la valeur v)
+     */
+    private long candidats(int indice) {
+        return ~(presentes[lignes[indice]] | presentes[tailleGrille + colonnes[indice]]
+                | presentes[2 * tailleGrille + sousGrilles[indice]]) & pleine;
+    }
+
+    //endregion
+
+    //region SOLVABILITE
+
+    /**
+     * Vérifie si la grille peut encore être complétée à partir de l'état courant, avec un budget de noeuds
+     * @param budget le nombre maximal de noeuds explorés
+     * @return SOLUBLE, INSOLUBLE, ou INCONNUE si le budget a été épuisé
+     */
+    public Solvabilite estSoluble(long budget) {
+        return estSoluble(Echeance.aucune().avecBudget(budget));
+    }
+
+    /**
+     * Vérifie si la grille peut encore être complétée à partir de l'état courant
+     * La recherche travaille sur les compteurs de la session et les remet dans leur état en sortant :
+     * rien n'est reconstruit.
+     * @param echeance l'échéance de la recherche (délai, budget de noeuds, annulation)
+     * @return SOLUBLE, INSOLUBLE, ou INCONNUE si l'échéance a été dépassée
+     */
+    public Solvabilite estSoluble(Echeance echeance) {
+        if (conflits > 0) {
+            return Solvabilite.INSOLUBLE;
+        }
+        this.echeance = echeance;
+        this.noeuds = 0;
+        this.interrompue = false;
+        boolean soluble = rechercher();
+        this.echeance = null;
+        if (soluble) {
+            return Solvabilite.SOLUBLE;
+        }
+        return interrompue ? Solvabilite.INCONNUE : Solvabilite.INSOLUBLE;
+    }
+
+    /**
+     * Backtracking sur la case la plus contrainte, qui défait chacun de ses placements
+     * @return true si la grille a pu être complétée, false sinon
+     */
+    private boolean rechercher() {
+        if (vides == 0) {
+            return true;
+        }
+        if (interrompue) {
+            return false;
+        }
+        // Le budget est vérifié à chaque noeud, le reste de l'échéance régulièrement
+        if (echeance.depasseBudget(++noeuds) || ((noeuds & 1023) == 0 && echeance.estDepassee())) {
+            interrompue = true;
+            return false;
+        }
+
+        int meilleure = -1;
+        long meilleursCandidats = 0;
+        int meilleurNombre = Integer.MAX_VALUE;
+        for (int indice = 0; indice < cases.length && meilleurNombre > 1; indice++) {
+            if (cases[indice] == 0) {
+                long candidats = candidats(indice);
+                int nombre = Long.bitCount(candidats);
+                if (nombre < meilleurNombre) {
+                    meilleure = indice;
+                    meilleursCandidats = candidats;
+                    meilleurNombre = nombre;
+                }
+            }
+        }
+
+        boolean trouvee = false;
+        while (meilleursCandidats != 0 && !trouvee) {
+            long bit = meilleursCandidats & -meilleursCandidats;
+            meilleursCandidats ^= bit;
+            ajouter(meilleure, Long.numberOfTrailingZeros(bit) + 1);
+            trouvee = rechercher();
+            retirer(meilleure, Long.numberOfTrailingZeros(bit) + 1);
+        }
+        return trouvee;
+    }
+
+    //endregion
+
+    //region INDICES
+
+    /**
+     * Propose le prochain coup logique : d'abord une case en conflit à effacer, puis un singleton nu,
+     * puis un singleton caché
+     * @return l'indice, null si aucune de ces techniques ne s'applique
+     */
+    public Indice prochainIndice() {
+        if (conflits > 0) {
+            for (int indice = 0; indice < cases.length; indice++) {
+                if (cases[indice] != 0 && !donnees[indice] && estEnConflit(indice)) {
+                    return new Indice(lignes[indice], colonnes[indice], 0, Technique.CONFLIT);
+                }
+            }
+        }
+
+        // Singleton nu : une case vide qui n'a plus qu'un candidat
+        for (int indice = 0; indice < cases.length; indice++) {
+            if (cases[indice] == 0) {
+                long candidats = candidats(indice);
+                if (Long.bitCount(candidats) == 1) {
+                    return new Indice(lignes[indice], colonnes[indice],
+                            Long.numberOfTrailingZeros(candidats) + 1, Technique.SINGLETON_NU);
+                }
+            }
+        }
+
+        // Singleton caché : une valeur qui n'a qu'une case possible dans une unité
+        for (int[] unite : unites) {
+            long une = 0;
+            long plusieurs = 0;
+            for (int indice : unite) {
+                if (cases[indice] == 0) {
+                    long candidats = candidats(indice);
+                    plusieurs |= une & candidats;
+                    une |= candidats;
+                }
+            }
+            long uniques = une & ~plusieurs;
+            if (uniques != 0) {
+                long bit = uniques & -uniques;
+                for (int indice : unite) {
+                    if (cases[indice] == 0 && (candidats(indice) & bit) != 0) {
+                        return new Indice(lignes[indice], colonnes[indice],
+                                Long.numberOfTrailingZeros(bit) + 1, Technique.SINGLETON_CACHE);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean estEnConflit(int indice) {
+        int valeur = cases[indice];
+        return occurrences(lignes[indice], valeur) > 1
+                || occurrences(tailleGrille + colonnes[indice], valeur) > 1
+                || occurrences(2 * tailleGrille + sousGrilles[indice], valeur) > 1;
+    }
+
+    //endregion
+
+    //region ETAT DE LA SESSION
+
+    /**
+     * Indique si une case contient une valeur en double dans une de ses unités
+     * @param ligne la ligne
+     * @param col la colonne
+     * @return true si la case est en conflit, false sinon
+     */
+    public boolean estEnConflit(int ligne, int col) {
+        int indice = geometrie.indice(ligne, col);
+        return cases[indice] != 0 && estEnConflit(indice);
+    }
+
+    /**
+     * Récupère les candidats d'une case, en O(1)
+     * @param ligne la ligne
+     * @param col la colonne
+     * @return le masque des candidats (bit v - 1 pour la valeur v)
+     */
+    public long getCandidats(int ligne, int col) {
+        return candidats(geometrie.indice(ligne, col));
+    }
+
+    /**
+     * Indique si une case est une donnée de départ
+     * @param ligne la ligne
+     * @param col la colonne
+     * @return true si la case ne peut pas être modifiée, false sinon
+     */
+    public boolean estDonnee(int ligne, int col) {
+        return donnees[geometrie.indice(ligne, col)];
+    }
+
+    /**
+     * Indique si la grille est complète et sans conflit
+     * @return true si le joueur a résolu la grille, false sinon
+     */
+    public boolean estTerminee() {
+        return vides == 0 && conflits == 0;
+    }
+
+    /**
+     * Récupère le nombre de paires de cases d'une même unité qui ont la même valeur
+     * @return le nombre de conflits
+     */
+    public int getConflits() {
+        return this.conflits;
+    }
+
+    public int getVides() {
+        return this.vides;
+    }
+
+    public int getNombreCoups() {
+        return this.nombreCoups;
+    }
+
+    public int getValeur(int ligne, int col) {
+        return grille.get(ligne, col);
+    }
+
+    /**
+     * Récupère une copie int[][] de la grille courante
+     * @return la grille
+     */
+    public int[][] getGrille() {
+        return grille.versTableau();
+    }
+
+    //endregion
+}
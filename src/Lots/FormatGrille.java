@@ -0,0 +1,116 @@
+package src.Lots;
+
+public final class FormatGrille {
+
+    // Symboles du format compact : la valeur v est le symbole d'indice v - 1, '.' ou '0' pour une case vide
+    private static final String SYMBOLES = "123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private FormatGrille() {
+    }
+
+    /**
+     * Indique si une ligne est au format généralisé (valeurs séparées par des espaces ou des virgules)
+     * plutôt qu'au format compact (un caractère par case, comme les grilles de 81 caractères)
+     * @param ligne la ligne lue
+     * @return true pour le format généralisé, false pour le format compact
+     */
+    public static boolean estGeneralise(String ligne) {
+        for (int k = 0; k < ligne.length(); k++) {
+            char c = ligne.charAt(k);
+            if (c == ' ' || c == ',' || c == '\t' || c == ';') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lit une grille écrite sur une ligne
+     * @param ligne la ligne lue
+     * @return la grille, ou null si la ligne ne décrit pas une grille valide
+     */
+    public static int[][] lire(String ligne) {
+        return estGeneralise(ligne) ? lireGeneralise(ligne) : lireCompact(ligne.trim());
+    }
+
+    private static int[][] lireCompact(String ligne) {
+        int tailleGrille = tailleGrille(ligne.length());
+        if (tailleGrille == 0 || tailleGrille > SYMBOLES.length()) {
+            return null;
+        }
+        int[][] grille = new int[tailleGrille][tailleGrille];
+        for (int k = 0; k < ligne.length(); k++) {
+            char c = ligne.charAt(k);
+            int valeur = c == '.' || c == '0' ? 0 : SYMBOLES.indexOf(Character.toUpperCase(c)) + 1;
+            if (valeur < 0 || valeur > tailleGrille || (valeur == 0 && c != '.' && c != '0')) {
+                return null;
+            }
+            grille[k / tailleGrille][k % tailleGrille] = valeur;
+        }
+        return grille;
+    }
+
+    private static int[][] lireGeneralise(String ligne) {
+        String[] valeurs = ligne.trim().split("[\\s,;]+");
+        int tailleGrille = tailleGrille(valeurs.length);
+        if (tailleGrille == 0) {
+            return null;
+        }
+        int[][] grille = new int[tailleGrille][tailleGrille];
+        for (int k = 0; k < valeurs.length; k++) {
+            int valeur;
+            if (valeurs[k].equals(".")) {
+                valeur = 0;
+            } else {
+                try {
+                    valeur = Integer.parseInt(valeurs[k]);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            if (valeur < 0 || valeur > tailleGrille) {
+                return null;
+            }
+            grille[k / tailleGrille][k % tailleGrille] = valeur;
+        }
+        return grille;
+    }
+
+    /**
+     * Ecrit une grille sur une ligne
+     * @param grille la grille à écrire
+     * @param generalise true pour le format généralisé, false pour le format compact
+     * @return la ligne
+     */
+    public static String ecrire(int[][] grille, boolean generalise) {
+        int tailleGrille = grille.length;
+        StringBuilder ligne = new StringBuilder(tailleGrille * tailleGrille * (generalise ? 3 : 1));
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                int valeur = grille[i][j];
+                if (generalise) {
+                    if (i != 0 || j != 0) {
+                        ligne.append(' ');
+                    }
+                    ligne.append(valeur);
+                } else {
+                    ligne.append(valeur == 0 ? '.' : SYMBOLES.charAt(valeur - 1));
+                }
+            }
+        }
+        return ligne.toString();
+    }
+
+    /**
+     * Déduit la taille de la grille du nombre de cases, qui doit être une puissance quatrième
+     * @param nombreCases le nombre de cases lues
+     * @return la taille de la grille, 0 si le nombre de cases ne correspond à aucune grille
+     */
+    private static int tailleGrille(int nombreCases) {
+        int tailleSousGrille = (int) Math.round(Math.sqrt(Math.sqrt(nombreCases)));
+        if (tailleSousGrille < 1 || tailleSousGrille > 8 || Math.pow(tailleSousGrille, 4) != nombreCases) {
+            return 0;
+        }
+        return tailleSousGrille * tailleSousGrille;
+    }
+}
@@ -0,0 +1,292 @@
+package src.Lots;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import src.Grilles.GrilleCompacte;
+import src.Grilles.Verificateur;
+import src.Resolveurs.CacheSolutions;
+import src.Resolveurs.Echeance;
+import src.Resolveurs.ResolveurDLX;
+
+public class TraitementLot {
+
+    private static final int TAILLE_TAMPON = 1 << 16;
+    private static final String AUCUNE_SOLUTION = "#aucune solution";
+    private static final String HORS_DELAI = "#hors délai";
+    private static final String ERREUR = "#erreur : ";
+    private static final String LIGNE_INVALIDE = "#ligne invalide";
+    private static final String SOLUTION_INVALIDE = "#solution invalide : ";
+    // Marque la fin du fichier dans la file des résultats
+    private static final Future<String> FIN = CompletableFuture.completedFuture(null);
+
+    private final int nombreThreads;
+    private final int fenetre;
+    private final CacheSolutions cache;
+    // Délai de résolution de chaque grille, 0 pour ne pas en fixer
+    private long delaiNanos;
+
+    // Chaque thread garde un résolveur par taille de sous-grille pour réutiliser sa matrice
+    private final ThreadLocal<Map<Integer, ResolveurDLX>> resolveurs = ThreadLocal.withInitial(HashMap::new);
+    // Les vérificateurs ne gardent aucun état : un seul par taille pour tous les threads
+    private final Map<Integer, Verificateur> verificateurs = new ConcurrentHashMap<>();
+
+    private long grilles;
+    private final AtomicLong echecs = new AtomicLong();
+    private long dureeNanos;
+
+    /**
+     * Constructeur d'un traitement par lot de fichiers de grilles
+     * @param nombreThreads le nombre de threads de résolution
+     * @param fenetre le nombre maximal de grilles lues mais pas encore écrites
+     * @param cache le cache des solutions partagé par les threads, null pour résoudre chaque grille
+     */
+    public TraitementLot(int nombreThreads, int fenetre, CacheSolutions cache) {
+        this.nombreThreads = nombreThreads;
+        this.fenetre = fenetre;
+        this.cache = cache;
+    }
+
+    /**
+     * Constructeur d'un traitement par lot de fichiers de grilles, sans cache
+     * @param nombreThreads le nombre de threads de résolution
+     * @param fenetre le nombre maximal de grilles lues mais pas encore écrites
+     */
+    public TraitementLot(int nombreThreads, int fenetre) {
+        this(nombreThreads, fenetre, null);
+    }
+
+    /**
+     * Constructeur d'un traitement par lot utilisant tous les coeurs disponibles
+     */
+    public TraitementLot() {
+        this(Runtime.getRuntime().availableProcessors(), 4096);
+    }
+
+    /**
+     * Fixe le délai de résolution de chaque grille : une grille qui le dépasse est remplacée par un commentaire
+     * et comptée dans les échecs, sans arrêter le traitement du fichier
+     * @param delai le délai, 0 pour ne pas en fixer
+     * @param unite l'unité du délai
+     */
+    public void setDelaiParGrille(long delai, TimeUnit unite) {
+        this.delaiNanos = unite.toNanos(delai);
+    }
+
+    /**
+     * Résout toutes les grilles d'un fichier, une par ligne, et écrit les solutions dans le même ordre
+     * Le fichier est lu au fil de l'eau : au plus fenetre grilles sont en mémoire à un instant donné.
+     * Les lignes vides ou commençant par '#' sont recopiées telles quelles ; une grille invalide, sans solution,
+     * hors délai ou dont la résolution a échoué est remplacée par un commentaire.
+     * @param entree le fichier de grilles
+     * @param sortie le fichier des solutions
+     * @throws IOException si la lecture ou l'écriture échoue
+     */
+    public void traiter(Path entree, Path sortie) throws IOException {
+        long depart = System.nanoTime();
+        grilles = 0;
+        echecs.set(0);
+
+        ExecutorService executeur = Executors.newFixedThreadPool(nombreThreads);
+        BlockingQueue<Future<String>> resultats = new ArrayBlockingQueue<>(fenetre);
+        AtomicReference<IOException> erreurEcriture = new AtomicReference<>();
+
+        try (BufferedReader lecteur = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(entree), StandardCharsets.UTF_8), TAILLE_TAMPON);
+             BufferedWriter redacteur = new BufferedWriter(
+                     new OutputStreamWriter(Files.newOutputStream(sortie), StandardCharsets.UTF_8), TAILLE_TAMPON)) {
+
+            // Le rédacteur écrit les résultats dans l'ordre de lecture, après une erreur il vide la file sans écrire
+            Thread ecriture = new Thread(() -> {
+                try {
+                    Future<String> resultat;
+                    while ((resultat = resultats.take()) != FIN) {
+                        if (erreurEcriture.get() == null) {
+                            try {
+                                redacteur.write(resultat.get());
+                                redacteur.newLine();
+                            } catch (IOException e) {
+                                erreurEcriture.set(e);
+                            } catch (ExecutionException e) {
+                                erreurEcriture.set(new IOException(e.getCause()));
+                            }
+                        }
+                    }
+                } catch (InterruptedException | CancellationException e) {
+                    // Arrêt demandé par le lecteur après une erreur : les résultats restants sont abandonnés
+                    Thread.currentThread().interrupt();
+                }
+            }, "ecriture-lot");
+            ecriture.setDaemon(true);
+            ecriture.start();
+
+            // La file bornée bloque la lecture quand les threads de résolution sont en retard
+            String ligne;
+            boolean termine = false;
+            try {
+                while ((ligne = lecteur.readLine()) != null && erreurEcriture.get() == null) {
+                    String courante = ligne;
+                    if (courante.isBlank() || courante.startsWith("#")) {
+                        resultats.put(CompletableFuture.completedFuture(courante));
+                    } else {
+                        grilles++;
+                        resultats.put(executeur.submit(() -> traiterLigne(courante)));
+                    }
+                }
+                resultats.put(FIN);
+                ecriture.join();
+                termine = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Traitement interrompu", e);
+            } finally {
+                if (!termine) {
+                    // Erreur de lecture ou interruption : FIN n'arrivera jamais, on arrête le rédacteur
+                    // et on annule les résolutions en attente avant de fermer le fichier de sortie
+                    ecriture.interrupt();
+                    for (Future<String> resultat : resultats) {
+                        resultat.cancel(true);
+                    }
+                    attendreFin(ecriture);
+                }
+            }
+        } finally {
+            executeur.shutdownNow();
+        }
+
+        if (erreurEcriture.get() != null) {
+            throw erreurEcriture.get();
+        }
+        dureeNanos = System.nanoTime() - depart;
+    }
+
+    /**
+     * Attend la fin du thread d'écriture, même si le thread courant est interrompu
+     * @param ecriture le thread d'écriture, déjà prié de s'arrêter
+     */
+    private static void attendreFin(Thread ecriture) {
+        boolean interrompu = Thread.interrupted();
+        while (ecriture.isAlive()) {
+            try {
+                ecriture.join();
+            } catch (InterruptedException e) {
+                interrompu = true;
+            }
+        }
+        if (interrompu) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Résout la grille d'une ligne ; une erreur de résolution ne concerne que cette grille
+     * @param ligne la ligne lue
+     * @return la solution dans le format de la ligne lue, ou le commentaire qui la remplace
+     */
+    private String traiterLigne(String ligne) {
+        try {
+            return resoudreLigne(ligne);
+        } catch (RuntimeException e) {
+            echecs.incrementAndGet();
+            return ERREUR + e;
+        }
+    }
+
+    /**
+     * Résout la grille d'une ligne et renvoie la ligne de sa solution
+     * Chaque solution est vérifiée avant d'être écrite ; une solution fausse est remplacée par un commentaire
+     * qui nomme la première unité violée.
+     * @param ligne la ligne lue
+     * @return la solution dans le format de la ligne lue
+     */
+    private String resoudreLigne(String ligne) {
+        int[][] grille = FormatGrille.lire(ligne);
+        if (grille == null) {
+            echecs.incrementAndGet();
+            return LIGNE_INVALIDE;
+        }
+        GrilleCompacte depart = GrilleCompacte.depuis(grille);
+        Echeance echeance = delaiNanos > 0 ? Echeance.dans(delaiNanos, TimeUnit.NANOSECONDS) : Echeance.aucune();
+        GrilleCompacte solution;
+        boolean horsDelai;
+        if (cache != null) {
+            solution = cache.resoudre(depart, echeance);
+            horsDelai = solution == null && echeance.estDepassee();
+        } else {
+            int tailleSousGrille = depart.getGeometrie().getTailleSousGrille();
+            ResolveurDLX resolveur = resolveurs.get().computeIfAbsent(tailleSousGrille, ResolveurDLX::new);
+            resolveur.charger(depart);
+            resolveur.setEcheance(echeance);
+            solution = null;
+            if (resolveur.resoudre()) {
+                solution = new GrilleCompacte(depart.getGeometrie());
+                resolveur.copierSolution(solution);
+            }
+            horsDelai = resolveur.estInterrompue();
+        }
+        if (solution == null) {
+            echecs.incrementAndGet();
+            return horsDelai ? HORS_DELAI : AUCUNE_SOLUTION;
+        }
+        Verificateur verificateur = verificateurs.computeIfAbsent(depart.getGeometrie().getTailleSousGrille(),
+                Verificateur::new);
+        int unite = verificateur.premiereUniteInvalide(depart, solution);
+        if (unite != Verificateur.VALIDE) {
+            echecs.incrementAndGet();
+            return SOLUTION_INVALIDE + verificateur.decrire(unite);
+        }
+        return FormatGrille.ecrire(solution.versTableau(), FormatGrille.estGeneralise(ligne));
+    }
+
+    /**
+     * Récupère le nombre de grilles lues lors du dernier traitement
+     * @return le nombre de grilles
+     */
+    public long getGrilles() {
+        return this.grilles;
+    }
+
+    /**
+     * Récupère le nombre de grilles invalides, sans solution, hors délai, en erreur ou dont la solution est fausse
+     * lors du dernier traitement
+     * @return le nombre d'échecs
+     */
+    public long getEchecs() {
+        return this.echecs.get();
+    }
+
+    /**
+     * Récupère la durée du dernier traitement
+     * @return la durée en nanosecondes
+     */
+    public long getDureeNanos() {
+        return this.dureeNanos;
+    }
+
+    /**
+     * Calcule le débit du dernier traitement
+     * @return le nombre de grilles résolues par seconde
+     */
+    public double getGrillesParSeconde() {
+        return dureeNanos == 0 ? 0 : grilles * 1e9 / dureeNanos;
+    }
+}
@@ -3,44 +3,106 @@ package src;
 import org.chocosolver.solver.Model;
 import org.chocosolver.solver.variables.IntVar;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import src.Generateurs.GenerateurGrilleUnique;
+import src.Lots.TraitementLot;
+import src.Metriques.Metriques;
+import src.Resolveurs.CacheSolutions;
+import src.Serveur.ServeurResolution;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Les compteurs des moteurs sont consultables par JMX (jconsole) sous GCC_Sudoku:type=Metriques
+        Metriques.enregistrerMBean();
+
+        // Mode lot : java src.Main --lot <entree> <sortie> [threads] [capacité du cache] [délai par grille en ms]
+        if (args.length >= 3 && args[0].equals("--lot")) {
+            int threads = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            CacheSolutions cache = args.length >= 5 ? new CacheSolutions(Integer.parseInt(args[4])) : null;
+            TraitementLot traitement = new TraitementLot(threads, 4096, cache);
+            if (args.length >= 6) {
+                traitement.setDelaiParGrille(Long.parseLong(args[5]), TimeUnit.MILLISECONDS);
+            }
+            traitement.traiter(Path.of(args[1]), Path.of(args[2]));
+            System.out.println("Grilles traitées: " + traitement.getGrilles() + " (" + traitement.getEchecs() + " échecs)");
+            System.out.println("Temps de traitement: " + traitement.getDureeNanos() / 1000000 + " ms");
+            System.out.printf("Débit: %.0f grilles/s%n", traitement.getGrillesParSeconde());
+            if (cache != null) {
+                System.out.println(cache.resume());
+            }
+            System.out.println(Metriques.get().resume());
+            return;
+        }
+
+        // Mode serveur : java src.Main --serveur [port] [threads de résolution]
+        if (args.length >= 1 && args[0].equals("--serveur")) {
+            int port = args.length >= 2 ? Integer.parseInt(args[1]) : 8080;
+            int threads = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            ServeurResolution serveur = new ServeurResolution(port, threads, 4096, 32, 10, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(serveur::arreter));
+            serveur.demarrer();
+            System.out.println("Serveur à l'écoute sur http://localhost:" + serveur.getPort()
+                    + " (POST /resoudre, GET /statistiques)");
+            try {
+                Thread.currentThread().join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        // Graine de la session : java src.Main --graine <graine> rejoue une session précédente
+        long graine = args.length >= 2 && args[0].equals("--graine")
+                ? Long.parseLong(args[1])
+                : new SplittableRandom().nextLong();
+        System.out.println("Graine: " + graine);
+        SplittableRandom random = new SplittableRandom(graine);
+
         // Récupère la taille de la grille donnée dans la ligne de commande
         Scanner scanner = new Scanner(System.in);
         System.out.print("Entrez la taille de la sous-grille: ");
         int subgridSize = scanner.nextInt();
 
-        ResolveurSudoku resolveur = new ResolveurSudoku(subgridSize);
+        System.out.println("Quelle grille souhaitez-vous résoudre ?");
+        System.out.println("1. Grille aléatoire (les trois quarts des cases vidées)");
+        System.out.println("2. Grille à solution unique");
+        ResolveurSudoku resolveur = scanner.nextInt() == 2
+                ? new ResolveurSudoku(subgridSize, new GenerateurGrilleUnique(subgridSize, random.split()).generer(), random)
+                : new ResolveurSudoku(subgridSize, random);
 
         System.out.println("Quelle méthode souhaitez-vous utiliser pour résoudre le sudoku ?");
         System.out.println("1. Résolution classique avec Choco Solver");
         System.out.println("2. Résolution avec backtracking");
         System.out.println("3. Résolution avec la recherche locale");
         System.out.println("4. Résolution avec l'heuristique globale");
+        System.out.println("5. Résolution avec backtracking sur masques de bits");
+        System.out.println("6. Résolution avec Dancing Links");
+        System.out.println("7. Résolution avec backtracking parallèle");
+        System.out.println("8. Résolution avec le recuit simulé");
+        System.out.println("9. Résolution avec un portefeuille de résolveurs en concurrence");
         int choix = scanner.nextInt();
-        long tempsDepart = System.currentTimeMillis();
-
-        switch (choix) {
-            case 1:
-                resolveur.resolutionChoco();
-                break;
-            case 2:
-                resolveur.backtracking();
-                break;
-            case 3:
-                resolveur.rechercheLocale();
-                break;
-            case 4:
-                resolveur.gloutonPlusContraint();
-                break;
-            default:
-                System.out.println("Choix invalide");
-                break;
+
+        if (choix >= 2 && choix <= 4 || choix == 8) {
+            System.out.println("Appliquer la propagation de contraintes avant la recherche ?");
+            System.out.println("1. Oui");
+            System.out.println("2. Non");
+            resolveur.setPropagation(scanner.nextInt() == 1);
+        }
+        if (choix < 1 || choix > ResolveurSudoku.Methode.values().length) {
+            System.out.println("Choix invalide");
+            return;
         }
 
-        long tempsFin = System.currentTimeMillis();
-        System.out.println("Temps de résolution: " + (tempsFin - tempsDepart) + " ms");
+        // La résolution ne fait aucun affichage : le temps mesuré ne compte que la recherche
+        AfficheurGrille afficheur = new AfficheurGrille(subgridSize);
+        afficheur.afficher(resolveur.getGrille());
+        System.out.println("Difficulté: " + resolveur.evaluerDifficulte());
+        Resultat resultat = resolveur.resoudre(ResolveurSudoku.Methode.values()[choix - 1]);
+        afficheur.afficher(resultat);
+        System.out.println("Temps de résolution: " + resultat.getDureeNanos() / 1000000 + " ms");
     }
 }
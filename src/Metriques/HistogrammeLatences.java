@@ -0,0 +1,100 @@
+package src.Metriques;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class HistogrammeLatences {
+
+    // Chaque puissance de deux est coupée en 16 classes : l'erreur relative d'un centile est au plus de 1/16
+    private static final int SOUS_CLASSES = 16;
+    private static final int DECALAGE = 4;
+
+    private final AtomicLongArray comptes = new AtomicLongArray(64 * SOUS_CLASSES);
+    private final LongAdder nombre = new LongAdder();
+    private final LongAccumulator maximum = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Enregistre une latence, sans verrou : plusieurs threads peuvent enregistrer en même temps
+     * @param nanos la latence en nanosecondes
+     */
+    public void enregistrer(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        comptes.incrementAndGet(classe(micros));
+        nombre.increment();
+        maximum.accumulate(micros);
+    }
+
+    /**
+     * Calcule la classe d'une valeur : les valeurs sous 16 ont chacune leur classe, au-delà la classe est
+     * donnée par la puissance de deux et les 4 bits qui suivent le bit de poids fort
+     */
+    private static int classe(long valeur) {
+        if (valeur < SOUS_CLASSES) {
+            return (int) valeur;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(valeur);
+        int sousClasse = (int) (valeur >>> (exposant - DECALAGE)) & (SOUS_CLASSES - 1);
+        return (exposant - DECALAGE + 1) * SOUS_CLASSES + sousClasse;
+    }
+
+    /**
+     * Calcule la plus grande valeur d'une classe
+     */
+    private static long borneSuperieure(int classe) {
+        if (classe < SOUS_CLASSES) {
+            return classe;
+        }
+        int exposant = classe / SOUS_CLASSES + DECALAGE - 1;
+        long sousClasse = classe % SOUS_CLASSES;
+        return ((SOUS_CLASSES + sousClasse + 1) << (exposant - DECALAGE)) - 1;
+    }
+
+    /**
+     * Calcule un centile des latences enregistrées
+     * @param centile le centile voulu, entre 0 et 100 (50 pour la médiane)
+     * @return la latence en microsecondes (borne supérieure de sa classe), 0 si rien n'a été enregistré
+     */
+    public long centile(double centile) {
+        long total = nombre.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(total * centile / 100));
+        long cumul = 0;
+        for (int classe = 0; classe < comptes.length(); classe++) {
+            cumul += comptes.get(classe);
+            if (cumul >= rang) {
+                return Math.min(borneSuperieure(classe), maximum.get());
+            }
+        }
+        return maximum.get();
+    }
+
+    /**
+     * Récupère le nombre de latences enregistrées
+     * @return le nombre de latences
+     */
+    public long getNombre() {
+        return nombre.sum();
+    }
+
+    /**
+     * Récupère la plus grande latence enregistrée
+     * @return la latence en microsecondes
+     */
+    public long getMaximum() {
+        return maximum.get();
+    }
+
+    /**
+     * Remet l'histogramme à zéro
+     */
+    public void reinitialiser() {
+        for (int classe = 0; classe < comptes.length(); classe++) {
+            comptes.set(classe, 0);
+        }
+        nombre.reset();
+        maximum.reset();
+    }
+}
@@ -0,0 +1,136 @@
+package src.Metriques;
+
+public final class Mesure {
+
+    private long depart;
+    private long noeuds;
+    private long retoursArriere;
+    private long propagations;
+    private long mouvementsAcceptes;
+    private long mouvementsRefuses;
+    private long redemarrages;
+    private long premiereSolutionNanos = -1;
+
+    /**
+     * Remet les compteurs à zéro et démarre le chronomètre, au début de chaque résolution
+     */
+    public void reinitialiser() {
+        depart = System.nanoTime();
+        noeuds = 0;
+        retoursArriere = 0;
+        propagations = 0;
+        mouvementsAcceptes = 0;
+        mouvementsRefuses = 0;
+        redemarrages = 0;
+        premiereSolutionNanos = -1;
+    }
+
+    /**
+     * Copie les compteurs, pour garder ceux d'une résolution quand le moteur est réutilisé
+     * @return la copie
+     */
+    public Mesure copie() {
+        Mesure copie = new Mesure();
+        copie.depart = depart;
+        copie.noeuds = noeuds;
+        copie.retoursArriere = retoursArriere;
+        copie.propagations = propagations;
+        copie.mouvementsAcceptes = mouvementsAcceptes;
+        copie.mouvementsRefuses = mouvementsRefuses;
+        copie.redemarrages = redemarrages;
+        copie.premiereSolutionNanos = premiereSolutionNanos;
+        return copie;
+    }
+
+    public void ajouterNoeuds(long nombre) {
+        noeuds += nombre;
+    }
+
+    public void retourArriere() {
+        retoursArriere++;
+    }
+
+    public void ajouterRetoursArriere(long nombre) {
+        retoursArriere += nombre;
+    }
+
+    public void ajouterPropagations(long nombre) {
+        propagations += nombre;
+    }
+
+    /**
+     * Compte un mouvement de recherche locale
+     * @param accepte true si le mouvement a été appliqué, false s'il a été refusé
+     */
+    public void mouvement(boolean accepte) {
+        if (accepte) {
+            mouvementsAcceptes++;
+        } else {
+            mouvementsRefuses++;
+        }
+    }
+
+    public void ajouterMouvements(long acceptes, long refuses) {
+        mouvementsAcceptes += acceptes;
+        mouvementsRefuses += refuses;
+    }
+
+    public void redemarrage() {
+        redemarrages++;
+    }
+
+    public void ajouterRedemarrages(long nombre) {
+        redemarrages += nombre;
+    }
+
+    /**
+     * Note le temps écoulé depuis le début de la résolution, seulement pour la première solution
+     */
+    public void solutionTrouvee() {
+        if (premiereSolutionNanos < 0) {
+            premiereSolutionNanos = System.nanoTime() - depart;
+        }
+    }
+
+    /**
+     * Note la première solution trouvée à un instant donné, par exemple par un autre thread
+     * @param instant l'instant de la solution (System.nanoTime)
+     */
+    public void solutionTrouvee(long instant) {
+        if (premiereSolutionNanos < 0) {
+            premiereSolutionNanos = instant - depart;
+        }
+    }
+
+    public long getNoeuds() {
+        return this.noeuds;
+    }
+
+    public long getRetoursArriere() {
+        return this.retoursArriere;
+    }
+
+    public long getPropagations() {
+        return this.propagations;
+    }
+
+    public long getMouvementsAcceptes() {
+        return this.mouvementsAcceptes;
+    }
+
+    public long getMouvementsRefuses() {
+        return this.mouvementsRefuses;
+    }
+
+    public long getRedemarrages() {
+        return this.redemarrages;
+    }
+
+    /**
+     * Récupère le temps écoulé avant la première solution
+     * @return la durée en nanosecondes, -1 si aucune solution n'a été trouvée
+     */
+    public long getPremiereSolutionNanos() {
+        return this.premiereSolutionNanos;
+    }
+}
@@ -0,0 +1,199 @@
+package src.Metriques;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public final class Metriques implements MetriquesMXBean {
+
+    private static final Metriques INSTANCE = new Metriques();
+    private static final String NOM_JMX = "GCC_Sudoku:type=Metriques";
+
+    /**
+     * Totaux d'un moteur de résolution
+     */
+    private static final class Totaux {
+        private final LongAdder resolutions = new LongAdder();
+        private final LongAdder noeuds = new LongAdder();
+    }
+
+    // Les moteurs comptent dans leur propre Mesure, sans synchronisation, et ne publient qu'en fin de résolution
+    private volatile boolean actives = true;
+    private final LongAdder resolutions = new LongAdder();
+    private final LongAdder noeuds = new LongAdder();
+    private final LongAdder retoursArriere = new LongAdder();
+    private final LongAdder propagations = new LongAdder();
+    private final LongAdder mouvementsAcceptes = new LongAdder();
+    private final LongAdder mouvementsRefuses = new LongAdder();
+    private final LongAdder redemarrages = new LongAdder();
+    private final LongAdder solutionsTrouvees = new LongAdder();
+    private final LongAdder premiereSolutionTotalNanos = new LongAdder();
+    private final LongAccumulator premiereSolutionMaxNanos = new LongAccumulator(Math::max, 0);
+    private final Map<String, Totaux> parMoteur = new ConcurrentHashMap<>();
+
+    private Metriques() {
+    }
+
+    /**
+     * Récupère les métriques de l'application
+     * @return l'instance unique
+     */
+    public static Metriques get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Ajoute la mesure d'une résolution terminée aux totaux, si les métriques sont actives
+     * @param moteur le nom du moteur de résolution
+     * @param mesure la mesure de la résolution
+     */
+    public static void publier(String moteur, Mesure mesure) {
+        INSTANCE.ajouter(moteur, mesure);
+    }
+
+    private void ajouter(String moteur, Mesure mesure) {
+        if (!actives) {
+            return;
+        }
+        resolutions.increment();
+        noeuds.add(mesure.getNoeuds());
+        retoursArriere.add(mesure.getRetoursArriere());
+        propagations.add(mesure.getPropagations());
+        mouvementsAcceptes.add(mesure.getMouvementsAcceptes());
+        mouvementsRefuses.add(mesure.getMouvementsRefuses());
+        redemarrages.add(mesure.getRedemarrages());
+        if (mesure.getPremiereSolutionNanos() >= 0) {
+            solutionsTrouvees.increment();
+            premiereSolutionTotalNanos.add(mesure.getPremiereSolutionNanos());
+            premiereSolutionMaxNanos.accumulate(mesure.getPremiereSolutionNanos());
+        }
+        Totaux totaux = parMoteur.computeIfAbsent(moteur, nom -> new Totaux());
+        totaux.resolutions.increment();
+        totaux.noeuds.add(mesure.getNoeuds());
+    }
+
+    /**
+     * Enregistre les métriques auprès du serveur JMX de la JVM, une seule fois
+     */
+    public static synchronized void enregistrerMBean() {
+        try {
+            MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nom = new ObjectName(NOM_JMX);
+            if (!serveur.isRegistered(nom)) {
+                serveur.registerMBean(INSTANCE, nom);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Enregistrement JMX impossible", e);
+        }
+    }
+
+    /**
+     * Résume les totaux sur une ligne
+     * @return le résumé
+     */
+    public String resume() {
+        return "Résolutions: " + getResolutions()
+                + ", noeuds: " + getNoeuds()
+                + ", retours arrière: " + getRetoursArriere()
+                + ", propagations: " + getPropagations()
+                + ", mouvements acceptés/refusés: " + getMouvementsAcceptes() + "/" + getMouvementsRefuses()
+                + ", redémarrages: " + getRedemarrages()
+                + String.format(", première solution: %.3f ms en moyenne", getPremiereSolutionMoyenneMillis());
+    }
+
+    @Override
+    public boolean isActives() {
+        return this.actives;
+    }
+
+    @Override
+    public void setActives(boolean actives) {
+        this.actives = actives;
+    }
+
+    @Override
+    public long getResolutions() {
+        return resolutions.sum();
+    }
+
+    @Override
+    public long getNoeuds() {
+        return noeuds.sum();
+    }
+
+    @Override
+    public long getRetoursArriere() {
+        return retoursArriere.sum();
+    }
+
+    @Override
+    public long getPropagations() {
+        return propagations.sum();
+    }
+
+    @Override
+    public long getMouvementsAcceptes() {
+        return mouvementsAcceptes.sum();
+    }
+
+    @Override
+    public long getMouvementsRefuses() {
+        return mouvementsRefuses.sum();
+    }
+
+    @Override
+    public long getRedemarrages() {
+        return redemarrages.sum();
+    }
+
+    @Override
+    public long getSolutionsTrouvees() {
+        return solutionsTrouvees.sum();
+    }
+
+    @Override
+    public double getPremiereSolutionMoyenneMillis() {
+        long solutions = solutionsTrouvees.sum();
+        return solutions == 0 ? 0 : premiereSolutionTotalNanos.sum() / 1e6 / solutions;
+    }
+
+    @Override
+    public double getPremiereSolutionMaxMillis() {
+        return premiereSolutionMaxNanos.get() / 1e6;
+    }
+
+    @Override
+    public Map<String, Long> getResolutionsParMoteur() {
+        Map<String, Long> copie = new TreeMap<>();
+        parMoteur.forEach((nom, totaux) -> copie.put(nom, totaux.resolutions.sum()));
+        return copie;
+    }
+
+    @Override
+    public Map<String, Long> getNoeudsParMoteur() {
+        Map<String, Long> copie = new TreeMap<>();
+        parMoteur.forEach((nom, totaux) -> copie.put(nom, totaux.noeuds.sum()));
+        return copie;
+    }
+
+    @Override
+    public void reinitialiser() {
+        resolutions.reset();
+        noeuds.reset();
+        retoursArriere.reset();
+        propagations.reset();
+        mouvementsAcceptes.reset();
+        mouvementsRefuses.reset();
+        redemarrages.reset();
+        solutionsTrouvees.reset();
+        premiereSolutionTotalNanos.reset();
+        premiereSolutionMaxNanos.reset();
+        parMoteur.clear();
+    }
+}
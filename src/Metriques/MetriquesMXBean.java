@@ -0,0 +1,39 @@
+package src.Metriques;
+
+import java.util.Map;
+
+/**
+ * Compteurs cumulés des résolveurs, consultables en direct par JMX (jconsole, VisualVM...)
+ */
+public interface MetriquesMXBean {
+
+    boolean isActives();
+
+    void setActives(boolean actives);
+
+    long getResolutions();
+
+    long getNoeuds();
+
+    long getRetoursArriere();
+
+    long getPropagations();
+
+    long getMouvementsAcceptes();
+
+    long getMouvementsRefuses();
+
+    long getRedemarrages();
+
+    long getSolutionsTrouvees();
+
+    double getPremiereSolutionMoyenneMillis();
+
+    double getPremiereSolutionMaxMillis();
+
+    Map<String, Long> getResolutionsParMoteur();
+
+    Map<String, Long> getNoeudsParMoteur();
+
+    void reinitialiser();
+}
@@ -0,0 +1,84 @@
+package src.Reprise;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class EnregistreurInstantanes {
+
+    private final Path fichier;
+    private final ExecutorService ecriture;
+    // Dernier instantané pas encore écrit : un instantané plus récent remplace celui qui attend encore
+    private final AtomicReference<Instantane> enAttente = new AtomicReference<>();
+    private volatile IOException erreur;
+    private long ecrits;
+
+    /**
+     * Constructeur d'un enregistreur qui écrit les instantanés d'une recherche sur un thread d'arrière-plan
+     * @param fichier le fichier des instantanés, remplacé à chaque écriture
+     */
+    public EnregistreurInstantanes(Path fichier) {
+        this.fichier = fichier;
+        this.ecriture = Executors.newSingleThreadExecutor(tache -> {
+            Thread thread = new Thread(tache, "instantanes");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Confie un instantané au thread d'écriture et rend la main aussitôt
+     * La recherche n'attend jamais le disque : si l'écriture précédente n'est pas finie, seul le plus récent
+     * des instantanés en attente est écrit.
+     * @param instantane l'instantané, qui ne doit plus être modifié
+     */
+    public void soumettre(Instantane instantane) {
+        if (enAttente.getAndSet(instantane) == null) {
+            ecriture.execute(this::ecrireEnAttente);
+        }
+    }
+
+    private void ecrireEnAttente() {
+        Instantane instantane = enAttente.getAndSet(null);
+        if (instantane == null) {
+            return;
+        }
+        try {
+            instantane.ecrire(fichier);
+            ecrits++;
+        } catch (IOException e) {
+            erreur = e;
+        }
+    }
+
+    /**
+     * Attend l'écriture des instantanés en attente et arrête le thread d'écriture
+     * @throws IOException si une écriture a échoué
+     */
+    public void fermer() throws IOException {
+        ecriture.shutdown();
+        try {
+            ecriture.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (erreur != null) {
+            throw erreur;
+        }
+    }
+
+    /**
+     * Récupère le nombre d'instantanés écrits (à lire après fermer())
+     * @return le nombre d'instantanés écrits
+     */
+    public long getEcrits() {
+        return this.ecrits;
+    }
+
+    public Path getFichier() {
+        return this.fichier;
+    }
+}
@@ -0,0 +1,183 @@
+package src.Reprise;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public final class Instantane {
+
+    // "GCCS" suivi de la version du format
+    private static final int MAGIQUE = 0x47434353;
+    private static final int VERSION = 1;
+
+    /**
+     * Recherche dont l'état est enregistré
+     */
+    public enum Type {
+        /** Pile des décisions du backtracking : la valeur en cours de chaque case remplie par la recherche */
+        BACKTRACKING,
+        /** Grille courante de la recherche locale, qui est aussi la meilleure : ses mouvements ne la dégradent jamais */
+        RECHERCHE_LOCALE
+    }
+
+    private final Type type;
+    private final int tailleSousGrille;
+    private final long intervalle;
+    private final long noeuds;
+    private final long graine;
+    private final int casesFixees;
+    private final byte[] depart;
+    private final byte[] etat;
+
+    /**
+     * Constructeur d'un instantané
+     * @param type la recherche enregistrée
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param intervalle le nombre de noeuds ou d'itérations entre deux instantanés
+     * @param noeuds le nombre de noeuds ou d'itérations déjà effectués
+     * @param graine la graine de la source aléatoire à utiliser pour la suite (recherche locale)
+     * @param casesFixees le nombre de cases fixées par la propagation avant la recherche
+     * @param depart la grille au début de la recherche, à plat (après la propagation)
+     * @param etat les décisions du backtracking, ou la grille courante de la recherche locale
+     */
+    public Instantane(Type type, int tailleSousGrille, long intervalle, long noeuds, long graine, int casesFixees,
+                      byte[] depart, byte[] etat) {
+        this.type = type;
+        this.tailleSousGrille = tailleSousGrille;
+        this.intervalle = intervalle;
+        this.noeuds = noeuds;
+        this.graine = graine;
+        this.casesFixees = casesFixees;
+        this.depart = depart;
+        this.etat = etat;
+    }
+
+    /**
+     * Ecrit l'instantané dans un fichier binaire
+     * Il est d'abord écrit à côté puis renommé : un arrêt pendant l'écriture laisse l'instantané précédent intact.
+     * @param fichier le fichier de l'instantané
+     * @throws IOException si l'écriture échoue
+     */
+    public void ecrire(Path fichier) throws IOException {
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try (DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaire)))) {
+            sortie.writeInt(MAGIQUE);
+            sortie.writeByte(VERSION);
+            sortie.writeByte(type.ordinal());
+            sortie.writeByte(tailleSousGrille);
+            sortie.writeLong(intervalle);
+            sortie.writeLong(noeuds);
+            sortie.writeLong(graine);
+            sortie.writeInt(casesFixees);
+            sortie.write(depart);
+            sortie.writeInt(etat.length);
+            sortie.write(etat);
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Lit un instantané écrit par ecrire()
+     * @param fichier le fichier de l'instantané
+     * @return l'instantané
+     * @throws IOException si la lecture échoue ou si le fichier n'est pas un instantané
+     */
+    public static Instantane lire(Path fichier) throws IOException {
+        try (DataInputStream entree = new DataInputStream(new BufferedInputStream(Files.newInputStream(fichier)))) {
+            if (entree.readInt() != MAGIQUE || entree.readByte() != VERSION) {
+                throw new IOException("Le fichier n'est pas un instantané : " + fichier);
+            }
+            int type = entree.readByte();
+            if (type < 0 || type >= Type.values().length) {
+                throw new IOException("Type d'instantané inconnu : " + type);
+            }
+            int tailleSousGrille = entree.readByte();
+            if (tailleSousGrille < 1 || tailleSousGrille > 8) {
+                throw new IOException("Instantané corrompu : " + fichier);
+            }
+            long intervalle = entree.readLong();
+            long noeuds = entree.readLong();
+            long graine = entree.readLong();
+            int casesFixees = entree.readInt();
+            byte[] depart = new byte[tailleSousGrille * tailleSousGrille * tailleSousGrille * tailleSousGrille];
+            entree.readFully(depart);
+            int longueur = entree.readInt();
+            if (longueur < 0 || longueur > depart.length) {
+                throw new IOException("Instantané corrompu : " + fichier);
+            }
+            byte[] etat = new byte[longueur];
+            entree.readFully(etat);
+            return new Instantane(Type.values()[type], tailleSousGrille, intervalle, noeuds, graine, casesFixees,
+                    depart, etat);
+        }
+    }
+
+    /**
+     * Range une grille int[][] à plat, une valeur par octet
+     * @param grille la grille
+     * @return la grille à plat
+     */
+    public static byte[] aPlat(int[][] grille) {
+        int tailleGrille = grille.length;
+        byte[] cases = new byte[tailleGrille * tailleGrille];
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                cases[i * tailleGrille + j] = (byte) grille[i][j];
+            }
+        }
+        return cases;
+    }
+
+    /**
+     * Reconstruit une grille int[][] rangée à plat par aPlat()
+     * @param cases la grille à plat
+     * @param tailleGrille la taille de la grille
+     * @return la grille
+     */
+    public static int[][] enTableau(byte[] cases, int tailleGrille) {
+        int[][] grille = new int[tailleGrille][tailleGrille];
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                grille[i][j] = cases[i * tailleGrille + j];
+            }
+        }
+        return grille;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public int getTailleSousGrille() {
+        return this.tailleSousGrille;
+    }
+
+    public long getIntervalle() {
+        return this.intervalle;
+    }
+
+    public long getNoeuds() {
+        return this.noeuds;
+    }
+
+    public long getGraine() {
+        return this.graine;
+    }
+
+    public int getCasesFixees() {
+        return this.casesFixees;
+    }
+
+    public byte[] getDepart() {
+        return this.depart;
+    }
+
+    public byte[] getEtat() {
+        return this.etat;
+    }
+}
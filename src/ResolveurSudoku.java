@@ -1,31 +1,390 @@
 package src;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.List;
-import org.chocosolver.solver.Model;
-import org.chocosolver.solver.variables.IntVar;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
 import src.Generateurs.*;
+import src.Grilles.GrilleCompacte;
+import src.Jeu.SessionJeu;
+import src.Metriques.Mesure;
+import src.Metriques.Metriques;
+import src.Reprise.EnregistreurInstantanes;
+import src.Reprise.Instantane;
+import src.Resolveurs.*;
 
 public class ResolveurSudoku {
 
     private final int tailleSousGrille;
     private final int tailleGrille;
-    private final Model model;
+    private final SplittableRandom random;
     private int[][] grille;
+    private boolean propagation;
+    private long limiteReparation;
+    private ResolveurChoco choco;
+    // Modèle sans redémarrages, le seul qui puisse énumérer les solutions
+    private ResolveurChoco chocoEnumeration;
+    // Portefeuille réutilisé d'une résolution à l'autre pour garder ses modèles Choco et ses victoires
+    private Portefeuille portefeuille;
+    private boolean portefeuilleFourni;
+    // Echéance de la résolution en cours, sans limite en dehors de resoudre(Methode, Echeance)
+    private Echeance echeance = Echeance.aucune();
+    private boolean horsDelai;
+    // Instantanés du backtracking et de la recherche locale, désactivés si le fichier est null
+    private Path fichierInstantanes;
+    private long intervalleInstantanes;
+    private EnregistreurInstantanes instantanes;
+    private long prochainInstantane;
+    // Echec d'écriture des instantanés de la dernière résolution, affiché seulement par les méthodes qui affichent
+    private IOException erreurInstantanes;
+    // Instantané à reprendre lors de la prochaine résolution du même type
+    private Instantane reprise;
+    // Etat du backtracking en cours pour ses instantanés et sa reprise
+    private byte[] departRecherche;
+    private int casesFixeesRecherche;
+    private int[] decisionsReprise;
+    // Compteurs des méthodes implémentées ici (backtracking, recherche locale, ChocoSolver)
+    private final Mesure mesure = new Mesure();
+    private AfficheurGrille afficheur;
+
+    /**
+     * Méthodes de résolution disponibles, dans l'ordre du menu
+     */
+    public enum Methode {
+        CHOCO,
+        BACKTRACKING,
+        RECHERCHE_LOCALE,
+        GLOUTON,
+        BACKTRACKING_MASQUES,
+        DANCING_LINKS,
+        BACKTRACKING_PARALLELE,
+        RECUIT_SIMULE,
+        PORTEFEUILLE
+    }
 
     /**
      * Constructeur d'un résolveur de sudoku
      * @param tailleSousGrille la taille de la sous-grille
      */
     public ResolveurSudoku(int tailleSousGrille) {
+        this(tailleSousGrille, new SplittableRandom());
+    }
+
+    /**
+     * Constructeur d'un résolveur de sudoku reproductible : la grille générée et les méthodes aléatoires
+     * tirent leurs sources de la source donnée
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param random la source aléatoire
+     */
+    public ResolveurSudoku(int tailleSousGrille, SplittableRandom random) {
         this.tailleSousGrille = tailleSousGrille; // Taille de la sous-grille
         this.tailleGrille = tailleSousGrille * tailleSousGrille; // Taille de la grille
-        this.model = new Model("Sudoku"); // Crée le modèle
+        this.random = random;
         this.grille = new int[tailleGrille][tailleGrille];
-        GenerateurGrilleValide generateur = new GenerateurGrilleValide(this.tailleGrille);
+        GenerateurGrilleValide generateur = new GenerateurGrilleValide(this.tailleGrille,
+                this.tailleGrille * this.tailleGrille * 3 / 4, random.split());
         grille = generateur.getGrille();
     }
 
+    /**
+     * Constructeur d'un résolveur de sudoku pour une grille donnée
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre (elle est copiée)
+     */
+    public ResolveurSudoku(int tailleSousGrille, int[][] grille) {
+        this(tailleSousGrille, grille, new SplittableRandom());
+    }
+
+    /**
+     * Constructeur d'un résolveur de sudoku reproductible pour une grille donnée
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre (elle est copiée)
+     * @param random la source aléatoire des méthodes incomplètes
+     */
+    public ResolveurSudoku(int tailleSousGrille, int[][] grille, SplittableRandom random) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.random = random;
+        this.grille = new int[tailleGrille][tailleGrille];
+        for (int i = 0; i < tailleGrille; i++) {
+            System.arraycopy(grille[i], 0, this.grille[i], 0, tailleGrille);
+        }
+    }
+
+    /**
+     * Active ou désactive la propagation de contraintes avant le backtracking,
+     * la recherche locale et l'heuristique gloutonne
+     * @param propagation true pour appliquer la propagation avant la recherche
+     */
+    public void setPropagation(boolean propagation) {
+        this.propagation = propagation;
+    }
+
+    /**
+     * Récupère la grille courante (la solution après une résolution complète réussie)
+     * @return la grille
+     */
+    public int[][] getGrille() {
+        return this.grille;
+    }
+
+    /**
+     * Ouvre une session de jeu sur la grille courante : ses valeurs deviennent les données fixes
+     * @return la session de jeu
+     */
+    public SessionJeu nouvelleSession() {
+        return new SessionJeu(this.tailleSousGrille, grille);
+    }
+
+    /**
+     * Evalue la difficulté de la grille courante avec l'échelle des techniques humaines
+     * @return l'évaluation (niveau, score et techniques employées)
+     */
+    public EvaluateurDifficulte.Evaluation evaluerDifficulte() {
+        return new EvaluateurDifficulte(this.tailleSousGrille).evaluer(grille);
+    }
+
+    //region INSTANTANES ET REPRISE
+
+    /**
+     * Active les instantanés du backtracking et de la recherche locale : l'état de la recherche est copié
+     * tous les intervalle noeuds ou itérations (arrondis au multiple de 1024 suivant), puis écrit dans le
+     * fichier par un thread d'arrière-plan
+     * @param fichier le fichier des instantanés, null pour les désactiver
+     * @param intervalle le nombre de noeuds ou d'itérations entre deux instantanés
+     */
+    public void setInstantanes(Path fichier, long intervalle) {
+        this.fichierInstantanes = fichier;
+        this.intervalleInstantanes = Math.max(1, intervalle);
+    }
+
+    /**
+     * Récupère l'échec d'écriture des instantanés de la dernière résolution
+     * @return l'exception, null si les instantanés ont été écrits ou sont désactivés
+     */
+    public IOException getErreurInstantanes() {
+        return this.erreurInstantanes;
+    }
+
+    /**
+     * Affiche l'échec d'écriture des instantanés de la dernière résolution, s'il y en a eu un
+     */
+    private void afficheErreurInstantanes() {
+        if (erreurInstantanes != null) {
+            System.err.println("Instantané non écrit : " + erreurInstantanes.getMessage());
+        }
+    }
+
+    /**
+     * Crée un résolveur qui reprend une recherche à partir de son dernier instantané
+     * La prochaine résolution par la méthode enregistrée (voir getMethodeReprise()) repart de l'état enregistré
+     * et fait exactement les mêmes choix que la recherche interrompue ; elle continue d'écrire ses instantanés
+     * dans le même fichier.
+     * @param fichier le fichier de l'instantané
+     * @return le résolveur
+     * @throws IOException si l'instantané ne peut pas être lu
+     */
+    public static ResolveurSudoku reprendre(Path fichier) throws IOException {
+        Instantane instantane = Instantane.lire(fichier);
+        int tailleSousGrille = instantane.getTailleSousGrille();
+        int[][] depart = Instantane.enTableau(instantane.getDepart(), tailleSousGrille * tailleSousGrille);
+        ResolveurSudoku resolveur = new ResolveurSudoku(tailleSousGrille, depart);
+        resolveur.reprise = instantane;
+        resolveur.setInstantanes(fichier, instantane.getIntervalle());
+        return resolveur;
+    }
+
+    /**
+     * Récupère la méthode de la recherche à reprendre
+     * @return BACKTRACKING ou RECHERCHE_LOCALE, null s'il n'y a rien à reprendre
+     */
+    public Methode getMethodeReprise() {
+        if (reprise == null) {
+            return null;
+        }
+        return reprise.getType() == Instantane.Type.BACKTRACKING ? Methode.BACKTRACKING : Methode.RECHERCHE_LOCALE;
+    }
+
+    /**
+     * Retire l'instantané à reprendre s'il correspond à la recherche qui commence
+     * @param type le type de la recherche
+     * @return l'instantané, null s'il n'y a rien à reprendre pour cette recherche
+     */
+    private Instantane prendreReprise(Instantane.Type type) {
+        if (reprise == null || reprise.getType() != type) {
+            return null;
+        }
+        Instantane instantane = reprise;
+        reprise = null;
+        return instantane;
+    }
+
+    /**
+     * Démarre le thread d'écriture des instantanés si les instantanés sont activés
+     * @param premier le nombre de noeuds ou d'itérations à partir duquel le premier instantané est pris
+     */
+    private void ouvrirInstantanes(long premier) {
+        prochainInstantane = premier;
+        erreurInstantanes = null;
+        instantanes = fichierInstantanes == null ? null : new EnregistreurInstantanes(fichierInstantanes);
+    }
+
+    /**
+     * Attend l'écriture du dernier instantané ; un échec d'écriture ne fait pas échouer la résolution,
+     * il est gardé pour getErreurInstantanes()
+     */
+    private void fermerInstantanes() {
+        if (instantanes == null) {
+            return;
+        }
+        try {
+            instantanes.fermer();
+        } catch (IOException e) {
+            erreurInstantanes = e;
+        }
+        instantanes = null;
+    }
+
+    //endregion
+
+    //region RESOLUTION SANS AFFICHAGE
+
+    /**
+     * Résout la grille avec la méthode demandée, sans aucun affichage
+     * @param methode la méthode de résolution
+     * @return le résultat de la résolution (statut, grille, noeuds explorés, durée)
+     */
+    public Resultat resoudre(Methode methode) {
+        return resoudre(methode, Echeance.aucune());
+    }
+
+    /**
+     * Résout la grille avec la méthode demandée et une échéance, sans aucun affichage
+     * Quand l'échéance est dépassée, le statut est HORS_DELAI ; les méthodes incomplètes renvoient alors
+     * la meilleure grille trouvée. Le budget de l'échéance remplace le nombre d'itérations par défaut de la
+     * recherche locale et du recuit simulé, et borne le nombre de noeuds des méthodes complètes.
+     * @param methode la méthode de résolution
+     * @param echeance l'échéance (délai, budget, annulation)
+     * @return le résultat de la résolution (statut, grille, noeuds explorés, durée)
+     */
+    public Resultat resoudre(Methode methode, Echeance echeance) {
+        this.echeance = echeance;
+        try {
+            return resoudreAvecEcheance(methode);
+        } finally {
+            this.echeance = Echeance.aucune();
+        }
+    }
+
+    private Resultat resoudreAvecEcheance(Methode methode) {
+        switch (methode) {
+            case CHOCO:
+                return resoudreChoco();
+            case BACKTRACKING:
+                return resoudreBacktracking();
+            case RECHERCHE_LOCALE:
+                return resoudreRechercheLocale();
+            case GLOUTON:
+                return resoudreGlouton();
+            case BACKTRACKING_MASQUES:
+                return resoudreMasques();
+            case DANCING_LINKS:
+                return resoudreDancingLinks();
+            case BACKTRACKING_PARALLELE:
+                return resoudreParallele(Runtime.getRuntime().availableProcessors(), 4);
+            case RECUIT_SIMULE:
+                return resoudreRecuit();
+            case PORTEFEUILLE:
+                return resoudrePortefeuille(Runtime.getRuntime().availableProcessors());
+            default:
+                throw new IllegalArgumentException("Méthode inconnue : " + methode);
+        }
+    }
+
+    /**
+     * Construit le résultat d'une méthode complète à partir de la grille courante
+     * @param resolu true si la méthode a trouvé une solution
+     * @param interrompu true si la méthode a été arrêtée par son échéance
+     * @param mesure les compteurs du moteur
+     * @param depart l'instant de départ de la résolution (System.nanoTime)
+     * @param casesFixees le nombre de cases fixées par la propagation
+     * @return le résultat
+     */
+    private Resultat resultatComplet(boolean resolu, boolean interrompu, Mesure mesure, long depart, int casesFixees) {
+        Resultat.Statut statut = resolu ? Resultat.Statut.RESOLU
+                : interrompu ? Resultat.Statut.HORS_DELAI : Resultat.Statut.SANS_SOLUTION;
+        return new Resultat(statut, grille, mesure.getNoeuds(), System.nanoTime() - depart, resolu ? 0 : -1, casesFixees, mesure);
+    }
+
+    //endregion
+
+    //region ENUMERATION DES SOLUTIONS
+
+    /**
+     * Flux paresseux des solutions de la grille courante
+     * @return le flux des solutions, une nouvelle grille par solution
+     */
+    public Stream<int[][]> solutions() {
+        return new EnumerateurSolutions(this.tailleSousGrille, grille).solutions(false).map(GrilleCompacte::versTableau);
+    }
+
+    /**
+     * Compte les solutions de la grille courante sans créer de grille
+     * @param limite le nombre maximal de solutions à compter
+     * @return le nombre de solutions, au plus limite
+     */
+    public long compterSolutions(long limite) {
+        return new EnumerateurSolutions(this.tailleSousGrille, grille).compter(limite);
+    }
+
+    //endregion
+
+    //region PROPAGATION DE CONTRAINTES
+
+    /**
+     * Fixe les cases déductibles (singletons nus, singletons cachés, candidats verrouillés)
+     * si la propagation est activée
+     * La propagation travaille sur une copie : la grille n'est complétée que si aucune contradiction n'apparaît.
+     * @param cible la grille à compléter
+     * @param mesure la mesure de la résolution, qui compte les propagations et les publie avec elle ;
+     *               null si la résolution les reçoit d'une autre façon
+     * @return le nombre de cases fixées, -1 si la propagation prouve que la grille est insoluble
+     */
+    private int prePropagation(int[][] cible, Mesure mesure) {
+        if (!this.propagation) {
+            return 0;
+        }
+        GrilleCompacte compacte = GrilleCompacte.depuis(cible);
+        Propagateur propagateur = new Propagateur(compacte);
+        if (mesure != null) {
+            propagateur.setMesure(mesure);
+        }
+        int casesFixees = propagateur.propager();
+        if (propagateur.estContradictoire()) {
+            return -1;
+        }
+        compacte.copierDans(cible);
+        return casesFixees;
+    }
+
+    /**
+     * Affiche le bilan de la propagation d'une résolution
+     * @param resultat le résultat de la résolution
+     */
+    private void affichePropagation(Resultat resultat) {
+        if (!this.propagation) {
+            return;
+        }
+        if (resultat.getCasesFixees() < 0) {
+            System.out.println("Propagation : la grille est insoluble");
+        } else {
+            System.out.println("Propagation : " + resultat.getCasesFixees() + " cases fixées");
+        }
+    }
+
+    //endregion
+
     //region RESOLUTION AVEC CHOCOSOLVER
 
     /**
@@ -33,68 +392,60 @@ public class ResolveurSudoku {
      */
     public void resolutionChoco() {
         afficheGrille(grille);
-        // Crée les variables
-        IntVar[][] grille = new IntVar[this.tailleGrille][this.tailleGrille];
-        for (int i = 0; i < this.tailleGrille; i++) {
-            for (int j = 0; j < this.tailleGrille; j++) {
-                grille[i][j] = model.intVar("grid[" + i + "," + j + "]", 1, this.tailleGrille);
-            }
-        }
-
-        // Ajoute les contraintes
-        ajoutContraintes(grille);
-
-        model.getSolver().limitSolution(10); // Limite à 10 solutions
+        ResolveurChoco choco = resolveurChocoEnumeration();
 
-        // Résolution
+        // Résolution, limitée à 10 solutions
         int solutionCount = 0;
-        while (model.getSolver().solve()) {
+        boolean trouvee = choco.resoudre();
+        while (trouvee && solutionCount < 10) {
             solutionCount++;
             System.out.println("Solution #" + solutionCount);
-            int[][] grilleFinale = new int[this.tailleGrille][this.tailleGrille];
-            for (int i = 0; i < this.tailleGrille; i++) {
-                for (int j = 0; j < this.tailleGrille; j++) {
-                    grilleFinale[i][j] = grille[i][j].getValue();
-                }
-            }
-            afficheGrille(grilleFinale);
+            afficheGrille(choco.getSolution());
+            trouvee = choco.solutionSuivante();
         }
 
         System.out.println("Nombre total de solutions trouvées : " + solutionCount);
     }
 
     /**
-     * Ajoute les contraintes (lignes, colonnes, sous-grilles)
-     * @param grille la grille de variables
+     * Résout la grille avec ChocoSolver sans affichage et garde la première solution
+     * @return le résultat de la résolution
      */
-    private void ajoutContraintes(IntVar[][] grille) {
-        // Ajoute les contraintes pour chaque ligne
-        for (int i = 0; i < this.tailleGrille; i++) {
-            model.allDifferent(grille[i]).post();
+    private Resultat resoudreChoco() {
+        long depart = System.nanoTime();
+        ResolveurChoco choco = resolveurChoco();
+        boolean resolu = choco.resoudre();
+        if (resolu) {
+            grille = choco.getSolution();
         }
+        return resultatComplet(resolu, choco.estInterrompue(), choco.getMesure(), depart, 0);
+    }
 
-        // Ajoute les contraintes pour chaque colonne
-        for (int j = 0; j < this.tailleGrille; j++) {
-            IntVar[] colonne = new IntVar[this.tailleGrille];
-            for (int i = 0; i < this.tailleGrille; i++) {
-                colonne[i] = grille[i][j];
-            }
-            model.allDifferent(colonne).post();
+    /**
+     * Crée le modèle ChocoSolver lors du premier appel et y charge la grille courante
+     * @return le résolveur ChocoSolver
+     */
+    private ResolveurChoco resolveurChoco() {
+        if (choco == null) {
+            choco = new ResolveurChoco(this.tailleSousGrille);
         }
+        choco.charger(grille);
+        choco.setEcheance(echeance);
+        return choco;
+    }
 
-        // Ajoute les contraintes pour chaque sous-grille
-        for (int ligne = 0; ligne < this.tailleGrille; ligne += this.tailleSousGrille) {
-            for (int col = 0; col < this.tailleGrille; col += this.tailleSousGrille) {
-                IntVar[] sousGrille = new IntVar[this.tailleGrille];
-                int index = 0;
-                for (int i = 0; i < this.tailleSousGrille; i++) {
-                    for (int j = 0; j < this.tailleSousGrille; j++) {
-                        sousGrille[index++] = grille[ligne + i][col + j];
-                    }
-                }
-                model.allDifferent(sousGrille).post();
-            }
+    /**
+     * Crée le modèle ChocoSolver sans redémarrages lors du premier appel et y charge la grille courante
+     * @return le résolveur ChocoSolver, capable d'énumérer les solutions
+     */
+    private ResolveurChoco resolveurChocoEnumeration() {
+        if (chocoEnumeration == null) {
+            chocoEnumeration = new ResolveurChoco(this.tailleSousGrille, ResolveurChoco.Coherence.AC,
+                    ResolveurChoco.Strategie.DOM_WDEG, false);
         }
+        chocoEnumeration.charger(grille);
+        chocoEnumeration.setEcheance(echeance);
+        return chocoEnumeration;
     }
 
     //endregion
@@ -106,19 +457,100 @@ public class ResolveurSudoku {
      */
     public boolean backtracking() {
         afficheGrille(grille);
+        Resultat resultat = resoudreBacktracking();
+        afficheErreurInstantanes();
+        affichePropagation(resultat);
+        afficheGrille(grille);
+        return resultat.estResolu();
+    }
+
+    /**
+     * Résout la grille par backtracking sans affichage
+     * @return le résultat de la résolution
+     */
+    private Resultat resoudreBacktracking() {
+        long depart = System.nanoTime();
+        mesure.reinitialiser();
+        horsDelai = false;
+        int casesFixees;
+        Instantane instantane = prendreReprise(Instantane.Type.BACKTRACKING);
+        if (instantane != null) {
+            // La grille est déjà celle du début de la recherche : la pile des décisions est rejouée
+            casesFixees = instantane.getCasesFixees();
+            byte[] decisions = instantane.getEtat();
+            decisionsReprise = new int[decisions.length];
+            for (int k = 0; k < decisions.length; k++) {
+                decisionsReprise[k] = decisions[k];
+            }
+            // Les appels qui rejouent les décisions comptent à nouveau leurs noeuds
+            mesure.ajouterNoeuds(instantane.getNoeuds() - decisions.length - 1);
+            ouvrirInstantanes(instantane.getNoeuds() + intervalleInstantanes);
+        } else {
+            casesFixees = prePropagation(grille, mesure);
+            ouvrirInstantanes(intervalleInstantanes);
+        }
+        departRecherche = Instantane.aPlat(grille);
+        casesFixeesRecherche = casesFixees;
+        boolean resolu;
+        try {
+            resolu = casesFixees >= 0 && remplirBacktracking(0);
+        } finally {
+            decisionsReprise = null;
+            fermerInstantanes();
+        }
+        if (resolu) {
+            mesure.solutionTrouvee();
+        }
+        Metriques.publier("backtracking", mesure);
+        return resultatComplet(resolu, horsDelai, mesure, depart, casesFixees);
+    }
+
+    /**
+     * Remplit récursivement les cases vides de la grille
+     * @param profondeur le nombre de cases déjà remplies par la recherche
+     * @return true si la grille a pu être complétée, false sinon
+     */
+    private boolean remplirBacktracking(int profondeur) {
+        if (horsDelai) {
+            return false;
+        }
+        mesure.ajouterNoeuds(1);
+        // Le budget est vérifié à chaque noeud, l'horloge et les instantanés régulièrement
+        if (echeance.depasseBudget(mesure.getNoeuds())) {
+            horsDelai = true;
+        } else if ((mesure.getNoeuds() & 1023) == 0) {
+            if (echeance.estDepassee()) {
+                horsDelai = true;
+            } else if (instantanes != null && mesure.getNoeuds() >= prochainInstantane) {
+                instantaneBacktracking();
+            }
+        }
+        if (horsDelai) {
+            return false;
+        }
         // Parcours de la grille
         for(int ligne = 0; ligne < this.tailleGrille; ligne++){
             for(int col = 0; col< this.tailleGrille; col++){
                 // Dans le cas où la case est vide, on essaye de placer une valeur
                 if (grille[ligne][col] == 0) {
-                    for(int valeur = 1; valeur <= this.tailleGrille; valeur++) {
+                    // Lors d'une reprise, chaque niveau de la pile repart de la valeur enregistrée
+                    int premiere = 1;
+                    if (decisionsReprise != null) {
+                        if (profondeur < decisionsReprise.length) {
+                            premiere = decisionsReprise[profondeur];
+                        } else {
+                            decisionsReprise = null;
+                        }
+                    }
+                    for(int valeur = premiere; valeur <= this.tailleGrille; valeur++) {
                         // Si la valeur est valide, on la place
                         if (isValid(ligne, col, valeur)) {
                             grille[ligne][col] = valeur;
-                            if (backtracking()){
+                            if (remplirBacktracking(profondeur + 1)){
                                 return true;
                             } else {
                                 grille[ligne][col] = 0;
+                                mesure.retourArriere();
                             }
                         }
                     }
@@ -126,10 +558,33 @@ public class ResolveurSudoku {
                 }
             }
         }
-        afficheGrille(grille);
         return true;
     }
 
+    /**
+     * Copie la pile des décisions et la confie au thread d'écriture
+     * La recherche remplit toujours la première case vide : les cases remplies depuis le début de la recherche,
+     * dans l'ordre des lignes, sont exactement la pile des décisions, et chacune contient sa valeur en cours.
+     */
+    private void instantaneBacktracking() {
+        byte[] decisions = new byte[departRecherche.length];
+        int profondeur = 0;
+        for (int indice = 0; indice < departRecherche.length; indice++) {
+            if (departRecherche[indice] == 0) {
+                int valeur = grille[indice / tailleGrille][indice % tailleGrille];
+                if (valeur == 0) {
+                    break;
+                }
+                decisions[profondeur++] = (byte) valeur;
+            }
+        }
+        byte[] pile = new byte[profondeur];
+        System.arraycopy(decisions, 0, pile, 0, profondeur);
+        instantanes.soumettre(new Instantane(Instantane.Type.BACKTRACKING, tailleSousGrille, intervalleInstantanes,
+                mesure.getNoeuds(), 0, casesFixeesRecherche, departRecherche, pile));
+        prochainInstantane = mesure.getNoeuds() + intervalleInstantanes;
+    }
+
     /**
      * Vérifie si une valeur est valide pour une case donnée
      * @param ligne la ligne
@@ -160,229 +615,505 @@ public class ResolveurSudoku {
 
     }
 
+    /**
+     * Résout une grille de sudoku par backtracking en maintenant des masques de bits
+     * pour les lignes, colonnes et sous-grilles
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean backtrackingMasques() {
+        afficheGrille(grille);
+        if (!resoudreMasques().estResolu()) {
+            System.out.println("Aucune solution trouvée");
+            return false;
+        }
+        afficheGrille(grille);
+        return true;
+    }
+
+    /**
+     * Résout la grille par backtracking sur masques de bits sans affichage
+     * @return le résultat de la résolution
+     */
+    private Resultat resoudreMasques() {
+        long depart = System.nanoTime();
+        ResolveurMasques resolveur = new ResolveurMasques(this.tailleSousGrille, grille);
+        resolveur.setEcheance(echeance);
+        boolean resolu = resolveur.resoudre();
+        if (resolu) {
+            grille = resolveur.getGrille();
+        }
+        return resultatComplet(resolu, resolveur.estInterrompue(), resolveur.getMesure(), depart, 0);
+    }
+
+    /**
+     * Résout une grille de sudoku par backtracking parallèle sur tous les coeurs disponibles
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean backtrackingParallele() {
+        return backtrackingParallele(Runtime.getRuntime().availableProcessors(), 4);
+    }
+
+    /**
+     * Résout une grille de sudoku par backtracking parallèle : l'arbre de recherche est découpé
+     * sur la case la plus contrainte en sous-tâches réparties par vol de travail
+     * @param parallelisme le nombre de threads
+     * @param profondeurCoupure la profondeur jusqu'à laquelle l'arbre est découpé
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean backtrackingParallele(int parallelisme, int profondeurCoupure) {
+        afficheGrille(grille);
+        Resultat resultat = resoudreParallele(parallelisme, profondeurCoupure);
+        if (!resultat.estResolu()) {
+            System.out.println("Aucune solution trouvée");
+            return false;
+        }
+        afficheGrille(grille);
+        System.out.println("Noeuds explorés : " + resultat.getNoeuds());
+        return true;
+    }
+
+    /**
+     * Résout la grille par backtracking parallèle sans affichage
+     * @param parallelisme le nombre de threads
+     * @param profondeurCoupure la profondeur jusqu'à laquelle l'arbre est découpé
+     * @return le résultat de la résolution
+     */
+    private Resultat resoudreParallele(int parallelisme, int profondeurCoupure) {
+        long depart = System.nanoTime();
+        ResolveurParallele resolveur = new ResolveurParallele(this.tailleSousGrille, grille, parallelisme, profondeurCoupure);
+        resolveur.setEcheance(echeance);
+        boolean resolu = resolveur.resoudre();
+        if (resolu) {
+            grille = resolveur.getSolution();
+        }
+        return resultatComplet(resolu, resolveur.estInterrompue(), resolveur.getMesure(), depart, 0);
+    }
+
+    //endregion
+
+    //region RESOLUTION AVEC DANCING LINKS
+
+    /**
+     * Résout une grille de sudoku avec l'algorithme X (Dancing Links) en couverture exacte
+     * puis compte les solutions, limitées à 10 comme pour ChocoSolver
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean dancingLinks() {
+        afficheGrille(grille);
+        ResolveurDLX resolveur = new ResolveurDLX(this.tailleSousGrille, grille);
+        if (!resoudreDancingLinks(resolveur).estResolu()) {
+            System.out.println("Aucune solution trouvée");
+            return false;
+        }
+        afficheGrille(grille);
+
+        long solutionCount = resolveur.compterSolutions(10);
+        System.out.println("Nombre total de solutions trouvées : " + solutionCount);
+        System.out.println("Solution unique : " + (solutionCount == 1 ? "oui" : "non"));
+        return true;
+    }
+
+    /**
+     * Résout la grille avec Dancing Links sans affichage
+     * @return le résultat de la résolution
+     */
+    private Resultat resoudreDancingLinks() {
+        long depart = System.nanoTime();
+        ResolveurDLX resolveur = new ResolveurDLX(this.tailleSousGrille, grille);
+        Resultat resultat = resoudreDancingLinks(resolveur);
+        return resultatComplet(resultat.estResolu(), resolveur.estInterrompue(), resultat.getMesure(), depart, 0);
+    }
+
+    /**
+     * Cherche la première solution avec un résolveur Dancing Links déjà chargé et la recopie dans la grille
+     * @param resolveur le résolveur chargé avec la grille
+     * @return le résultat de la résolution
+     */
+    private Resultat resoudreDancingLinks(ResolveurDLX resolveur) {
+        long depart = System.nanoTime();
+        resolveur.setEcheance(echeance);
+        boolean resolu = resolveur.resoudre();
+        if (resolu) {
+            int[][] solution = resolveur.getSolution();
+            for (int i = 0; i < this.tailleGrille; i++) {
+                System.arraycopy(solution[i], 0, grille[i], 0, this.tailleGrille);
+            }
+        }
+        return resultatComplet(resolu, resolveur.estInterrompue(), resolveur.getMesure(), depart, 0);
+    }
+
     //endregion
 
     //region RESOLUTION AVEC LA RECHERCHE LOCALE
 
+    // Nombre d'itérations de la recherche locale quand l'échéance n'a pas de budget
+    private static final long ITERATIONS_RECHERCHE_LOCALE = 500000;
+
     /**
      * Résout une grille de sudoku avec la méthode incomplète de recherche locale
      */
     public void rechercheLocale() {
-        // Génère une solution initiale fausse
-        GenerateurSolutionFausse generateur = new GenerateurSolutionFausse(this.tailleGrille);
-        ArrayList<int[]> listeCasesModifiables = generateur.getListeCasesModifiables();
-        int[][] solution = generateur.getGrille();
-        afficheGrille(solution);
+        Resultat resultat = resoudreRechercheLocale();
+        afficheErreurInstantanes();
+        affichePropagation(resultat);
+        if (resultat.estResolu()) {
+            System.out.println("Solution trouvée après " + resultat.getNoeuds() + " itérations");
+        }
+        afficheGrille(resultat.getGrille());
+        System.out.println("Evaluation finale: " + resultat.getEvaluation());
+    }
+
+    /**
+     * Résout la grille par recherche locale sans affichage
+     * La grille du résolveur n'est pas modifiée, la meilleure grille trouvée est dans le résultat.
+     * @return le résultat de la résolution, le nombre de noeuds étant le nombre d'itérations
+     */
+    private Resultat resoudreRechercheLocale() {
+        long depart = System.nanoTime();
+        mesure.reinitialiser();
+        int casesFixees;
+        SplittableRandom random;
+        ArrayList<int[]> listeCasesModifiables;
+        int[][] solution;
+        // Grille de départ de la recherche : la grille du résolveur, complétée par la propagation sur une copie
+        int[][] grilleDepart;
+        long iteration = 0;
+        Instantane instantane = prendreReprise(Instantane.Type.RECHERCHE_LOCALE);
+        if (instantane != null) {
+            grilleDepart = grille;
+            // On repart de la grille enregistrée, avec la source aléatoire dont la graine a été enregistrée
+            casesFixees = instantane.getCasesFixees();
+            random = new SplittableRandom(instantane.getGraine());
+            solution = Instantane.enTableau(instantane.getEtat(), this.tailleGrille);
+            listeCasesModifiables = new ArrayList<>();
+            for (int i = 0; i < this.tailleGrille; i++) {
+                for (int j = 0; j < this.tailleGrille; j++) {
+                    if (grilleDepart[i][j] == 0) {
+                        listeCasesModifiables.add(new int[]{i, j});
+                    }
+                }
+            }
+            // L'itération de l'instantané recommence juste après la prise de l'instantané
+            iteration = instantane.getNoeuds() - 1;
+            ouvrirInstantanes(instantane.getNoeuds() + intervalleInstantanes);
+        } else {
+            grilleDepart = GrilleCompacte.depuis(grille).versTableau();
+            casesFixees = prePropagation(grilleDepart, mesure);
+            // Génère une solution initiale fausse à partir de la grille à résoudre
+            random = this.random.split();
+            GenerateurSolutionFausse generateur = new GenerateurSolutionFausse(this.tailleGrille, grilleDepart, false, random.split());
+            listeCasesModifiables = generateur.getListeCasesModifiables();
+            solution = generateur.getGrille();
+            ouvrirInstantanes(intervalleInstantanes);
+        }
+        byte[] departLocal = Instantane.aPlat(grilleDepart);
+
+        // Tables du nombre d'occurrences de chaque valeur par ligne, par colonne et par sous-grille
+        // (les mouvements écrivent une valeur quelconque : les lignes ne restent pas des permutations)
+        int[][] occurrencesLignes = new int[this.tailleGrille][this.tailleGrille + 1];
+        int[][] occurrencesColonnes = new int[this.tailleGrille][this.tailleGrille + 1];
+        int[][] occurrencesSousGrilles = new int[this.tailleGrille][this.tailleGrille + 1];
+        for (int i = 0; i < this.tailleGrille; i++) {
+            for (int j = 0; j < this.tailleGrille; j++) {
+                occurrencesLignes[i][solution[i][j]]++;
+                occurrencesColonnes[j][solution[i][j]]++;
+                occurrencesSousGrilles[indiceSousGrille(i, j)][solution[i][j]]++;
+            }
+        }
 
         // Evaluation de la solution initiale
-        int evaluation = evaluationSolution(solution);
-        System.out.println("Evaluation initiale: " + evaluation);
-
-        // Recherche locale
-        for (int i = 0; i < 500000; i++) {
-            int[][] solutionVoisine = genererSolutionVoisine(solution, listeCasesModifiables);
-            int evaluationVoisine = evaluationSolution(solutionVoisine);
-
-            // Si la solution voisine est meilleure, on la garde
-            if (evaluationVoisine <= evaluation) {
-                solution = solutionVoisine;
-                evaluation = evaluationVoisine;
+        int evaluation = evaluationSolution(occurrencesLignes, occurrencesColonnes, occurrencesSousGrilles);
+
+        // Recherche locale, bornée par le budget de l'échéance et vérifiée toutes les 1024 itérations
+        long limite = echeance.getBudget(ITERATIONS_RECHERCHE_LOCALE);
+        boolean interrompue = false;
+        while (evaluation != 0 && iteration < limite && !listeCasesModifiables.isEmpty()) {
+            if ((++iteration & 1023) == 0) {
+                if (echeance.estDepassee()) {
+                    interrompue = true;
+                    break;
+                }
+                if (instantanes != null && iteration >= prochainInstantane) {
+                    // La suite tire ses valeurs d'une nouvelle source dont la graine est enregistrée :
+                    // la reprise fait exactement les mêmes tirages
+                    long graine = random.nextLong();
+                    random = new SplittableRandom(graine);
+                    instantanes.soumettre(new Instantane(Instantane.Type.RECHERCHE_LOCALE, tailleSousGrille,
+                            intervalleInstantanes, iteration, graine, casesFixees, departLocal, Instantane.aPlat(solution)));
+                    prochainInstantane = iteration + intervalleInstantanes;
+                }
             }
+            // On choisit une case aléatoire parmi les cases modifiables et une valeur aléatoire
+            int index = random.nextInt(listeCasesModifiables.size());
+            int[] caseModifiable = listeCasesModifiables.get(index);
+            int ligne = caseModifiable[0];
+            int colonne = caseModifiable[1];
+            int valeur = random.nextInt(this.tailleGrille) + 1;
 
-            // Si on a trouvé une solution valide, on s'arrête
-            if (evaluation == 0) {
-                System.out.println("Solution trouvée après " + i + " itérations");
-                break;
+            int sousGrille = indiceSousGrille(ligne, colonne);
+            int ancienneValeur = solution[ligne][colonne];
+            int delta = deltaEvaluation(occurrencesLignes[ligne], ancienneValeur, valeur)
+                    + deltaEvaluation(occurrencesColonnes[colonne], ancienneValeur, valeur)
+                    + deltaEvaluation(occurrencesSousGrilles[sousGrille], ancienneValeur, valeur);
+
+            // Si la solution voisine n'est pas moins bonne, on applique le changement sur place
+            mesure.mouvement(delta <= 0);
+            if (delta <= 0) {
+                solution[ligne][colonne] = valeur;
+                occurrencesLignes[ligne][ancienneValeur]--;
+                occurrencesLignes[ligne][valeur]++;
+                occurrencesColonnes[colonne][ancienneValeur]--;
+                occurrencesColonnes[colonne][valeur]++;
+                occurrencesSousGrilles[sousGrille][ancienneValeur]--;
+                occurrencesSousGrilles[sousGrille][valeur]++;
+                evaluation += delta;
             }
         }
-        afficheGrille(solution);
-        System.out.println("Evaluation finale: " + evaluation);
+        fermerInstantanes();
+        if (evaluation == 0) {
+            mesure.solutionTrouvee();
+        }
+        mesure.ajouterNoeuds(iteration);
+        Metriques.publier("rechercheLocale", mesure);
+        // Arrêtée par son échéance, la recherche renvoie la grille atteinte, qui est aussi la meilleure
+        // car les mouvements ne dégradent jamais l'évaluation
+        Resultat.Statut statut = evaluation == 0 ? Resultat.Statut.RESOLU
+                : interrompue ? Resultat.Statut.HORS_DELAI : Resultat.Statut.NON_RESOLU;
+        return new Resultat(statut, solution, iteration, System.nanoTime() - depart, evaluation, casesFixees, mesure);
     }
+
     /**
-     * Génère une solution voisine en changeant une case aléatoire
-     * @param solution la solution actuelle
-     * @param listeCasesModifiables la liste des cases modifiables
-     * @return la solution voisine
+     * Résout une grille de sudoku par recuit simulé : chaque ligne est une permutation et
+     * les mouvements échangent deux cases modifiables d'une même ligne
      */
-    private int[][] genererSolutionVoisine(int[][] solution, ArrayList<int[]> listeCasesModifiables) {
-        // On copie la solution actuelle
-        int[][] solutionVoisine = new int[this.tailleGrille][this.tailleGrille];
-        for (int i = 0; i < this.tailleGrille; i++) {
-            System.arraycopy(solution[i], 0, solutionVoisine[i], 0, this.tailleGrille);
+    public void recuitSimule() {
+        afficheGrille(grille);
+        Resultat resultat = resoudreRecuit();
+        affichePropagation(resultat);
+        if (resultat.estResolu()) {
+            System.out.println("Solution trouvée après " + resultat.getNoeuds() + " itérations");
         }
+        afficheGrille(resultat.getGrille());
+        System.out.println("Evaluation finale: " + resultat.getEvaluation());
+        System.out.println("Itérations: " + resultat.getNoeuds() + ", durée: " + resultat.getDureeNanos() / 1000000 + " ms");
+    }
 
-        // On choisit une case aléatoire parmi les cases modifiables
-        int index = (int) (Math.random() * listeCasesModifiables.size());
-        int[] caseModifiable = listeCasesModifiables.get(index);
-        int ligne = caseModifiable[0];
-        int colonne = caseModifiable[1];
-
-        // On choisit une valeur aléatoire
-        int valeur = (int) (Math.random() * this.tailleGrille) + 1;
-
-        // On change la valeur de la case choisie
-        solutionVoisine[ligne][colonne] = valeur;
-
-        return solutionVoisine;
+    /**
+     * Résout la grille par recuit simulé sans affichage
+     * La grille du résolveur n'est pas modifiée, la meilleure grille trouvée est dans le résultat.
+     * @return le résultat de la résolution, le nombre de noeuds étant le nombre d'itérations
+     */
+    private Resultat resoudreRecuit() {
+        long depart = System.nanoTime();
+        // La propagation remplit une copie : la grille du résolveur n'est pas modifiée
+        int[][] grilleDepart = GrilleCompacte.depuis(grille).versTableau();
+        int casesFixees = prePropagation(grilleDepart, null);
+        RecuitSimule recuit = new RecuitSimule(this.tailleSousGrille, grilleDepart, random.split());
+        recuit.setPropagationsPrealables(Math.max(casesFixees, 0));
+        recuit.setEcheance(echeance);
+        boolean resolu = recuit.resoudre();
+        Resultat.Statut statut = resolu ? Resultat.Statut.RESOLU
+                : recuit.estInterrompu() ? Resultat.Statut.HORS_DELAI : Resultat.Statut.NON_RESOLU;
+        return new Resultat(statut, recuit.getSolution(),
+                recuit.getIterations(), System.nanoTime() - depart, recuit.getEvaluation(), casesFixees, recuit.getMesure());
     }
 
     /**
-     * Fonction qui compte le nombre de contraintes non respectées
-     * @param solution la solution à évaluer
+     * Fonction qui compte le nombre de contraintes non respectées à partir des tables d'occurrences
+     * Une valeur présente c fois dans une ligne, une colonne ou une sous-grille viole c * (c - 1) contraintes,
+     * comme lorsque chaque case est comparée à toutes les autres.
+     * @param occurrencesLignes le nombre d'occurrences de chaque valeur par ligne
+     * @param occurrencesColonnes le nombre d'occurrences de chaque valeur par colonne
+     * @param occurrencesSousGrilles le nombre d'occurrences de chaque valeur par sous-grille
      * @return le nombre de contraintes non respectées
      */
-    private int evaluationSolution(int[][] solution) {
+    private int evaluationSolution(int[][] occurrencesLignes, int[][] occurrencesColonnes,
+                                   int[][] occurrencesSousGrilles) {
         int evaluation = 0;
-        // Parcours des cases de la grille
-        for (int i = 0; i < this.tailleGrille; i++) {
-            for (int j = 0; j < this.tailleGrille; j++) {
-                int valeur = solution[i][j];
-                // Vérification de la colonne
-                for (int k = 0; k < this.tailleGrille; k++) {
-                    if (i != k && solution[k][j] == valeur) {
-                        evaluation++;
-                    }
-                }
-
-                // Vérification de la sous-grille
-                int sousGrilleTaille = (int) Math.sqrt(this.tailleGrille);
-                int debutLigne = i - i % sousGrilleTaille;
-                int debutColonne = j - j % sousGrilleTaille;
-                for (int k = 0; k < sousGrilleTaille; k++) {
-                    for (int l = 0; l < sousGrilleTaille; l++) {
-                        if (solution[debutLigne + k][debutColonne + l] == valeur && (debutLigne + k != i || debutColonne + l != j)) {
-                            evaluation++;
-                        }
-                    }
-                }
+        for (int k = 0; k < this.tailleGrille; k++) {
+            for (int valeur = 0; valeur <= this.tailleGrille; valeur++) {
+                int l = occurrencesLignes[k][valeur];
+                int c = occurrencesColonnes[k][valeur];
+                int b = occurrencesSousGrilles[k][valeur];
+                evaluation += l * (l - 1) + c * (c - 1) + b * (b - 1);
             }
         }
         return evaluation;
     }
 
+    /**
+     * Calcule en O(1) la variation de l'évaluation d'une unité quand une case passe d'une valeur à une autre
+     * @param occurrences le nombre d'occurrences de chaque valeur dans l'unité
+     * @param ancienneValeur la valeur actuelle de la case
+     * @param nouvelleValeur la nouvelle valeur de la case
+     * @return la variation du nombre de contraintes non respectées
+     */
+    private int deltaEvaluation(int[] occurrences, int ancienneValeur, int nouvelleValeur) {
+        if (ancienneValeur == nouvelleValeur) {
+            return 0;
+        }
+        return 2 * occurrences[nouvelleValeur] - 2 * (occurrences[ancienneValeur] - 1);
+    }
+
+    /**
+     * Calcule l'indice de la sous-grille contenant une case
+     * @param ligne la ligne
+     * @param colonne la colonne
+     * @return l'indice de la sous-grille
+     */
+    private int indiceSousGrille(int ligne, int colonne) {
+        return (ligne / this.tailleSousGrille) * this.tailleSousGrille + colonne / this.tailleSousGrille;
+    }
+
     //endregion
 
-    //region HEURISTIQUE GLOUTONNE
+    //region PORTEFEUILLE DE RESOLVEURS
 
     /**
-     * Compte le nombre de contraintes pour chaque case
-     * @return un tableau de contraintes
+     * Lance plusieurs résolveurs en concurrence sur la grille et garde la première solution vérifiée
+     * @param redemarrages le nombre de recuits simulés lancés avec des graines différentes
+     * @return true si une solution a été trouvée, false sinon
      */
-    private int[][] compteContraintes(){
-        int[][] contraintes = new int[tailleGrille][tailleGrille];
-        // Parcours de la grille
-        for(int i = 0; i < this.tailleGrille; i++){
-            for(int j = 0; j < this.tailleGrille; j++){
-                // Si la case est vide
-                if(grille[i][j] == 0){
-                    // Parcours la ligne et compte le nombre de cases remplies
-                    for(int k = 0; k < this.tailleGrille; k++){
-                        contraintes[i][j] += grille[i][k] == 0 ? 0 : 1;
-                    }
-                    // Parcours la colonne et compte le nombre de cases remplies
-                    for(int k = 0; k < this.tailleGrille; k++){
-                        contraintes[i][j] += grille[k][j] == 0 ? 0 : 1;
-                    }
-                    // Parcours la sous-grille de compte les contraintes
-                    int sousGrilleTaille = (int) Math.sqrt(this.tailleGrille);
-                    int startRow = i - i % sousGrilleTaille;
-                    int startCol = j - j % sousGrilleTaille;
-                    for (int k = 0; k < sousGrilleTaille; k++) {
-                        for (int l = 0; l < sousGrilleTaille; l++) {
-                            int r = startRow + k;
-                            int c = startCol + l;
-
-                            // Vérifie que la case n'est pas sur la même ligne ou colonne
-                            if (r != i && c != j) {
-                                contraintes[i][j] += grille[r][c] == 0 ? 0 : 1;
-                            }
-                        }
-                    }
-                }
+    public boolean portefeuille(int redemarrages) {
+        afficheGrille(grille);
+        Portefeuille portefeuille = preparerPortefeuille(redemarrages);
+        if (!portefeuille.resoudre(grille)) {
+            System.out.println(portefeuille.estInsoluble()
+                    ? "La grille n'a pas de solution (prouvé par " + portefeuille.getVainqueur() + ")"
+                    : "Aucune solution trouvée");
+            return false;
+        }
+        grille = portefeuille.getSolution();
+        afficheGrille(grille);
+        System.out.println("Résolveur vainqueur : " + portefeuille.getVainqueur());
+        return true;
+    }
+
+    /**
+     * Résout la grille avec un portefeuille de résolveurs sans affichage
+     * Le statut est SANS_SOLUTION quand un résolveur complet a prouvé que la grille est insoluble ; si tous les
+     * résolveurs ont échoué sans preuve, il est NON_RESOLU car les recuits simulés et le glouton ne prouvent rien.
+     * @param redemarrages le nombre de recuits simulés lancés avec des graines différentes
+     * @return le résultat de la résolution
+     */
+    private Resultat resoudrePortefeuille(int redemarrages) {
+        long depart = System.nanoTime();
+        Portefeuille portefeuille = preparerPortefeuille(redemarrages);
+        boolean resolu = portefeuille.resoudre(grille, echeance);
+        if (resolu) {
+            grille = portefeuille.getSolution();
+        }
+        Resultat.Statut statut = resolu ? Resultat.Statut.RESOLU
+                : portefeuille.estInsoluble() ? Resultat.Statut.SANS_SOLUTION
+                : echeance.estDepassee() ? Resultat.Statut.HORS_DELAI : Resultat.Statut.NON_RESOLU;
+        // Compteurs du vainqueur, vides si aucun résolveur n'a conclu
+        Mesure vainqueur = portefeuille.getMesure() != null ? portefeuille.getMesure() : new Mesure();
+        return new Resultat(statut, grille, vainqueur.getNoeuds(),
+                System.nanoTime() - depart, resolu ? 0 : -1, 0, vainqueur);
+    }
+
+    /**
+     * Récupère le portefeuille des résolutions, créé à la première utilisation puis réutilisé
+     * Un portefeuille créé ici est remplacé si le nombre de recuits demandé change ; un portefeuille fourni par
+     * setPortefeuille est toujours utilisé tel quel.
+     * @param redemarrages le nombre de recuits simulés lancés avec des graines différentes
+     * @return le portefeuille
+     */
+    private Portefeuille preparerPortefeuille(int redemarrages) {
+        if (portefeuille == null || (!portefeuilleFourni && portefeuille.getRedemarrages() != redemarrages)) {
+            if (portefeuille != null) {
+                portefeuille.fermer();
             }
+            portefeuille = new Portefeuille(this.tailleSousGrille, redemarrages, random.split());
+            portefeuilleFourni = false;
         }
-        return contraintes;
+        return portefeuille;
+    }
+
+    /**
+     * Fournit le portefeuille utilisé par les résolutions, par exemple pour le partager entre plusieurs résolveurs
+     * de même taille ; c'est à l'appelant de le fermer
+     * @param portefeuille le portefeuille à utiliser
+     */
+    public void setPortefeuille(Portefeuille portefeuille) {
+        if (portefeuille.getTailleSousGrille() != this.tailleSousGrille) {
+            throw new IllegalArgumentException("Le portefeuille est prévu pour des sous-grilles de taille "
+                    + portefeuille.getTailleSousGrille() + ", pas " + this.tailleSousGrille);
+        }
+        if (this.portefeuille != null && !portefeuilleFourni) {
+            this.portefeuille.fermer();
+        }
+        this.portefeuille = portefeuille;
+        this.portefeuilleFourni = true;
+    }
+
+    /**
+     * Récupère le portefeuille utilisé par les résolutions, pour consulter ses victoires
+     * @return le portefeuille, null si aucune résolution par portefeuille n'a encore eu lieu
+     */
+    public Portefeuille getPortefeuille() {
+        return this.portefeuille;
+    }
+
+    //endregion
+
+    //region HEURISTIQUE GLOUTONNE
+
+    /**
+     * Fixe le nombre de noeuds que l'heuristique gloutonne peut utiliser pour réparer un remplissage bloqué
+     * @param limiteReparation le nombre maximal de noeuds, 0 pour s'arrêter au premier blocage
+     */
+    public void setLimiteReparation(long limiteReparation) {
+        this.limiteReparation = limiteReparation;
     }
 
     /**
      * Résout une grille de sudoku avec la méthode incomplète de l'heuristique gloutonne
      */
     public void gloutonPlusContraint(){
-        for (int iteration = 0; iteration < 10000000; iteration++){
-            // Compte le nombre de contraintes pour chaque case
-            int[][] contraintes = compteContraintes();
-
-            // On liste les cases vides
-            List<int[]> cells = new ArrayList<>();
-            for(int i = 0; i < this.tailleGrille; i++){
-                for(int j = 0; j < this.tailleGrille; j++){
-                    // Si la case est vide, on ajoute ses coordonnées et le nombre de contraintes
-                    if(grille[i][j] == 0){
-                        cells.add(new int[]{i, j, contraintes[i][j]});
-                    }
-                }
-            }
-            // Trie les cellules du plus grand nombre de contraintes au plus petit
-            cells.sort((a, b) -> Integer.compare(b[2], a[2]));
-
-            // Parcours des cases vides
-            for(int[] cell : cells){
-                int row = cell[0];
-                int col = cell[1];
-                if (grille[row][col] == 0){
-                    for(int value = 1; value <= this.tailleGrille; value++) {
-                        if (isValid(row, col, value)) {
-                            grille[row][col] = value;
-                            break;
-                        }
-                    }
-                }
-            }
-        }
+        Resultat resultat = resoudreGlouton();
+        affichePropagation(resultat);
         afficheGrille(grille);
     }
+
+    /**
+     * Résout la grille avec l'heuristique gloutonne sans affichage
+     * La case qui a le moins de candidats est remplie en premier, jusqu'à ce que la grille soit complète
+     * ou qu'une case n'ait plus de candidat.
+     * @return le résultat, RESOLU si toutes les cases ont été remplies
+     */
+    private Resultat resoudreGlouton() {
+        long depart = System.nanoTime();
+        int casesFixees = prePropagation(grille, null);
+        ResolveurGlouton resolveur = new ResolveurGlouton(this.tailleSousGrille, grille);
+        resolveur.setLimiteReparation(limiteReparation);
+        resolveur.setPropagationsPrealables(Math.max(casesFixees, 0));
+        resolveur.setEcheance(echeance);
+        boolean resolu = casesFixees >= 0 && resolveur.resoudre();
+        if (casesFixees >= 0) {
+            resolveur.getGrilleCompacte().copierDans(grille);
+        } else {
+            // Grille insoluble d'après la propagation : la résolution est publiée sans lancer le glouton
+            Metriques.publier("glouton", resolveur.getMesure());
+        }
+        int casesVides = resolveur.getCasesVides();
+        Resultat.Statut statut = resolu ? Resultat.Statut.RESOLU
+                : resolveur.estInterrompue() ? Resultat.Statut.HORS_DELAI : Resultat.Statut.NON_RESOLU;
+        return new Resultat(statut, grille, resolveur.getNoeuds(), System.nanoTime() - depart, casesVides, casesFixees, resolveur.getMesure());
+    }
     //endregion
 
     //region AFFICHAGE DE LA GRILLE
 
     /**
-     * Affichage de la grille
+     * Affichage de la grille en une seule écriture
      * @param grille la grille à afficher
      */
     private void afficheGrille(int[][] grille) {
-        int sousGrilleTaille = (int) Math.sqrt(this.tailleGrille);
-        
-        String separator = "";
-        for (int i = 0; i < this.tailleGrille * 2 + sousGrilleTaille + 1; i++) {
-            separator += "-"; 
-        }
-    
-        for (int i = 0; i < this.tailleGrille; i++) {
-            // horizontal separator
-            if (i % sousGrilleTaille == 0) {
-                System.out.println(separator);
-            }
-    
-            for (int j = 0; j < this.tailleGrille; j++) {
-                // Vertical separator 
-                if (j % sousGrilleTaille == 0) {
-                    System.out.print("| ");
-                }
-    
-                
-                if (grille[i][j] == 0) {
-                    System.out.print(" . "); // Empty cells 
-                } else {
-                    // alignment
-                    System.out.printf("%2d ", grille[i][j]);
-                }
-            }
-            //vertical border
-            System.out.println("|");
+        if (afficheur == null) {
+            afficheur = new AfficheurGrille(this.tailleSousGrille);
         }
-    
-        // line of separation
-        System.out.println(separator);
+        afficheur.afficher(grille);
     }
     //endregion
 }
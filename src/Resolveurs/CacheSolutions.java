@@ -0,0 +1,170 @@
+package src.Resolveurs;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import src.Grilles.FormeCanonique;
+import src.Grilles.GrilleCompacte;
+
+public class CacheSolutions {
+
+    private final int capacite;
+    // Ordre d'accès : la grille la moins récemment utilisée est évincée en premier (protégé par lui-même)
+    private final LinkedHashMap<GrilleCompacte, GrilleCompacte> solutions;
+
+    // Chaque thread garde un résolveur par taille de sous-grille pour réutiliser sa matrice
+    private final ThreadLocal<Map<Integer, ResolveurDLX>> resolveurs = ThreadLocal.withInitial(HashMap::new);
+
+    private final LongAdder succes = new LongAdder();
+    private final LongAdder defauts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder formesInexactes = new LongAdder();
+
+    /**
+     * Constructeur d'un cache de solutions indexé par la forme canonique des grilles
+     * Deux grilles identiques à une symétrie près (renommage des chiffres, échanges de lignes, de colonnes,
+     * de bandes, de piles, transposition) partagent la même entrée.
+     * @param capacite le nombre maximal de solutions gardées
+     */
+    public CacheSolutions(int capacite) {
+        this.capacite = capacite;
+        this.solutions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GrilleCompacte, GrilleCompacte> plusAncienne) {
+                if (size() > CacheSolutions.this.capacite) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Résout une grille en passant par le cache
+     * La forme canonique est calculée hors du verrou, puis résolue par Dancing Links en cas de défaut.
+     * La solution gardée est celle de la forme canonique : elle est ramenée dans le repère de la grille.
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     * @return une nouvelle grille résolue, null si la grille n'a pas de solution
+     */
+    public GrilleCompacte resoudre(GrilleCompacte grille) {
+        return resoudre(grille, Echeance.aucune());
+    }
+
+    /**
+     * Résout une grille en passant par le cache, la résolution en cas de défaut étant bornée par une échéance
+     * Une recherche interrompue ne laisse rien dans le cache.
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     * @param echeance l'échéance de la résolution
+     * @return une nouvelle grille résolue, null si la grille n'a pas de solution ou si la recherche
+     *         a été interrompue (echeance.estDepassee() le dit alors)
+     */
+    public GrilleCompacte resoudre(GrilleCompacte grille, Echeance echeance) {
+        FormeCanonique forme = FormeCanonique.calculer(grille);
+        if (!forme.estExacte()) {
+            formesInexactes.increment();
+        }
+
+        GrilleCompacte solution;
+        synchronized (solutions) {
+            solution = solutions.get(forme.getGrille());
+        }
+        if (solution != null) {
+            succes.increment();
+            return forme.versOrigine(solution);
+        }
+        defauts.increment();
+
+        GrilleCompacte canonique = forme.getGrille();
+        int tailleSousGrille = canonique.getGeometrie().getTailleSousGrille();
+        ResolveurDLX resolveur = resolveurs.get().computeIfAbsent(tailleSousGrille, ResolveurDLX::new);
+        resolveur.charger(canonique);
+        resolveur.setEcheance(echeance);
+        if (!resolveur.resoudre()) {
+            return null;
+        }
+        solution = new GrilleCompacte(canonique.getGeometrie());
+        resolveur.copierSolution(solution);
+        synchronized (solutions) {
+            solutions.put(canonique, solution);
+        }
+        return forme.versOrigine(solution);
+    }
+
+    /**
+     * Vide le cache et remet les compteurs à zéro
+     */
+    public void vider() {
+        synchronized (solutions) {
+            solutions.clear();
+        }
+        succes.reset();
+        defauts.reset();
+        evictions.reset();
+        formesInexactes.reset();
+    }
+
+    /**
+     * Récupère le nombre de grilles trouvées dans le cache
+     * @return le nombre de succès
+     */
+    public long getSucces() {
+        return this.succes.sum();
+    }
+
+    /**
+     * Récupère le nombre de grilles absentes du cache, résolues puis ajoutées
+     * @return le nombre de défauts
+     */
+    public long getDefauts() {
+        return this.defauts.sum();
+    }
+
+    /**
+     * Récupère le nombre de solutions évincées faute de place
+     * @return le nombre d'évictions
+     */
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Récupère le nombre de grilles dont les égalités n'ont pas toutes été départagées
+     * @return le nombre de formes inexactes
+     */
+    public long getFormesInexactes() {
+        return this.formesInexactes.sum();
+    }
+
+    /**
+     * Calcule la proportion des grilles trouvées dans le cache
+     * @return le taux de succès, entre 0 et 1
+     */
+    public double getTauxSucces() {
+        long succes = getSucces();
+        long total = succes + getDefauts();
+        return total == 0 ? 0 : (double) succes / total;
+    }
+
+    /**
+     * Récupère le nombre de solutions gardées
+     * @return la taille du cache
+     */
+    public int getTaille() {
+        synchronized (solutions) {
+            return solutions.size();
+        }
+    }
+
+    /**
+     * Résume l'activité du cache sur une ligne
+     * @return le résumé
+     */
+    public String resume() {
+        return String.format("Cache: %d/%d solutions, taux de succès %.1f %% (%d succès, %d défauts), "
+                        + "%d évictions, %d formes inexactes",
+                getTaille(), capacite, 100 * getTauxSucces(), getSucces(), getDefauts(), getEvictions(),
+                getFormesInexactes());
+    }
+}
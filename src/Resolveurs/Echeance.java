@@ -0,0 +1,122 @@
+package src.Resolveurs;
+
+import java.util.concurrent.TimeUnit;
+
+public final class Echeance {
+
+    private static final long SANS_LIMITE = Long.MAX_VALUE;
+
+    // Instant limite (System.nanoTime), SANS_LIMITE si aucun délai
+    private final long limiteNanos;
+    private final long budget;
+    private volatile boolean annulee;
+
+    /**
+     * Constructeur d'une échéance
+     * @param limiteNanos l'instant limite en System.nanoTime, SANS_LIMITE si aucun délai
+     * @param budget le nombre maximal d'itérations ou de noeuds, SANS_LIMITE si aucun
+     */
+    private Echeance(long limiteNanos, long budget) {
+        this.limiteNanos = limiteNanos;
+        this.budget = budget;
+    }
+
+    /**
+     * Crée une échéance sans délai ni budget : la résolution ne s'arrête que si elle est annulée
+     * ou si son thread est interrompu
+     * @return l'échéance
+     */
+    public static Echeance aucune() {
+        return new Echeance(SANS_LIMITE, SANS_LIMITE);
+    }
+
+    /**
+     * Crée une échéance qui expire après un délai compté à partir de maintenant
+     * @param delai le délai
+     * @param unite l'unité du délai
+     * @return l'échéance
+     */
+    public static Echeance dans(long delai, TimeUnit unite) {
+        return new Echeance(System.nanoTime() + unite.toNanos(delai), SANS_LIMITE);
+    }
+
+    /**
+     * Crée une échéance de même délai limitée à un nombre d'itérations (recherche locale, recuit simulé)
+     * ou de noeuds (recherches complètes)
+     * @param budget le nombre maximal d'itérations ou de noeuds
+     * @return la nouvelle échéance (l'annulation de l'une n'annule pas l'autre)
+     */
+    public Echeance avecBudget(long budget) {
+        return new Echeance(limiteNanos, budget);
+    }
+
+    /**
+     * Demande l'arrêt des résolutions qui surveillent cette échéance, depuis n'importe quel thread
+     */
+    public void annuler() {
+        this.annulee = true;
+    }
+
+    /**
+     * Vérifie si la résolution doit s'arrêter : annulation, délai dépassé ou thread interrompu
+     * Les moteurs appellent cette méthode toutes les quelques centaines de noeuds, pas à chaque noeud.
+     * @return true si la résolution doit s'arrêter, false sinon
+     */
+    public boolean estDepassee() {
+        return annulee
+                || (limiteNanos != SANS_LIMITE && System.nanoTime() - limiteNanos >= 0)
+                || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Vérifie si la résolution doit s'arrêter, budget compris
+     * @param noeuds le nombre d'itérations ou de noeuds déjà effectués
+     * @return true si la résolution doit s'arrêter, false sinon
+     */
+    public boolean estDepassee(long noeuds) {
+        return noeuds >= budget || estDepassee();
+    }
+
+    /**
+     * Vérifie si un noeud dépasse le budget ; assez léger pour être appelé à chaque noeud, contrairement
+     * à estDepassee() qui lit l'horloge
+     * @param noeuds le numéro du noeud qui commence, en comptant à partir de 1
+     * @return true si ce noeud n'entre plus dans le budget, false sinon
+     */
+    public boolean depasseBudget(long noeuds) {
+        return noeuds > budget;
+    }
+
+    /**
+     * Indique si l'échéance a un budget d'itérations ou de noeuds
+     * @return true si un budget a été fixé, false sinon
+     */
+    public boolean aUnBudget() {
+        return budget != SANS_LIMITE;
+    }
+
+    /**
+     * Récupère le budget d'itérations ou de noeuds
+     * @param parDefaut la valeur à utiliser si l'échéance n'a pas de budget
+     * @return le budget
+     */
+    public long getBudget(long parDefaut) {
+        return budget == SANS_LIMITE ? parDefaut : budget;
+    }
+
+    /**
+     * Indique si l'échéance a un délai
+     * @return true si un délai a été fixé, false sinon
+     */
+    public boolean aUnDelai() {
+        return limiteNanos != SANS_LIMITE;
+    }
+
+    /**
+     * Calcule le temps restant avant l'expiration du délai
+     * @return le temps restant en nanosecondes (0 si expiré), Long.MAX_VALUE sans délai
+     */
+    public long getRestantNanos() {
+        return limiteNanos == SANS_LIMITE ? Long.MAX_VALUE : Math.max(0, limiteNanos - System.nanoTime());
+    }
+}
@@ -0,0 +1,362 @@
+package src.Resolveurs;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import src.Grilles.Geometrie;
+import src.Grilles.GrilleCompacte;
+import src.Metriques.Mesure;
+import src.Metriques.Metriques;
+
+public class EnumerateurSolutions {
+
+    private final GrilleCompacte grille;
+    private Echeance echeance = Echeance.aucune();
+    // Levé quand un parcours s'arrête sur l'échéance : le compte ou le flux est alors incomplet
+    private volatile boolean interrompu;
+
+    /**
+     * Constructeur d'un énumérateur des solutions d'une grille
+     * @param grille la grille dont on veut les solutions (elle n'est pas modifiée)
+     */
+    public EnumerateurSolutions(GrilleCompacte grille) {
+        this.grille = grille.copie();
+    }
+
+    /**
+     * Constructeur d'un énumérateur des solutions d'une grille int[][]
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille dont on veut les solutions (elle est copiée)
+     */
+    public EnumerateurSolutions(int tailleSousGrille, int[][] grille) {
+        this.grille = new GrilleCompacte(tailleSousGrille);
+        this.grille.charger(grille);
+    }
+
+    /**
+     * Fixe l'échéance surveillée par les parcours (délai, budget de noeuds, annulation)
+     * @param echeance l'échéance
+     */
+    public void setEcheance(Echeance echeance) {
+        this.echeance = echeance;
+    }
+
+    /**
+     * Flux paresseux des solutions : la recherche n'avance que lorsque le flux demande l'élément suivant
+     * Chaque solution est une nouvelle grille. En parallèle, l'arbre de recherche est découpé entre les
+     * threads au niveau le moins profond qui a encore des candidats à essayer ; l'ordre n'est alors plus
+     * celui de la recherche séquentielle.
+     * @param parallele true pour un flux parallèle
+     * @return le flux des solutions
+     */
+    public Stream<GrilleCompacte> solutions(boolean parallele) {
+        interrompu = false;
+        return StreamSupport.stream(new Parcours(this, grille, echeance), parallele);
+    }
+
+    /**
+     * Parcourt les solutions en les passant à un visiteur, sans créer de grille
+     * La grille passée au visiteur est la grille de travail : elle ne doit pas être modifiée ni gardée,
+     * il faut la copier pour la conserver.
+     * @param limite le nombre maximal de solutions à parcourir
+     * @param visiteur reçoit chaque solution et renvoie false pour arrêter le parcours
+     * @return le nombre de solutions parcourues
+     */
+    public long parcourir(long limite, Predicate<GrilleCompacte> visiteur) {
+        interrompu = false;
+        Parcours parcours = new Parcours(this, grille, echeance);
+        Mesure mesure = new Mesure();
+        mesure.reinitialiser();
+        long nombre = 0;
+        while (nombre < limite && parcours.suivante()) {
+            if (nombre++ == 0) {
+                mesure.solutionTrouvee();
+            }
+            if (visiteur != null && !visiteur.test(parcours.grille)) {
+                break;
+            }
+        }
+        mesure.ajouterNoeuds(parcours.noeuds);
+        Metriques.publier("enumeration", mesure);
+        return nombre;
+    }
+
+    /**
+     * Compte les solutions sans jamais créer de grille
+     * @param limite le nombre maximal de solutions à compter
+     * @return le nombre de solutions, au plus limite
+     */
+    public long compter(long limite) {
+        return parcourir(limite, null);
+    }
+
+    /**
+     * Compte les solutions en découpant l'arbre de recherche entre plusieurs threads (fork/join)
+     * @param limite le nombre maximal de solutions à compter
+     * @param parallelisme le nombre de threads
+     * @return le nombre de solutions, au plus limite
+     */
+    public long compterEnParallele(long limite, int parallelisme) {
+        ResolveurParallele resolveur = new ResolveurParallele(grille, parallelisme, 4);
+        resolveur.setEcheance(echeance);
+        long nombre = resolveur.compterSolutions(limite);
+        interrompu = resolveur.estInterrompue();
+        return nombre;
+    }
+
+    /**
+     * Indique si le dernier parcours, comptage ou flux a été arrêté par son échéance
+     * Le nombre renvoyé n'est alors qu'une borne inférieure, et le flux s'est terminé avant la fin de l'arbre.
+     * @return true si l'énumération a été interrompue, false si elle est complète (ou arrêtée par sa limite)
+     */
+    public boolean estInterrompu() {
+        return this.interrompu;
+    }
+
+    /**
+     * Recherche itérative (pile explicite) sur la case la plus contrainte, qui peut s'arrêter après
+     * chaque solution et céder une partie de l'arbre qui lui reste
+     */
+    private static final class Parcours implements Spliterator<GrilleCompacte> {
+
+        private final EnumerateurSolutions enumerateur;
+        private final Geometrie geometrie;
+        private final int[] lignes;
+        private final int[] colonnes;
+        private final int[] sousGrilles;
+        private final long pleine;
+        private final GrilleCompacte grille;
+        private final Echeance echeance;
+        private final byte[] cases;
+        private final long[] masqueLignes;
+        private final long[] masqueColonnes;
+        private final long[] masqueSousGrilles;
+
+        // Pile des choix : la case, les candidats pas encore essayés et le bit de la valeur placée (0 si aucune)
+        private final int[] casesPile;
+        private final long[] restants;
+        private final long[] valeurs;
+        private int profondeur;
+        // Les niveaux sous la base appartiennent au parcours dont celui-ci a été détaché
+        private int base;
+        private boolean commence;
+        private boolean coherente = true;
+        private boolean solutionInitiale;
+        private long noeuds;
+        // Taille inconnue : l'estimation est divisée par deux à chaque découpage pour que le flux parallèle
+        // arrête de découper après quelques niveaux
+        private long estimation = Long.MAX_VALUE;
+
+        Parcours(EnumerateurSolutions enumerateur, GrilleCompacte depart, Echeance echeance) {
+            this.enumerateur = enumerateur;
+            this.echeance = echeance;
+            this.geometrie = depart.getGeometrie();
+            this.lignes = geometrie.getLignes();
+            this.colonnes = geometrie.getColonnes();
+            this.sousGrilles = geometrie.getSousGrilles();
+            this.pleine = geometrie.getPleine();
+            this.grille = depart.copie();
+            this.cases = grille.getCases();
+            int tailleGrille = geometrie.getTailleGrille();
+            this.masqueLignes = new long[tailleGrille];
+            this.masqueColonnes = new long[tailleGrille];
+            this.masqueSousGrilles = new long[tailleGrille];
+            this.casesPile = new int[cases.length + 1];
+            this.restants = new long[cases.length + 1];
+            this.valeurs = new long[cases.length + 1];
+
+            for (int indice = 0; indice < cases.length; indice++) {
+                if (cases[indice] != 0) {
+                    long bit = 1L << (cases[indice] - 1);
+                    if ((candidatsBruts(indice) & bit) == 0) {
+                        coherente = false;
+                    }
+                    masquer(indice, bit);
+                }
+            }
+        }
+
+        /**
+         * Copie d'un parcours dont on détache un niveau
+         */
+        private Parcours(Parcours parent, int niveau, long candidats) {
+            this(parent.enumerateur, parent.grille, parent.echeance);
+            // La copie reçoit les valeurs placées sous le niveau, et plus rien au-dessus
+            for (int k = parent.profondeur - 1; k >= niveau; k--) {
+                if (parent.valeurs[k] != 0) {
+                    int indice = parent.casesPile[k];
+                    cases[indice] = 0;
+                    masquer(indice, parent.valeurs[k]);
+                }
+            }
+            System.arraycopy(parent.casesPile, 0, casesPile, 0, niveau + 1);
+            restants[niveau] = candidats;
+            valeurs[niveau] = 0;
+            profondeur = niveau + 1;
+            base = niveau;
+            commence = true;
+        }
+
+        /**
+         * Avance jusqu'à la solution suivante, laissée dans la grille de travail
+         * @return true si une solution a été trouvée, false si le parcours est terminé
+         */
+        boolean suivante() {
+            if (!commence) {
+                demarrer();
+            }
+            if (solutionInitiale) {
+                solutionInitiale = false;
+                return true;
+            }
+            while (profondeur > base) {
+                // Le budget est vérifié à chaque noeud, le reste de l'échéance régulièrement
+                if (echeance.depasseBudget(++noeuds) || ((noeuds & 1023) == 0 && echeance.estDepassee())) {
+                    enumerateur.interrompu = true;
+                    profondeur = base;
+                    return false;
+                }
+                int niveau = profondeur - 1;
+                int indice = casesPile[niveau];
+                if (valeurs[niveau] != 0) {
+                    cases[indice] = 0;
+                    masquer(indice, valeurs[niveau]);
+                    valeurs[niveau] = 0;
+                }
+                if (restants[niveau] == 0) {
+                    profondeur--;
+                    continue;
+                }
+                long bit = restants[niveau] & -restants[niveau];
+                restants[niveau] ^= bit;
+                cases[indice] = (byte) (Long.numberOfTrailingZeros(bit) + 1);
+                masquer(indice, bit);
+                valeurs[niveau] = bit;
+
+                int suivante = plusContrainte();
+                if (suivante < 0) {
+                    return true;
+                }
+                // Une case sans candidat est une impasse : le tour suivant défait ce niveau
+                if (candidats(suivante) != 0) {
+                    empiler(suivante);
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Empile la première case à remplir
+         */
+        private void demarrer() {
+            commence = true;
+            if (coherente) {
+                int indice = plusContrainte();
+                if (indice < 0) {
+                    // La grille de départ est déjà complète : c'est sa seule solution
+                    solutionInitiale = true;
+                } else {
+                    empiler(indice);
+                }
+            }
+        }
+
+        private void empiler(int indice) {
+            casesPile[profondeur] = indice;
+            restants[profondeur] = candidats(indice);
+            valeurs[profondeur] = 0;
+            profondeur++;
+        }
+
+        /**
+         * Cherche la case vide qui a le moins de candidats
+         * @return l'indice de la case, -1 si la grille est complète
+         */
+        private int plusContrainte() {
+            int meilleure = -1;
+            int meilleurNombre = Integer.MAX_VALUE;
+            for (int indice = 0; indice < cases.length; indice++) {
+                if (cases[indice] == 0) {
+                    int nombre = Long.bitCount(candidats(indice));
+                    if (nombre < meilleurNombre) {
+                        meilleure = indice;
+                        meilleurNombre = nombre;
+                        if (nombre <= 1) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return meilleure;
+        }
+
+        private long candidats(int indice) {
+            return candidatsBruts(indice) & pleine;
+        }
+
+        private long candidatsBruts(int indice) {
+            return ~(masqueLignes[lignes[indice]] | masqueColonnes[colonnes[indice]]
+                    | masqueSousGrilles[sousGrilles[indice]]);
+        }
+
+        /**
+         * Ajoute ou retire (ou exclusif) une valeur des masques des unités d'une case
+         */
+        private void masquer(int indice, long bit) {
+            masqueLignes[lignes[indice]] ^= bit;
+            masqueColonnes[colonnes[indice]] ^= bit;
+            masqueSousGrilles[sousGrilles[indice]] ^= bit;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super GrilleCompacte> action) {
+            if (!suivante()) {
+                return false;
+            }
+            action.accept(grille.copie());
+            return true;
+        }
+
+        /**
+         * Détache la moitié des candidats pas encore essayés du niveau le moins profond qui en a
+         * @return le parcours détaché, null s'il n'y a plus rien à partager
+         */
+        @Override
+        public Spliterator<GrilleCompacte> trySplit() {
+            if (!commence) {
+                demarrer();
+            }
+            for (int niveau = base; niveau < profondeur; niveau++) {
+                long candidats = restants[niveau];
+                int nombre = Long.bitCount(candidats);
+                if (nombre > 0) {
+                    // Les candidats de poids fort partent, le parcours courant garde les autres
+                    long detaches = 0;
+                    for (int k = 0; k < (nombre + 1) / 2; k++) {
+                        long bit = Long.highestOneBit(candidats);
+                        candidats ^= bit;
+                        detaches |= bit;
+                    }
+                    restants[niveau] = candidats;
+                    estimation >>>= 1;
+                    Parcours detache = new Parcours(this, niveau, detaches);
+                    detache.estimation = estimation;
+                    return detache;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimation;
+        }
+
+        @Override
+        public int characteristics() {
+            return DISTINCT | NONNULL;
+        }
+    }
+}
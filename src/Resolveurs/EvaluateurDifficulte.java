@@ -0,0 +1,781 @@
+package src.Resolveurs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import src.Grilles.Geometrie;
+import src.Grilles.GrilleCompacte;
+
+public class EvaluateurDifficulte {
+
+    /**
+     * Technique de résolution humaine, de la plus simple à la plus difficile : c'est l'ordre de l'échelle,
+     * et les niveaux y sont croissants
+     */
+    public enum Technique {
+        /** La case n'a plus qu'un candidat */
+        SINGLETON_NU(1, Niveau.FACILE),
+        /** La valeur n'a plus qu'une case possible dans une unité */
+        SINGLETON_CACHE(2, Niveau.FACILE),
+        /** Les candidats d'une valeur sont tous dans l'intersection d'une sous-grille et d'une ligne ou colonne */
+        CANDIDATS_VERROUILLES(4, Niveau.MOYEN),
+        /** Deux cases d'une unité n'ont que les deux mêmes candidats */
+        PAIRE_NUE(6, Niveau.DIFFICILE),
+        /** Deux valeurs d'une unité n'ont que les deux mêmes cases possibles */
+        PAIRE_CACHEE(7, Niveau.DIFFICILE),
+        /** Trois cases d'une unité n'ont à elles trois que trois candidats */
+        TRIPLET_NU(8, Niveau.DIFFICILE),
+        /** Trois valeurs d'une unité n'ont à elles trois que trois cases possibles */
+        TRIPLET_CACHE(9, Niveau.DIFFICILE),
+        /** Une valeur n'a, sur deux lignes, que les deux mêmes colonnes possibles (ou l'inverse) */
+        X_WING(10, Niveau.EXPERT),
+        /** Une valeur n'a, sur trois lignes, que trois colonnes possibles en tout (ou l'inverse) */
+        SWORDFISH(12, Niveau.EXPERT);
+
+        private final int poids;
+        private final Niveau niveau;
+
+        Technique(int poids, Niveau niveau) {
+            this.poids = poids;
+            this.niveau = niveau;
+        }
+
+        public int getPoids() {
+            return this.poids;
+        }
+
+        public Niveau getNiveau() {
+            return this.niveau;
+        }
+    }
+
+    /**
+     * Niveau d'une grille, donné par la technique la plus difficile dont elle a eu besoin
+     */
+    public enum Niveau {
+        /** Singletons nus et cachés seulement */
+        FACILE,
+        /** Candidats verrouillés */
+        MOYEN,
+        /** Paires et triplets, nus ou cachés */
+        DIFFICILE,
+        /** X-wing et swordfish */
+        EXPERT,
+        /** L'échelle ne suffit pas : il faut une recherche */
+        HORS_ECHELLE,
+        /** La grille contient une contradiction */
+        INVALIDE
+    }
+
+    /**
+     * Résultat de l'évaluation d'une grille : nombre d'applications de chaque technique, score et niveau
+     */
+    public static final class Evaluation {
+
+        private final int[] applications;
+        private final int casesRestantes;
+        private final boolean contradiction;
+
+        private Evaluation(int[] applications, int casesRestantes, boolean contradiction) {
+            this.applications = applications;
+            this.casesRestantes = casesRestantes;
+            this.contradiction = contradiction;
+        }
+
+        /**
+         * Récupère le nombre d'applications d'une technique (une par case placée pour les singletons,
+         * une par motif qui a éliminé des candidats pour les autres)
+         * @param technique la technique
+         * @return le nombre d'applications
+         */
+        public int getApplications(Technique technique) {
+            return applications[technique.ordinal()];
+        }
+
+        /**
+         * Récupère la technique la plus difficile dont la grille a eu besoin
+         * @return la technique, null si la grille était déjà complète
+         */
+        public Technique getTechniqueMax() {
+            for (int t = TECHNIQUES.length - 1; t >= 0; t--) {
+                if (applications[t] > 0) {
+                    return TECHNIQUES[t];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Calcule le score de la grille : la somme des poids des techniques appliquées, plus un poids
+         * supérieur à celui de toute technique pour chaque case que l'échelle n'a pas su remplir
+         * @return le score, 0 pour une grille déjà complète
+         */
+        public int getScore() {
+            int score = 0;
+            for (int t = 0; t < TECHNIQUES.length; t++) {
+                score += applications[t] * TECHNIQUES[t].getPoids();
+            }
+            return score + casesRestantes * POIDS_CASE_RESTANTE;
+        }
+
+        /**
+         * Calcule le niveau de la grille : le plus élevé des niveaux des techniques employées
+         * @return le niveau, HORS_ECHELLE si l'échelle n'a pas suffi, INVALIDE en cas de contradiction
+         */
+        public Niveau getNiveau() {
+            if (contradiction) {
+                return Niveau.INVALIDE;
+            }
+            if (casesRestantes > 0) {
+                return Niveau.HORS_ECHELLE;
+            }
+            Niveau niveau = Niveau.FACILE;
+            for (int t = 0; t < TECHNIQUES.length; t++) {
+                if (applications[t] > 0 && TECHNIQUES[t].getNiveau().compareTo(niveau) > 0) {
+                    niveau = TECHNIQUES[t].getNiveau();
+                }
+            }
+            return niveau;
+        }
+
+        public boolean estResolue() {
+            return !contradiction && casesRestantes == 0;
+        }
+
+        public int getCasesRestantes() {
+            return this.casesRestantes;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder texte = new StringBuilder();
+            texte.append(getNiveau()).append(" (score ").append(getScore()).append(')');
+            for (int t = 0; t < TECHNIQUES.length; t++) {
+                if (applications[t] > 0) {
+                    texte.append(' ').append(TECHNIQUES[t]).append('=').append(applications[t]);
+                }
+            }
+            if (casesRestantes > 0 && !contradiction) {
+                texte.append(" cases restantes=").append(casesRestantes);
+            }
+            return texte.toString();
+        }
+    }
+
+    private static final Technique[] TECHNIQUES = Technique.values();
+    private static final int POIDS_CASE_RESTANTE = 20;
+
+    private final Geometrie geometrie;
+    private final int tailleGrille;
+    private final long pleine;
+    private final int[][] unites;
+    private final int[] lignes;
+    private final int[] colonnes;
+    private final int[] sousGrilles;
+    // Intersections d'une sous-grille et d'une ligne ou colonne : leurs cases, le reste de la sous-grille,
+    // le reste de la ligne ou de la colonne
+    private final int[][] intersections;
+    private final int[][] restesSousGrille;
+    private final int[][] restesLigne;
+
+    // Etat de l'évaluation en cours, réutilisé d'une grille à l'autre
+    private final byte[] cases;
+    private final long[] candidats;
+    private final int[] applications = new int[TECHNIQUES.length];
+    private int vides;
+    private boolean contradiction;
+    // Tampons des candidats initiaux, des sous-ensembles et des poissons
+    private final long[] presents;
+    private final int[] elements;
+    private final long[] masques;
+    private final long[] positions;
+
+    /**
+     * Constructeur d'un évaluateur de difficulté, à réutiliser pour toutes les grilles d'une même taille
+     * Un évaluateur n'est pas partagé entre threads : evaluerLot() en donne un à chaque thread.
+     * @param tailleSousGrille la taille de la sous-grille
+     */
+    public EvaluateurDifficulte(int tailleSousGrille) {
+        this.geometrie = Geometrie.pour(tailleSousGrille);
+        this.tailleGrille = geometrie.getTailleGrille();
+        this.pleine = geometrie.getPleine();
+        this.unites = geometrie.getUnites();
+        this.lignes = geometrie.getLignes();
+        this.colonnes = geometrie.getColonnes();
+        this.sousGrilles = geometrie.getSousGrilles();
+        this.cases = new byte[geometrie.getNombreCases()];
+        this.candidats = new long[geometrie.getNombreCases()];
+        this.presents = new long[unites.length];
+        this.elements = new int[tailleGrille];
+        this.masques = new long[tailleGrille];
+        this.positions = new long[tailleGrille];
+
+        int nombre = 2 * tailleGrille * tailleSousGrille;
+        this.intersections = new int[nombre][];
+        this.restesSousGrille = new int[nombre][];
+        this.restesLigne = new int[nombre][];
+        int k = 0;
+        for (int b = 0; b < tailleGrille; b++) {
+            int[] sousGrille = unites[2 * tailleGrille + b];
+            int ligneDepart = (b / tailleSousGrille) * tailleSousGrille;
+            int colDepart = (b % tailleSousGrille) * tailleSousGrille;
+            for (int s = 0; s < tailleSousGrille; s++) {
+                preparerIntersection(k++, sousGrille, unites[ligneDepart + s], b);
+                preparerIntersection(k++, sousGrille, unites[tailleGrille + colDepart + s], b);
+            }
+        }
+    }
+
+    /**
+     * Range les cases de l'intersection d'une sous-grille et d'une ligne ou colonne, et les restes des deux unités
+     */
+    private void preparerIntersection(int k, int[] sousGrille, int[] ligne, int b) {
+        int tailleSousGrille = geometrie.getTailleSousGrille();
+        intersections[k] = new int[tailleSousGrille];
+        restesSousGrille[k] = new int[tailleGrille - tailleSousGrille];
+        restesLigne[k] = new int[tailleGrille - tailleSousGrille];
+        int dedans = 0;
+        int reste = 0;
+        for (int indice : ligne) {
+            if (sousGrilles[indice] == b) {
+                intersections[k][dedans++] = indice;
+            } else {
+                restesLigne[k][reste++] = indice;
+            }
+        }
+        reste = 0;
+        for (int indice : sousGrille) {
+            boolean dansLigne = ligne == unites[lignes[indice]] || ligne == unites[tailleGrille + colonnes[indice]];
+            if (!dansLigne) {
+                restesSousGrille[k][reste++] = indice;
+            }
+        }
+    }
+
+    /**
+     * Evalue une grille sous forme int[][]
+     * @param grille la grille (0 pour une case vide), qui n'est pas modifiée
+     * @return l'évaluation
+     */
+    public Evaluation evaluer(int[][] grille) {
+        return evaluer(GrilleCompacte.depuis(grille));
+    }
+
+    /**
+     * Résout une grille avec la seule échelle des techniques humaines, en revenant à la plus simple
+     * après chaque progrès, et compte les techniques employées
+     * @param grille la grille (0 pour une case vide), qui n'est pas modifiée
+     * @return l'évaluation
+     */
+    public Evaluation evaluer(GrilleCompacte grille) {
+        if (grille.getGeometrie() != geometrie) {
+            throw new IllegalArgumentException("La grille n'a pas la taille de l'évaluateur");
+        }
+        System.arraycopy(grille.getCases(), 0, cases, 0, cases.length);
+        Arrays.fill(applications, 0);
+        initialiserCandidats();
+
+        while (vides > 0 && !contradiction) {
+            boolean progres = false;
+            for (int t = 0; t < TECHNIQUES.length && !progres && !contradiction; t++) {
+                int nombre = appliquer(TECHNIQUES[t]);
+                applications[t] += nombre;
+                progres = nombre > 0;
+            }
+            if (!progres) {
+                break;
+            }
+        }
+        return new Evaluation(applications.clone(), vides, contradiction);
+    }
+
+    /**
+     * Evalue un lot de grilles d'une même taille en parallèle
+     * Le lot est coupé en tranches contiguës, une par thread, chacune avec son propre évaluateur.
+     * @param grilles les grilles
+     * @param parallelisme le nombre de threads
+     * @return les évaluations, dans l'ordre des grilles
+     */
+    public static List<Evaluation> evaluerLot(List<GrilleCompacte> grilles, int parallelisme) {
+        Evaluation[] evaluations = new Evaluation[grilles.size()];
+        if (grilles.isEmpty()) {
+            return List.of();
+        }
+        int tailleSousGrille = grilles.get(0).getGeometrie().getTailleSousGrille();
+        int tranches = Math.max(1, Math.min(parallelisme, grilles.size()));
+        List<Callable<Void>> taches = new ArrayList<>(tranches);
+        for (int tranche = 0; tranche < tranches; tranche++) {
+            int debut = (int) ((long) grilles.size() * tranche / tranches);
+            int fin = (int) ((long) grilles.size() * (tranche + 1) / tranches);
+            taches.add(() -> {
+                EvaluateurDifficulte evaluateur = new EvaluateurDifficulte(tailleSousGrille);
+                for (int k = debut; k < fin; k++) {
+                    evaluations[k] = evaluateur.evaluer(grilles.get(k));
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executeur = Executors.newFixedThreadPool(tranches);
+        try {
+            for (Future<Void> future : executeur.invokeAll(taches)) {
+                future.get();
+            }
+            return List.of(evaluations);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluation interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation impossible", e.getCause());
+        } finally {
+            executeur.shutdownNow();
+        }
+    }
+
+    /**
+     * Applique une passe d'une technique sur toute la grille
+     * @param technique la technique
+     * @return le nombre d'applications, 0 si la technique n'a rien donné
+     */
+    private int appliquer(Technique technique) {
+        switch (technique) {
+            case SINGLETON_NU:
+                return singletonsNus();
+            case SINGLETON_CACHE:
+                return singletonsCaches();
+            case CANDIDATS_VERROUILLES:
+                return candidatsVerrouilles();
+            case PAIRE_NUE:
+                return sousEnsemblesNus(2);
+            case PAIRE_CACHEE:
+                return sousEnsemblesCaches(2);
+            case TRIPLET_NU:
+                return sousEnsemblesNus(3);
+            case TRIPLET_CACHE:
+                return sousEnsemblesCaches(3);
+            case X_WING:
+                return poissons(2);
+            case SWORDFISH:
+                return poissons(3);
+            default:
+                throw new IllegalStateException("Technique inconnue : " + technique);
+        }
+    }
+
+    //region ETAT DES CANDIDATS
+
+    /**
+     * Calcule les candidats de chaque case vide à partir des valeurs déjà placées
+     */
+    private void initialiserCandidats() {
+        contradiction = false;
+        vides = 0;
+        for (int u = 0; u < unites.length; u++) {
+            presents[u] = 0;
+            for (int indice : unites[u]) {
+                int valeur = cases[indice];
+                if (valeur != 0) {
+                    long bit = 1L << (valeur - 1);
+                    if ((presents[u] & bit) != 0) {
+                        contradiction = true;
+                    }
+                    presents[u] |= bit;
+                }
+            }
+        }
+        for (int indice = 0; indice < cases.length; indice++) {
+            if (cases[indice] != 0) {
+                candidats[indice] = 0;
+                continue;
+            }
+            long interdits = presents[lignes[indice]] | presents[tailleGrille + colonnes[indice]]
+                    | presents[2 * tailleGrille + sousGrilles[indice]];
+            candidats[indice] = pleine & ~interdits;
+            vides++;
+            if (candidats[indice] == 0) {
+                contradiction = true;
+            }
+        }
+    }
+
+    /**
+     * Place une valeur dans une case et la retire des candidats de ses voisines
+     * @return true si la valeur était candidate, false sinon (la grille est alors contradictoire)
+     */
+    private boolean placer(int indice, int valeur) {
+        long bit = 1L << (valeur - 1);
+        if ((candidats[indice] & bit) == 0) {
+            contradiction = true;
+            return false;
+        }
+        cases[indice] = (byte) valeur;
+        candidats[indice] = 0;
+        vides--;
+        eliminerDans(unites[lignes[indice]], bit);
+        eliminerDans(unites[tailleGrille + colonnes[indice]], bit);
+        eliminerDans(unites[2 * tailleGrille + sousGrilles[indice]], bit);
+        return true;
+    }
+
+    /**
+     * Retire des candidats d'une case vide
+     * @return true si au moins un candidat a été retiré, false sinon
+     */
+    private boolean eliminer(int indice, long masque) {
+        long avant = candidats[indice];
+        if ((avant & masque) == 0) {
+            return false;
+        }
+        candidats[indice] = avant & ~masque;
+        if (candidats[indice] == 0) {
+            contradiction = true;
+        }
+        return true;
+    }
+
+    /**
+     * Retire des candidats de toutes les cases vides d'une liste
+     * @return true si au moins un candidat a été retiré, false sinon
+     */
+    private boolean eliminerDans(int[] cellules, long masque) {
+        boolean progres = false;
+        for (int indice : cellules) {
+            progres |= eliminer(indice, masque);
+        }
+        return progres;
+    }
+
+    //endregion
+
+    //region TECHNIQUES
+
+    /**
+     * Place la valeur des cases qui n'ont plus qu'un seul candidat
+     * @return le nombre de cases placées
+     */
+    private int singletonsNus() {
+        int places = 0;
+        for (int indice = 0; indice < candidats.length && !contradiction; indice++) {
+            long c = candidats[indice];
+            if (c != 0 && (c & (c - 1)) == 0 && placer(indice, Long.numberOfTrailingZeros(c) + 1)) {
+                places++;
+            }
+        }
+        return places;
+    }
+
+    /**
+     * Place les valeurs qui n'ont plus qu'une seule case possible dans une unité
+     * @return le nombre de cases placées
+     */
+    private int singletonsCaches() {
+        int places = 0;
+        for (int u = 0; u < unites.length && !contradiction; u++) {
+            int[] unite = unites[u];
+            long auMoinsUne = 0;
+            long auMoinsDeux = 0;
+            long placees = 0;
+            for (int indice : unite) {
+                long c = candidats[indice];
+                auMoinsDeux |= auMoinsUne & c;
+                auMoinsUne |= c;
+                if (cases[indice] != 0) {
+                    placees |= 1L << (cases[indice] - 1);
+                }
+            }
+            // Une valeur ni placée ni candidate dans l'unité rend la grille insoluble
+            if ((auMoinsUne | placees) != pleine) {
+                contradiction = true;
+                break;
+            }
+            long uniques = auMoinsUne & ~auMoinsDeux;
+            while (uniques != 0 && !contradiction) {
+                long bit = uniques & -uniques;
+                uniques ^= bit;
+                for (int indice : unite) {
+                    if ((candidats[indice] & bit) != 0) {
+                        if (placer(indice, Long.numberOfTrailingZeros(bit) + 1)) {
+                            places++;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+        return places;
+    }
+
+    /**
+     * Elimine des candidats par pointage (une valeur de la sous-grille n'est que sur une ligne ou colonne :
+     * on la retire du reste de la ligne) et par réclamation (l'inverse)
+     * @return le nombre d'intersections qui ont éliminé des candidats
+     */
+    private int candidatsVerrouilles() {
+        int motifs = 0;
+        for (int k = 0; k < intersections.length && !contradiction; k++) {
+            long dedans = union(intersections[k]);
+            if (dedans == 0) {
+                continue;
+            }
+            long pointage = dedans & ~union(restesSousGrille[k]);
+            if (pointage != 0 && eliminerDans(restesLigne[k], pointage)) {
+                motifs++;
+            }
+            long reclamation = dedans & ~union(restesLigne[k]);
+            if (reclamation != 0 && eliminerDans(restesSousGrille[k], reclamation)) {
+                motifs++;
+            }
+        }
+        return motifs;
+    }
+
+    private long union(int[] cellules) {
+        long union = 0;
+        for (int indice : cellules) {
+            union |= candidats[indice];
+        }
+        return union;
+    }
+
+    /**
+     * Cherche dans chaque unité des sous-ensembles nus : taille cases dont l'union des candidats compte
+     * taille valeurs, qu'on retire des autres cases de l'unité
+     * @param taille la taille des sous-ensembles (2 pour les paires, 3 pour les triplets)
+     * @return le nombre de sous-ensembles qui ont éliminé des candidats
+     */
+    private int sousEnsemblesNus(int taille) {
+        int motifs = 0;
+        for (int u = 0; u < unites.length && !contradiction; u++) {
+            int nombre = 0;
+            int videsUnite = 0;
+            for (int indice : unites[u]) {
+                int compte = Long.bitCount(candidats[indice]);
+                if (compte > 0) {
+                    videsUnite++;
+                }
+                if (compte >= 2 && compte <= taille) {
+                    masques[nombre++] = candidats[indice];
+                }
+            }
+            // Il faut au moins une case hors du sous-ensemble pour éliminer quelque chose
+            if (nombre >= taille && videsUnite > taille) {
+                long union = chercherUnion(unites[u], nombre, taille, taille, 0, 0);
+                if (union != 0 && eliminerHorsSousEnsemble(unites[u], union)) {
+                    motifs++;
+                }
+            }
+        }
+        return motifs;
+    }
+
+    /**
+     * Retire les valeurs d'un sous-ensemble nu des cases de l'unité qui n'en font pas partie
+     * Les cases dont les candidats sont inclus dans l'union sont celles du sous-ensemble.
+     */
+    private boolean eliminerHorsSousEnsemble(int[] unite, long union) {
+        boolean progres = false;
+        for (int indice : unite) {
+            if ((candidats[indice] & ~union) != 0) {
+                progres |= eliminer(indice, union);
+            }
+        }
+        return progres;
+    }
+
+    /**
+     * Cherche restant masques parmi masques[debut..nombre[ dont l'union avec union compte exactement
+     * taille bits et touche une case hors du sous-ensemble, en élaguant dès que l'union dépasse
+     * @return l'union trouvée, 0 s'il n'y en a pas
+     */
+    private long chercherUnion(int[] unite, int nombre, int taille, int restant, int debut, long union) {
+        if (restant == 0) {
+            if (Long.bitCount(union) != taille) {
+                return 0;
+            }
+            for (int indice : unite) {
+                long c = candidats[indice];
+                if ((c & union) != 0 && (c & ~union) != 0) {
+                    return union;
+                }
+            }
+            return 0;
+        }
+        for (int k = debut; k <= nombre - restant; k++) {
+            long suivante = union | masques[k];
+            if (Long.bitCount(suivante) <= taille) {
+                long trouvee = chercherUnion(unite, nombre, taille, restant - 1, k + 1, suivante);
+                if (trouvee != 0) {
+                    return trouvee;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Cherche dans chaque unité des sous-ensembles cachés : taille valeurs dont les positions possibles
+     * tiennent dans taille cases, dont on retire alors tous les autres candidats
+     * @param taille la taille des sous-ensembles (2 pour les paires, 3 pour les triplets)
+     * @return le nombre de sous-ensembles qui ont éliminé des candidats
+     */
+    private int sousEnsemblesCaches(int taille) {
+        int motifs = 0;
+        for (int u = 0; u < unites.length && !contradiction; u++) {
+            int[] unite = unites[u];
+            Arrays.fill(positions, 0);
+            for (int p = 0; p < tailleGrille; p++) {
+                long c = candidats[unite[p]];
+                while (c != 0) {
+                    positions[Long.numberOfTrailingZeros(c)] |= 1L << p;
+                    c &= c - 1;
+                }
+            }
+            int nombre = 0;
+            int nonPlacees = 0;
+            for (int v = 0; v < tailleGrille; v++) {
+                int compte = Long.bitCount(positions[v]);
+                if (compte > 0) {
+                    nonPlacees++;
+                }
+                if (compte >= 2 && compte <= taille) {
+                    masques[nombre] = positions[v];
+                    elements[nombre++] = v;
+                }
+            }
+            if (nombre < taille || nonPlacees <= taille) {
+                continue;
+            }
+            long valeurs = chercherValeurs(unite, nombre, taille, taille, 0, 0, 0);
+            if (valeurs != 0) {
+                long cellules = 0;
+                for (long v = valeurs; v != 0; v &= v - 1) {
+                    cellules |= positions[Long.numberOfTrailingZeros(v)];
+                }
+                boolean progres = false;
+                for (long p = cellules; p != 0; p &= p - 1) {
+                    progres |= eliminer(unite[Long.numberOfTrailingZeros(p)], ~valeurs);
+                }
+                if (progres) {
+                    motifs++;
+                }
+            }
+        }
+        return motifs;
+    }
+
+    /**
+     * Cherche restant valeurs parmi elements[debut..nombre[ dont les positions réunies comptent exactement
+     * taille cases, et dont une au moins porte d'autres candidats à retirer
+     * @return le masque des valeurs trouvées, 0 s'il n'y en a pas
+     */
+    private long chercherValeurs(int[] unite, int nombre, int taille, int restant, int debut, long union, long valeurs) {
+        if (restant == 0) {
+            if (Long.bitCount(union) != taille) {
+                return 0;
+            }
+            for (long p = union; p != 0; p &= p - 1) {
+                if ((candidats[unite[Long.numberOfTrailingZeros(p)]] & ~valeurs) != 0) {
+                    return valeurs;
+                }
+            }
+            return 0;
+        }
+        for (int k = debut; k <= nombre - restant; k++) {
+            long suivante = union | masques[k];
+            if (Long.bitCount(suivante) <= taille) {
+                long trouvees = chercherValeurs(unite, nombre, taille, restant - 1, k + 1, suivante,
+                        valeurs | 1L << elements[k]);
+                if (trouvees != 0) {
+                    return trouvees;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Cherche les poissons de chaque valeur : taille lignes où la valeur n'a ses positions que dans
+     * taille colonnes (ou l'inverse) ; la valeur est retirée du reste de ces colonnes
+     * @param taille 2 pour le X-wing, 3 pour le swordfish
+     * @return le nombre de poissons qui ont éliminé des candidats
+     */
+    private int poissons(int taille) {
+        int motifs = 0;
+        for (int v = 0; v < tailleGrille && !contradiction; v++) {
+            long bit = 1L << v;
+            for (int base = 0; base <= tailleGrille && !contradiction; base += tailleGrille) {
+                int couverture = tailleGrille - base;
+                int nombre = 0;
+                for (int k = 0; k < tailleGrille; k++) {
+                    long occupees = 0;
+                    int[] unite = unites[base + k];
+                    for (int p = 0; p < tailleGrille; p++) {
+                        if ((candidats[unite[p]] & bit) != 0) {
+                            occupees |= 1L << p;
+                        }
+                    }
+                    int compte = Long.bitCount(occupees);
+                    if (compte >= 2 && compte <= taille) {
+                        masques[nombre] = occupees;
+                        elements[nombre++] = k;
+                    }
+                }
+                if (nombre < taille) {
+                    continue;
+                }
+                long lignesBase = chercherPoisson(nombre, taille, taille, 0, 0, 0, bit, couverture);
+                if (lignesBase != 0) {
+                    motifs++;
+                }
+            }
+        }
+        return motifs;
+    }
+
+    /**
+     * Cherche restant lignes de base parmi elements[debut..nombre[ dont les positions réunies tiennent dans
+     * taille lignes de couverture, et applique la première qui élimine un candidat
+     * Dans une unité de couverture, la case de position k appartient à l'unité de base k.
+     * @return le masque des lignes de base du poisson appliqué, 0 s'il n'y en a pas
+     */
+    private long chercherPoisson(int nombre, int taille, int restant, int debut, long union, long lignesBase,
+                                 long bit, int couverture) {
+        if (restant == 0) {
+            if (Long.bitCount(union) != taille) {
+                return 0;
+            }
+            boolean progres = false;
+            for (long c = union; c != 0; c &= c - 1) {
+                int[] unite = unites[couverture + Long.numberOfTrailingZeros(c)];
+                for (int p = 0; p < tailleGrille; p++) {
+                    if ((lignesBase & 1L << p) == 0) {
+                        progres |= eliminer(unite[p], bit);
+                    }
+                }
+            }
+            return progres ? lignesBase : 0;
+        }
+        for (int k = debut; k <= nombre - restant; k++) {
+            long suivante = union | masques[k];
+            if (Long.bitCount(suivante) <= taille) {
+                long trouvees = chercherPoisson(nombre, taille, restant - 1, k + 1, suivante,
+                        lignesBase | 1L << elements[k], bit, couverture);
+                if (trouvees != 0) {
+                    return trouvees;
+                }
+            }
+        }
+        return 0;
+    }
+
+    //endregion
+
+    public Geometrie getGeometrie() {
+        return this.geometrie;
+    }
+}
@@ -0,0 +1,307 @@
+package src.Resolveurs;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import src.Grilles.GrilleCompacte;
+import src.Grilles.Verificateur;
+import src.Metriques.Mesure;
+
+public class Portefeuille {
+
+    /**
+     * Arrivée d'un résolveur dans la course : sa solution, ou la preuve qu'il n'y en a pas, et ses compteurs
+     */
+    private static final class Arrivee {
+        private final int[][] solution;
+        private final boolean insoluble;
+        private final Mesure mesure;
+
+        private Arrivee(int[][] solution, boolean insoluble, Mesure mesure) {
+            this.solution = solution;
+            this.insoluble = insoluble;
+            this.mesure = mesure.copie();
+        }
+
+        /**
+         * Arrivée d'un résolveur complet : s'il s'arrête sans solution et sans avoir été interrompu,
+         * il a parcouru tout l'arbre et prouvé que la grille est insoluble
+         */
+        private static Arrivee complete(boolean resolu, boolean interrompu, Supplier<int[][]> solution, Mesure mesure) {
+            return new Arrivee(resolu ? solution.get() : null, !resolu && !interrompu, mesure);
+        }
+
+        /**
+         * Arrivée d'un résolveur incomplet : un échec ne prouve rien
+         */
+        private static Arrivee incomplete(boolean resolu, Supplier<int[][]> solution, Mesure mesure) {
+            return new Arrivee(resolu ? solution.get() : null, false, mesure);
+        }
+    }
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    private final int redemarrages;
+    private final ExecutorService executeur;
+    private final SplittableRandom random;
+    private final Verificateur verificateur;
+    private final Map<String, LongAdder> victoires = new ConcurrentHashMap<>();
+    // Chaque thread du pool garde son modèle ChocoSolver d'une course à l'autre
+    private final ThreadLocal<ResolveurChoco> chocos;
+
+    private int[][] solution;
+    private boolean insoluble;
+    private Mesure mesure;
+    private String vainqueur;
+    private long dureeNanos;
+
+    /**
+     * Constructeur d'un portefeuille de résolveurs lancés en concurrence sur une même grille
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param redemarrages le nombre de recuits simulés lancés en parallèle avec des graines différentes
+     */
+    public Portefeuille(int tailleSousGrille, int redemarrages) {
+        this(tailleSousGrille, redemarrages, new SplittableRandom());
+    }
+
+    /**
+     * Constructeur d'un portefeuille dont les recuits simulés tirent leurs sources aléatoires d'une source donnée
+     * Chaque course reçoit les mêmes sources quelle que soit la planification des threads ;
+     * seul le vainqueur peut changer d'une exécution à l'autre.
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param redemarrages le nombre de recuits simulés lancés en parallèle avec des graines différentes
+     * @param random la source aléatoire
+     */
+    public Portefeuille(int tailleSousGrille, int redemarrages, SplittableRandom random) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.redemarrages = redemarrages;
+        this.random = random;
+        this.verificateur = new Verificateur(tailleSousGrille);
+        this.chocos = ThreadLocal.withInitial(() -> new ResolveurChoco(tailleSousGrille));
+        this.executeur = Executors.newCachedThreadPool(tache -> {
+            Thread thread = new Thread(tache, "portefeuille");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Lance tous les résolveurs sur la grille, garde la première solution vérifiée et interrompt les autres
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean resoudre(int[][] grille) {
+        return resoudre(grille, Echeance.aucune());
+    }
+
+    /**
+     * Lance tous les résolveurs sur la grille avec une échéance commune
+     * La course s'arrête sans solution quand l'échéance est dépassée, ou dès qu'un résolveur complet a prouvé
+     * que la grille est insoluble ; les résolveurs encore en cours sont alors interrompus comme des perdants.
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     * @param echeance l'échéance de la course (délai, budget de chaque résolveur, annulation)
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean resoudre(int[][] grille, Echeance echeance) {
+        long depart = System.nanoTime();
+        solution = null;
+        insoluble = false;
+        mesure = null;
+        vainqueur = null;
+
+        // Résolveurs en course : les complets peuvent prouver que la grille est insoluble, pas les autres
+        Map<String, Callable<Arrivee>> resolveurs = new LinkedHashMap<>();
+        resolveurs.put("backtracking", () -> {
+            ResolveurMasques resolveur = new ResolveurMasques(tailleSousGrille, grille);
+            resolveur.setEcheance(echeance);
+            boolean resolu = resolveur.resoudre();
+            return Arrivee.complete(resolu, resolveur.estInterrompue(), resolveur::getGrille, resolveur.getMesure());
+        });
+        resolveurs.put("glouton", () -> {
+            // Réparation bornée : le glouton gagne sur les grilles faciles et laisse les autres aux résolveurs complets
+            ResolveurGlouton resolveur = new ResolveurGlouton(tailleSousGrille, grille);
+            resolveur.setLimiteReparation(64L * tailleGrille * tailleGrille);
+            resolveur.setEcheance(echeance);
+            return Arrivee.incomplete(resolveur.resoudre(), resolveur::getGrille, resolveur.getMesure());
+        });
+        resolveurs.put("choco", () -> {
+            ResolveurChoco resolveur = chocos.get();
+            resolveur.charger(grille);
+            resolveur.setEcheance(echeance);
+            boolean resolu = resolveur.resoudre();
+            return Arrivee.complete(resolu, resolveur.estInterrompue(), resolveur::getSolution, resolveur.getMesure());
+        });
+        resolveurs.put("dancingLinks", () -> {
+            ResolveurDLX resolveur = new ResolveurDLX(tailleSousGrille, grille);
+            resolveur.setEcheance(echeance);
+            boolean resolu = resolveur.resoudre();
+            return Arrivee.complete(resolu, resolveur.estInterrompue(), resolveur::getSolution, resolveur.getMesure());
+        });
+        for (int k = 0; k < redemarrages; k++) {
+            SplittableRandom graine = random.split();
+            resolveurs.put("recuitSimule#" + k, () -> {
+                RecuitSimule recuit = new RecuitSimule(tailleSousGrille, grille, graine);
+                recuit.setEcheance(echeance);
+                return Arrivee.incomplete(recuit.resoudre(), recuit::getSolution, recuit.getMesure());
+            });
+        }
+
+        GrilleCompacte donnees = GrilleCompacte.depuis(grille);
+        ExecutorCompletionService<Arrivee> course = new ExecutorCompletionService<>(executeur);
+        Map<Future<Arrivee>, String> noms = new LinkedHashMap<>();
+        for (Map.Entry<String, Callable<Arrivee>> resolveur : resolveurs.entrySet()) {
+            noms.put(course.submit(resolveur.getValue()), resolveur.getKey());
+        }
+
+        try {
+            for (int k = 0; k < noms.size() && solution == null && !insoluble; k++) {
+                Future<Arrivee> termine = course.poll(echeance.getRestantNanos(), TimeUnit.NANOSECONDS);
+                if (termine == null) {
+                    // Délai dépassé : aucun résolveur n'a terminé à temps
+                    break;
+                }
+                Arrivee arrivee = resultat(termine);
+                if (arrivee == null) {
+                    continue;
+                }
+                if (arrivee.solution != null && estSolution(donnees, arrivee.solution)) {
+                    solution = arrivee.solution;
+                } else if (arrivee.insoluble) {
+                    // Un résolveur complet a parcouru tout l'arbre : inutile d'attendre les autres
+                    insoluble = true;
+                } else {
+                    continue;
+                }
+                mesure = arrivee.mesure;
+                vainqueur = noms.get(termine);
+                victoires.computeIfAbsent(vainqueur, nom -> new LongAdder()).increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Les perdants sont interrompus et s'arrêtent à leur prochaine vérification
+            for (Future<Arrivee> future : noms.keySet()) {
+                future.cancel(true);
+            }
+        }
+
+        dureeNanos = System.nanoTime() - depart;
+        return solution != null;
+    }
+
+    /**
+     * Récupère l'arrivée d'un résolveur terminé, null s'il a levé une exception
+     * @param future le résolveur terminé
+     * @return l'arrivée du résolveur
+     */
+    private Arrivee resultat(Future<Arrivee> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Vérifie qu'une grille est complète, respecte les contraintes et conserve les valeurs de départ
+     * @param depart la grille de départ
+     * @param candidate la grille proposée par un résolveur
+     * @return true si la grille proposée est une solution, false sinon
+     */
+    private boolean estSolution(GrilleCompacte depart, int[][] candidate) {
+        if (candidate.length != tailleGrille) {
+            return false;
+        }
+        return verificateur.estSolution(depart, GrilleCompacte.depuis(candidate));
+    }
+
+    /**
+     * Arrête les threads du portefeuille
+     */
+    public void fermer() {
+        executeur.shutdownNow();
+    }
+
+    /**
+     * Récupère la solution de la dernière course
+     * @return la grille résolue, null si aucun résolveur n'a trouvé de solution
+     */
+    public int[][] getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Indique si la dernière course s'est arrêtée sur la preuve, par un résolveur complet, que la grille est insoluble
+     * @return true si la grille est insoluble, false sinon (solution trouvée, échec ou délai dépassé)
+     */
+    public boolean estInsoluble() {
+        return this.insoluble;
+    }
+
+    /**
+     * Récupère les compteurs du vainqueur de la dernière course
+     * @return la mesure du résolveur qui a trouvé la solution ou prouvé l'insolubilité, null sinon
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+
+    /**
+     * Récupère le nombre de recuits simulés lancés à chaque course
+     * @return le nombre de recuits simulés
+     */
+    public int getRedemarrages() {
+        return this.redemarrages;
+    }
+
+    /**
+     * Récupère la taille de la sous-grille des grilles de ce portefeuille
+     * @return la taille de la sous-grille
+     */
+    public int getTailleSousGrille() {
+        return this.tailleSousGrille;
+    }
+
+    /**
+     * Récupère le nom du résolveur qui a gagné la dernière course
+     * @return le nom du résolveur qui a trouvé la solution ou prouvé l'insolubilité, null sinon
+     */
+    public String getVainqueur() {
+        return this.vainqueur;
+    }
+
+    /**
+     * Récupère la durée de la dernière course
+     * @return la durée en nanosecondes
+     */
+    public long getDureeNanos() {
+        return this.dureeNanos;
+    }
+
+    /**
+     * Récupère le nombre de victoires de chaque résolveur depuis la création du portefeuille
+     * @return le nombre de victoires par nom de résolveur
+     */
+    public Map<String, Long> getVictoires() {
+        Map<String, Long> copie = new LinkedHashMap<>();
+        List<String> noms = new ArrayList<>(victoires.keySet());
+        noms.sort(null);
+        for (String nom : noms) {
+            copie.put(nom, victoires.get(nom).sum());
+        }
+        return copie;
+    }
+}
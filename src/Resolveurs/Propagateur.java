@@ -0,0 +1,392 @@
+package src.Resolveurs;
+
+import src.Grilles.Geometrie;
+import src.Grilles.GrilleCompacte;
+import src.Metriques.Mesure;
+
+public class Propagateur {
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    // Valeurs des cases à plat ; la grille int[][] éventuelle est tenue à jour en parallèle
+    private final byte[] cases;
+    private final int[][] grille;
+    private final int[] sousGrilles;
+    // Candidats de chaque case (bit v-1 pour la valeur v), 0 pour une case remplie
+    private final long[] candidats;
+    // Cases de chaque unité : lignes, puis colonnes, puis sous-grilles
+    private final int[][] unites;
+    private boolean contradiction;
+    private int casesFixees;
+    // Compteurs de la propagation, ceux de l'appelant s'il en fournit un : c'est lui qui les publie
+    private Mesure mesure = new Mesure();
+    private boolean mesureAppelant;
+
+    /**
+     * Constructeur d'un propagateur de contraintes travaillant directement sur une grille
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à compléter (elle est modifiée)
+     */
+    public Propagateur(int tailleSousGrille, int[][] grille) {
+        this(copie(tailleSousGrille, grille), grille);
+    }
+
+    /**
+     * Constructeur d'un propagateur de contraintes travaillant directement sur une grille compacte
+     * @param grille la grille à compléter (elle est modifiée)
+     */
+    public Propagateur(GrilleCompacte grille) {
+        this(grille, null);
+    }
+
+    /**
+     * Constructeur commun
+     * @param compacte la grille compacte sur laquelle on travaille
+     * @param grille la grille int[][] à tenir à jour, null s'il n'y en a pas
+     */
+    private Propagateur(GrilleCompacte compacte, int[][] grille) {
+        Geometrie geometrie = compacte.getGeometrie();
+        this.tailleSousGrille = geometrie.getTailleSousGrille();
+        this.tailleGrille = geometrie.getTailleGrille();
+        this.cases = compacte.getCases();
+        this.grille = grille;
+        this.sousGrilles = geometrie.getSousGrilles();
+        this.candidats = new long[geometrie.getNombreCases()];
+        this.unites = geometrie.getUnites();
+        initialiserCandidats();
+    }
+
+    /**
+     * Copie une grille int[][] dans une grille compacte
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à copier
+     * @return la copie compacte
+     */
+    private static GrilleCompacte copie(int tailleSousGrille, int[][] grille) {
+        GrilleCompacte compacte = new GrilleCompacte(tailleSousGrille);
+        compacte.charger(grille);
+        return compacte;
+    }
+
+    /**
+     * Calcule les candidats de chaque case vide à partir des valeurs déjà placées
+     */
+    private void initialiserCandidats() {
+        long pleine = tailleGrille == 64 ? -1L : (1L << tailleGrille) - 1;
+        long[] presents = new long[unites.length];
+        for (int u = 0; u < unites.length; u++) {
+            for (int indice : unites[u]) {
+                int valeur = cases[indice];
+                if (valeur != 0) {
+                    long bit = 1L << (valeur - 1);
+                    if ((presents[u] & bit) != 0) {
+                        contradiction = true;
+                    }
+                    presents[u] |= bit;
+                }
+            }
+        }
+        for (int indice = 0; indice < cases.length; indice++) {
+            if (cases[indice] == 0) {
+                long interdits = presents[indice / tailleGrille] | presents[tailleGrille + indice % tailleGrille]
+                        | presents[2 * tailleGrille + sousGrilles[indice]];
+                candidats[indice] = pleine & ~interdits;
+            }
+        }
+    }
+
+    /**
+     * Applique les singletons nus, les singletons cachés et les candidats verrouillés
+     * jusqu'à ce que plus rien ne change
+     * @return le nombre de cases fixées
+     */
+    public int propager() {
+        return propager(true);
+    }
+
+    /**
+     * Applique les singletons nus et cachés, et éventuellement les candidats verrouillés,
+     * jusqu'à ce que plus rien ne change
+     * @param avecCandidatsVerrouilles false pour se limiter aux singletons
+     * @return le nombre de cases fixées
+     */
+    public int propager(boolean avecCandidatsVerrouilles) {
+        if (!mesureAppelant) {
+            mesure.reinitialiser();
+        }
+        casesFixees = 0;
+        boolean progres = !contradiction;
+        while (progres && !contradiction) {
+            progres = singletonsNus();
+            if (!progres && !contradiction) {
+                progres = singletonsCaches();
+            }
+            if (!progres && !contradiction && avecCandidatsVerrouilles) {
+                progres = candidatsVerrouilles();
+            }
+        }
+        mesure.ajouterPropagations(casesFixees);
+        return casesFixees;
+    }
+
+    /**
+     * Place la valeur des cases qui n'ont plus qu'un seul candidat
+     * @return true si au moins une case a été fixée, false sinon
+     */
+    boolean singletonsNus() {
+        boolean progres = false;
+        for (int indice = 0; indice < candidats.length && !contradiction; indice++) {
+            long c = candidats[indice];
+            if (c != 0 && (c & (c - 1)) == 0) {
+                placer(indice, Long.numberOfTrailingZeros(c) + 1);
+                progres = true;
+            } else if (c == 0 && cases[indice] == 0) {
+                contradiction = true;
+            }
+        }
+        return progres;
+    }
+
+    /**
+     * Place les valeurs qui n'ont plus qu'une seule case possible dans une unité
+     * @return true si au moins une case a été fixée, false sinon
+     */
+    boolean singletonsCaches() {
+        long pleine = tailleGrille == 64 ? -1L : (1L << tailleGrille) - 1;
+        boolean progres = false;
+        for (int u = 0; u < unites.length && !contradiction; u++) {
+            int[] unite = unites[u];
+            long auMoinsUne = 0;
+            long auMoinsDeux = 0;
+            long placees = 0;
+            for (int indice : unite) {
+                long c = candidats[indice];
+                auMoinsDeux |= auMoinsUne & c;
+                auMoinsUne |= c;
+                int valeur = cases[indice];
+                if (valeur != 0) {
+                    placees |= 1L << (valeur - 1);
+                }
+            }
+            // Une valeur ni placée ni candidate dans l'unité rend la grille insoluble
+            if ((auMoinsUne | placees) != pleine) {
+                contradiction = true;
+                break;
+            }
+            long uniques = auMoinsUne & ~auMoinsDeux;
+            while (uniques != 0) {
+                long bit = uniques & -uniques;
+                uniques ^= bit;
+                for (int indice : unite) {
+                    if ((candidats[indice] & bit) != 0) {
+                        placer(indice, Long.numberOfTrailingZeros(bit) + 1);
+                        progres = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return progres;
+    }
+
+    /**
+     * Elimine des candidats par candidats verrouillés : pointage (sous-grille vers ligne/colonne)
+     * et réclamation (ligne/colonne vers sous-grille)
+     * @return true si au moins un candidat a été éliminé, false sinon
+     */
+    boolean candidatsVerrouilles() {
+        boolean progres = false;
+        long[] segments = new long[tailleSousGrille];
+        for (int b = 0; b < tailleGrille; b++) {
+            int ligneDepart = (b / tailleSousGrille) * tailleSousGrille;
+            int colDepart = (b % tailleSousGrille) * tailleSousGrille;
+
+            // Pointage sur les lignes : les candidats d'une valeur dans la sous-grille sont tous sur une même ligne
+            for (int k = 0; k < tailleSousGrille; k++) {
+                segments[k] = 0;
+                for (int l = 0; l < tailleSousGrille; l++) {
+                    segments[k] |= candidats[(ligneDepart + k) * tailleGrille + colDepart + l];
+                }
+            }
+            for (int k = 0; k < tailleSousGrille; k++) {
+                long exclusifs = exclusifs(segments, k);
+                for (int j = 0; j < tailleGrille && exclusifs != 0; j++) {
+                    if (j < colDepart || j >= colDepart + tailleSousGrille) {
+                        progres |= eliminer((ligneDepart + k) * tailleGrille + j, exclusifs);
+                    }
+                }
+            }
+
+            // Pointage sur les colonnes
+            for (int l = 0; l < tailleSousGrille; l++) {
+                segments[l] = 0;
+                for (int k = 0; k < tailleSousGrille; k++) {
+                    segments[l] |= candidats[(ligneDepart + k) * tailleGrille + colDepart + l];
+                }
+            }
+            for (int l = 0; l < tailleSousGrille; l++) {
+                long exclusifs = exclusifs(segments, l);
+                for (int i = 0; i < tailleGrille && exclusifs != 0; i++) {
+                    if (i < ligneDepart || i >= ligneDepart + tailleSousGrille) {
+                        progres |= eliminer(i * tailleGrille + colDepart + l, exclusifs);
+                    }
+                }
+            }
+        }
+
+        for (int ligne = 0; ligne < tailleGrille; ligne++) {
+            // Réclamation depuis une ligne : les candidats d'une valeur sur la ligne sont tous dans une même sous-grille
+            for (int s = 0; s < tailleSousGrille; s++) {
+                segments[s] = 0;
+                for (int l = 0; l < tailleSousGrille; l++) {
+                    segments[s] |= candidats[ligne * tailleGrille + s * tailleSousGrille + l];
+                }
+            }
+            for (int s = 0; s < tailleSousGrille; s++) {
+                long exclusifs = exclusifs(segments, s);
+                int ligneDepart = ligne - ligne % tailleSousGrille;
+                for (int k = 0; k < tailleSousGrille && exclusifs != 0; k++) {
+                    if (ligneDepart + k != ligne) {
+                        for (int l = 0; l < tailleSousGrille; l++) {
+                            progres |= eliminer((ligneDepart + k) * tailleGrille + s * tailleSousGrille + l, exclusifs);
+                        }
+                    }
+                }
+            }
+
+            // Réclamation depuis une colonne (on réutilise l'indice ligne comme indice de colonne)
+            int col = ligne;
+            for (int s = 0; s < tailleSousGrille; s++) {
+                segments[s] = 0;
+                for (int k = 0; k < tailleSousGrille; k++) {
+                    segments[s] |= candidats[(s * tailleSousGrille + k) * tailleGrille + col];
+                }
+            }
+            for (int s = 0; s < tailleSousGrille; s++) {
+                long exclusifs = exclusifs(segments, s);
+                int colDepart = col - col % tailleSousGrille;
+                for (int l = 0; l < tailleSousGrille && exclusifs != 0; l++) {
+                    if (colDepart + l != col) {
+                        for (int k = 0; k < tailleSousGrille; k++) {
+                            progres |= eliminer((s * tailleSousGrille + k) * tailleGrille + colDepart + l, exclusifs);
+                        }
+                    }
+                }
+            }
+        }
+        return progres;
+    }
+
+    /**
+     * Calcule les candidats présents dans un segment et dans aucun autre
+     * @param segments les candidats de chaque segment
+     * @param k l'indice du segment
+     * @return le masque des candidats exclusifs au segment k
+     */
+    private long exclusifs(long[] segments, int k) {
+        long autres = 0;
+        for (int s = 0; s < segments.length; s++) {
+            if (s != k) {
+                autres |= segments[s];
+            }
+        }
+        return segments[k] & ~autres;
+    }
+
+    /**
+     * Retire des candidats d'une case
+     * @param indice l'indice de la case
+     * @param masque les candidats à retirer
+     * @return true si au moins un candidat a été retiré, false sinon
+     */
+    private boolean eliminer(int indice, long masque) {
+        long avant = candidats[indice];
+        if ((avant & masque) == 0) {
+            return false;
+        }
+        candidats[indice] = avant & ~masque;
+        if (candidats[indice] == 0) {
+            contradiction = true;
+        }
+        return true;
+    }
+
+    /**
+     * Place une valeur dans une case et la retire des candidats de ses voisines
+     * @param indice l'indice de la case
+     * @param valeur la valeur à placer
+     */
+    private void placer(int indice, int valeur) {
+        int ligne = indice / tailleGrille;
+        int col = indice % tailleGrille;
+        long bit = 1L << (valeur - 1);
+        if ((candidats[indice] & bit) == 0) {
+            contradiction = true;
+            return;
+        }
+        cases[indice] = (byte) valeur;
+        if (grille != null) {
+            grille[ligne][col] = valeur;
+        }
+        candidats[indice] = 0;
+        casesFixees++;
+
+        eliminerDansUnite(unites[ligne], bit);
+        eliminerDansUnite(unites[tailleGrille + col], bit);
+        eliminerDansUnite(unites[2 * tailleGrille + sousGrilles[indice]], bit);
+    }
+
+    /**
+     * Retire un candidat de toutes les cases vides d'une unité
+     * @param unite les cases de l'unité
+     * @param bit le candidat à retirer
+     */
+    private void eliminerDansUnite(int[] unite, long bit) {
+        for (int voisine : unite) {
+            if (candidats[voisine] != 0) {
+                eliminer(voisine, bit);
+            }
+        }
+    }
+
+    /**
+     * Fait compter les propagations dans la mesure de la résolution qui utilise ce propagateur
+     * @param mesure la mesure de l'appelant, qui n'est pas remise à zéro par propager()
+     */
+    public void setMesure(Mesure mesure) {
+        this.mesure = mesure;
+        this.mesureAppelant = true;
+    }
+
+    /**
+     * Récupère les compteurs de la propagation
+     * @return la mesure du propagateur, ou celle fournie par setMesure
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+
+    /**
+     * Indique si la propagation a mis en évidence une grille insoluble
+     * @return true si une contradiction a été détectée, false sinon
+     */
+    public boolean estContradictoire() {
+        return this.contradiction;
+    }
+
+    /**
+     * Récupère le nombre de cases fixées par le dernier appel à propager()
+     * @return le nombre de cases fixées
+     */
+    public int getCasesFixees() {
+        return this.casesFixees;
+    }
+
+    /**
+     * Récupère les candidats restants de chaque case (indice ligne * tailleGrille + colonne)
+     * @return les masques de candidats
+     */
+    public long[] getCandidats() {
+        return this.candidats;
+    }
+}
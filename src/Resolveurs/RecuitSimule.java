@@ -0,0 +1,410 @@
+package src.Resolveurs;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import src.Metriques.Mesure;
+import src.Metriques.Metriques;
+import src.Generateurs.GenerateurSolutionFausse;
+
+public class RecuitSimule {
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    private final int[][] grilleDepart;
+    private final SplittableRandom random;
+
+    // Paramètres du recuit
+    private double temperatureInitiale = 0;
+    private double refroidissement = 0.999;
+    private int longueurPalier = 0;
+    private int paliersAvantRechauffe = 50;
+    private long iterationsMax = 10000000;
+
+    // Etat de la recherche
+    private int[][] solution;
+    private int[][] meilleureSolution;
+    private int[][] occurrencesColonnes;
+    private int[][] occurrencesSousGrilles;
+    private int[][] colonnesModifiables;
+    private int[] lignesModifiables;
+    private int evaluation;
+    private int meilleureEvaluation;
+
+    // Statistiques
+    private long iterations;
+    private long dureeNanos;
+    private int rechauffes;
+    private boolean interrompu;
+    private Echeance echeance = Echeance.aucune();
+    private final Mesure mesure = new Mesure();
+    // Cases fixées par une propagation de l'appelant, comptées dans la mesure de la résolution
+    private long propagationsPrealables;
+
+    /**
+     * Constructeur d'un résolveur par recuit simulé
+     * Chaque ligne de la solution de départ est une permutation, un mouvement échange deux cases
+     * modifiables d'une même ligne : seules les colonnes et les sous-grilles peuvent être en conflit.
+     * L'évaluation compte, pour chaque colonne et chaque sous-grille, les valeurs qui y manquent.
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     */
+    public RecuitSimule(int tailleSousGrille, int[][] grille) {
+        this(tailleSousGrille, grille, new SplittableRandom());
+    }
+
+    /**
+     * Constructeur d'un résolveur par recuit simulé utilisant une source aléatoire donnée
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     * @param random la source aléatoire
+     */
+    public RecuitSimule(int tailleSousGrille, int[][] grille, SplittableRandom random) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.grilleDepart = grille;
+        this.random = random;
+    }
+
+    /**
+     * Définit le schéma de refroidissement
+     * @param temperatureInitiale la température de départ et de réchauffe, 0 pour la calibrer automatiquement
+     * @param refroidissement le facteur multiplicatif appliqué à la température à chaque palier
+     * @param longueurPalier le nombre d'itérations par palier, 0 pour le nombre de cases modifiables
+     * @param paliersAvantRechauffe le nombre de paliers consécutifs sans changement d'évaluation avant de réchauffer
+     */
+    public void setRefroidissement(double temperatureInitiale, double refroidissement, int longueurPalier, int paliersAvantRechauffe) {
+        this.temperatureInitiale = temperatureInitiale;
+        this.refroidissement = refroidissement;
+        this.longueurPalier = longueurPalier;
+        this.paliersAvantRechauffe = paliersAvantRechauffe;
+    }
+
+    /**
+     * Définit le nombre maximal d'itérations
+     * @param iterationsMax le nombre maximal d'itérations
+     */
+    public void setIterationsMax(long iterationsMax) {
+        this.iterationsMax = iterationsMax;
+    }
+
+    /**
+     * Indique le nombre de cases déjà fixées par une propagation de l'appelant, pour que la mesure publiée
+     * par la résolution les compte
+     * @param propagationsPrealables le nombre de cases fixées avant la résolution
+     */
+    public void setPropagationsPrealables(long propagationsPrealables) {
+        this.propagationsPrealables = propagationsPrealables;
+    }
+
+    /**
+     * Fixe l'échéance surveillée pendant la recherche (délai, budget d'itérations, annulation)
+     * Un budget d'itérations remplace le nombre maximal d'itérations.
+     * @param echeance l'échéance
+     */
+    public void setEcheance(Echeance echeance) {
+        this.echeance = echeance;
+    }
+
+    /**
+     * Lance le recuit simulé jusqu'à trouver une solution, épuiser les itérations ou dépasser l'échéance
+     * @return true si une solution sans conflit a été trouvée, false sinon
+     */
+    public boolean resoudre() {
+        long depart = System.nanoTime();
+        mesure.reinitialiser();
+        mesure.ajouterPropagations(propagationsPrealables);
+        initialiser();
+        iterations = 0;
+        rechauffes = 0;
+        interrompu = false;
+        long acceptes = 0;
+        long limite = echeance.getBudget(iterationsMax);
+
+        if (lignesModifiables.length == 0) {
+            dureeNanos = System.nanoTime() - depart;
+            return terminer(0);
+        }
+
+        double temperature = temperatureInitiale > 0 ? temperatureInitiale : calibrerTemperature();
+        double temperatureRechauffe = temperature;
+        int palier = longueurPalier > 0 ? longueurPalier : nombreCasesModifiables();
+        int paliersFiges = 0;
+        int evaluationPalierPrecedent = evaluation;
+
+        while (evaluation > 0 && iterations < limite) {
+            iterations++;
+
+            // On choisit deux cases modifiables distinctes d'une même ligne
+            int ligne = lignesModifiables[random.nextInt(lignesModifiables.length)];
+            int[] colonnes = colonnesModifiables[ligne];
+            int k1 = random.nextInt(colonnes.length);
+            int k2 = random.nextInt(colonnes.length - 1);
+            if (k2 >= k1) {
+                k2++;
+            }
+            int c1 = colonnes[k1];
+            int c2 = colonnes[k2];
+
+            int delta = deltaEchange(ligne, c1, c2);
+            if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                echanger(ligne, c1, c2);
+                evaluation += delta;
+                acceptes++;
+                if (evaluation < meilleureEvaluation) {
+                    meilleureEvaluation = evaluation;
+                    copier(solution, meilleureSolution);
+                }
+            }
+
+            // Fin de palier : on refroidit, ou on réchauffe si l'évaluation est figée dans un minimum local
+            if (iterations % palier == 0) {
+                if (echeance.estDepassee()) {
+                    interrompu = true;
+                    break;
+                }
+                paliersFiges = evaluation == evaluationPalierPrecedent ? paliersFiges + 1 : 0;
+                evaluationPalierPrecedent = evaluation;
+                if (paliersFiges >= paliersAvantRechauffe) {
+                    temperature = temperatureRechauffe;
+                    paliersFiges = 0;
+                    rechauffes++;
+                } else {
+                    temperature *= refroidissement;
+                }
+            }
+        }
+
+        dureeNanos = System.nanoTime() - depart;
+        return terminer(acceptes);
+    }
+
+    /**
+     * Publie les compteurs de la résolution
+     * @param acceptes le nombre d'échanges acceptés
+     * @return true si une solution sans conflit a été trouvée, false sinon
+     */
+    private boolean terminer(long acceptes) {
+        if (meilleureEvaluation == 0) {
+            mesure.solutionTrouvee();
+        }
+        mesure.ajouterNoeuds(iterations);
+        mesure.ajouterMouvements(acceptes, iterations - acceptes);
+        mesure.ajouterRedemarrages(rechauffes);
+        Metriques.publier("recuitSimule", mesure);
+        return meilleureEvaluation == 0;
+    }
+
+    /**
+     * Construit la solution de départ et les tables d'occurrences
+     */
+    private void initialiser() {
+        GenerateurSolutionFausse generateur = new GenerateurSolutionFausse(tailleGrille, grilleDepart, true, random.split());
+        solution = generateur.getGrille();
+        meilleureSolution = new int[tailleGrille][tailleGrille];
+
+        // Colonnes modifiables de chaque ligne, on ne garde que les lignes où un échange est possible
+        ArrayList<int[]> listeCasesModifiables = generateur.getListeCasesModifiables();
+        int[] nombreParLigne = new int[tailleGrille];
+        for (int[] caseModifiable : listeCasesModifiables) {
+            nombreParLigne[caseModifiable[0]]++;
+        }
+        colonnesModifiables = new int[tailleGrille][];
+        int nombreLignes = 0;
+        for (int ligne = 0; ligne < tailleGrille; ligne++) {
+            colonnesModifiables[ligne] = new int[nombreParLigne[ligne]];
+            if (nombreParLigne[ligne] >= 2) {
+                nombreLignes++;
+            }
+            nombreParLigne[ligne] = 0;
+        }
+        for (int[] caseModifiable : listeCasesModifiables) {
+            colonnesModifiables[caseModifiable[0]][nombreParLigne[caseModifiable[0]]++] = caseModifiable[1];
+        }
+        lignesModifiables = new int[nombreLignes];
+        nombreLignes = 0;
+        for (int ligne = 0; ligne < tailleGrille; ligne++) {
+            if (colonnesModifiables[ligne].length >= 2) {
+                lignesModifiables[nombreLignes++] = ligne;
+            }
+        }
+
+        occurrencesColonnes = new int[tailleGrille][tailleGrille + 1];
+        occurrencesSousGrilles = new int[tailleGrille][tailleGrille + 1];
+        evaluation = 0;
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                int valeur = solution[i][j];
+                evaluation += occurrencesColonnes[j][valeur]++ >= 1 ? 1 : 0;
+                evaluation += occurrencesSousGrilles[sousGrille(i, j)][valeur]++ >= 1 ? 1 : 0;
+            }
+        }
+        meilleureEvaluation = evaluation;
+        copier(solution, meilleureSolution);
+    }
+
+    /**
+     * Estime une température initiale à partir de l'écart type des variations de quelques échanges
+     * @return la température initiale
+     */
+    private double calibrerTemperature() {
+        int echantillon = 200;
+        double somme = 0;
+        double sommeCarres = 0;
+        for (int k = 0; k < echantillon; k++) {
+            int ligne = lignesModifiables[random.nextInt(lignesModifiables.length)];
+            int[] colonnes = colonnesModifiables[ligne];
+            int k1 = random.nextInt(colonnes.length);
+            int k2 = random.nextInt(colonnes.length - 1);
+            if (k2 >= k1) {
+                k2++;
+            }
+            int delta = deltaEchange(ligne, colonnes[k1], colonnes[k2]);
+            somme += delta;
+            sommeCarres += (double) delta * delta;
+        }
+        double moyenne = somme / echantillon;
+        double ecartType = Math.sqrt(Math.max(sommeCarres / echantillon - moyenne * moyenne, 0));
+        // L'écart type seul donne une température trop élevée pour ce voisinage, on en prend un tiers
+        return Math.max(ecartType / 3, 0.05);
+    }
+
+    /**
+     * Calcule en O(1) la variation de l'évaluation si l'on échange deux cases d'une ligne
+     * @param ligne la ligne
+     * @param c1 la colonne de la première case
+     * @param c2 la colonne de la seconde case
+     * @return la variation du nombre de valeurs manquantes
+     */
+    private int deltaEchange(int ligne, int c1, int c2) {
+        int a = solution[ligne][c1];
+        int b = solution[ligne][c2];
+        int delta = delta(occurrencesColonnes[c1], a, b) + delta(occurrencesColonnes[c2], b, a);
+        int s1 = sousGrille(ligne, c1);
+        int s2 = sousGrille(ligne, c2);
+        // Dans une même sous-grille l'échange ne change rien
+        if (s1 != s2) {
+            delta += delta(occurrencesSousGrilles[s1], a, b) + delta(occurrencesSousGrilles[s2], b, a);
+        }
+        return delta;
+    }
+
+    /**
+     * Variation de l'évaluation d'une unité quand une de ses cases passe d'une valeur à une autre :
+     * retirer l'ancienne valeur crée un manque si elle était seule, ajouter la nouvelle en comble un si elle était absente
+     * @param occurrences le nombre d'occurrences de chaque valeur dans l'unité
+     * @param ancienneValeur la valeur actuelle de la case
+     * @param nouvelleValeur la nouvelle valeur de la case
+     * @return la variation du nombre de valeurs manquantes
+     */
+    private int delta(int[] occurrences, int ancienneValeur, int nouvelleValeur) {
+        if (ancienneValeur == nouvelleValeur) {
+            return 0;
+        }
+        return (occurrences[nouvelleValeur] >= 1 ? 1 : 0) - (occurrences[ancienneValeur] >= 2 ? 1 : 0);
+    }
+
+    /**
+     * Echange deux cases d'une ligne et met à jour les tables d'occurrences
+     * @param ligne la ligne
+     * @param c1 la colonne de la première case
+     * @param c2 la colonne de la seconde case
+     */
+    private void echanger(int ligne, int c1, int c2) {
+        int a = solution[ligne][c1];
+        int b = solution[ligne][c2];
+        solution[ligne][c1] = b;
+        solution[ligne][c2] = a;
+        occurrencesColonnes[c1][a]--;
+        occurrencesColonnes[c1][b]++;
+        occurrencesColonnes[c2][b]--;
+        occurrencesColonnes[c2][a]++;
+        int s1 = sousGrille(ligne, c1);
+        int s2 = sousGrille(ligne, c2);
+        if (s1 != s2) {
+            occurrencesSousGrilles[s1][a]--;
+            occurrencesSousGrilles[s1][b]++;
+            occurrencesSousGrilles[s2][b]--;
+            occurrencesSousGrilles[s2][a]++;
+        }
+    }
+
+    private int nombreCasesModifiables() {
+        int nombre = 0;
+        for (int[] colonnes : colonnesModifiables) {
+            nombre += colonnes.length;
+        }
+        return nombre;
+    }
+
+    private void copier(int[][] source, int[][] destination) {
+        for (int i = 0; i < tailleGrille; i++) {
+            System.arraycopy(source[i], 0, destination[i], 0, tailleGrille);
+        }
+    }
+
+    /**
+     * Calcule l'indice de la sous-grille contenant une case
+     * @param ligne la ligne
+     * @param col la colonne
+     * @return l'indice de la sous-grille
+     */
+    private int sousGrille(int ligne, int col) {
+        return (ligne / tailleSousGrille) * tailleSousGrille + col / tailleSousGrille;
+    }
+
+    /**
+     * Récupère la meilleure grille rencontrée lors de la dernière recherche
+     * @return la meilleure grille
+     */
+    public int[][] getSolution() {
+        return this.meilleureSolution;
+    }
+
+    /**
+     * Indique si la dernière recherche a été arrêtée par son échéance avant d'être terminée
+     * @return true si la recherche a été interrompue, false sinon
+     */
+    public boolean estInterrompu() {
+        return this.interrompu;
+    }
+
+    /**
+     * Récupère le nombre de valeurs manquantes dans les colonnes et sous-grilles de la meilleure grille
+     * @return l'évaluation de la meilleure grille
+     */
+    public int getEvaluation() {
+        return this.meilleureEvaluation;
+    }
+
+    /**
+     * Récupère le nombre d'itérations effectuées lors de la dernière recherche
+     * @return le nombre d'itérations
+     */
+    public long getIterations() {
+        return this.iterations;
+    }
+
+    /**
+     * Récupère la durée de la dernière recherche
+     * @return la durée en nanosecondes
+     */
+    public long getDureeNanos() {
+        return this.dureeNanos;
+    }
+
+    /**
+     * Récupère le nombre de réchauffes effectuées lors de la dernière recherche
+     * @return le nombre de réchauffes
+     */
+    public int getRechauffes() {
+        return this.rechauffes;
+    }
+
+    /**
+     * Récupère les compteurs de la dernière recherche
+     * @return la mesure
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+}
@@ -0,0 +1,283 @@
+package src.Resolveurs;
+
+import org.chocosolver.solver.Model;
+import org.chocosolver.solver.Solver;
+import org.chocosolver.solver.constraints.Constraint;
+import org.chocosolver.solver.search.limits.FailCounter;
+import org.chocosolver.solver.search.strategy.Search;
+import org.chocosolver.solver.variables.IntVar;
+import src.Grilles.GrilleCompacte;
+import src.Metriques.Mesure;
+import src.Metriques.Metriques;
+
+public class ResolveurChoco {
+
+    /**
+     * Niveau de cohérence des contraintes allDifferent
+     */
+    public enum Coherence {
+        /** Cohérence d'arc : filtrage complet, plus coûteux à chaque noeud */
+        AC,
+        /** Cohérence de bornes : filtrage plus faible mais plus rapide */
+        BC
+    }
+
+    /**
+     * Heuristique de choix de variable
+     */
+    public enum Strategie {
+        /** Plus petit domaine pondéré par le nombre d'échecs des contraintes */
+        DOM_WDEG,
+        /** Variables les plus actives lors des propagations récentes */
+        ACTIVITE,
+        /** Plus petit domaine, plus petite valeur */
+        MIN_DOMAINE
+    }
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    private final Model model;
+    private final Solver solver;
+    private final IntVar[][] variables;
+    private final boolean redemarrages;
+
+    // Contraintes des valeurs de départ de la grille chargée, retirées au chargement suivant
+    private final Constraint[] donnees;
+    private int nombreDonnees;
+    private Echeance echeance = Echeance.aucune();
+    private final Mesure mesure = new Mesure();
+
+    /**
+     * Constructeur d'un résolveur ChocoSolver réutilisable pour toutes les grilles d'une même taille
+     * Les variables, les contraintes allDifferent et la stratégie de recherche sont créées une seule fois ;
+     * seules les valeurs de départ changent d'une grille à l'autre.
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param coherence le niveau de cohérence des contraintes allDifferent
+     * @param strategie l'heuristique de choix de variable
+     * @param redemarrages true pour redémarrer la recherche selon la suite de Luby (première solution seulement :
+     *                     un résolveur avec redémarrages ne sait ni compter ni énumérer les solutions)
+     */
+    public ResolveurChoco(int tailleSousGrille, Coherence coherence, Strategie strategie, boolean redemarrages) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.model = new Model("Sudoku");
+        this.variables = model.intVarMatrix(tailleGrille, tailleGrille, 1, tailleGrille);
+        this.redemarrages = redemarrages;
+        this.donnees = new Constraint[tailleGrille * tailleGrille];
+        ajoutContraintes(coherence.name());
+
+        this.solver = model.getSolver();
+        IntVar[] toutes = new IntVar[tailleGrille * tailleGrille];
+        for (int i = 0; i < tailleGrille; i++) {
+            System.arraycopy(variables[i], 0, toutes, i * tailleGrille, tailleGrille);
+        }
+        switch (strategie) {
+            case DOM_WDEG:
+                solver.setSearch(Search.domOverWDegSearch(toutes));
+                break;
+            case ACTIVITE:
+                solver.setSearch(Search.activityBasedSearch(toutes));
+                break;
+            default:
+                solver.setSearch(Search.minDomLBSearch(toutes));
+                break;
+        }
+        if (redemarrages) {
+            // Redémarrages de Luby, l'unité étant un nombre d'échecs proportionnel à la taille de la grille
+            solver.setLubyRestart(tailleGrille, new FailCounter(model, tailleGrille), Integer.MAX_VALUE);
+        }
+        // La recherche s'arrête quand l'échéance est dépassée (délai, budget, annulation, course entre résolveurs)
+        solver.addStopCriterion(() -> echeance.estDepassee(solver.getNodeCount()));
+    }
+
+    /**
+     * Constructeur d'un résolveur ChocoSolver avec la cohérence d'arc, dom/wdeg et les redémarrages de Luby
+     * @param tailleSousGrille la taille de la sous-grille
+     */
+    public ResolveurChoco(int tailleSousGrille) {
+        this(tailleSousGrille, Coherence.AC, Strategie.DOM_WDEG, true);
+    }
+
+    /**
+     * Ajoute les contraintes (lignes, colonnes, sous-grilles)
+     * @param coherence le niveau de cohérence des contraintes allDifferent
+     */
+    private void ajoutContraintes(String coherence) {
+        for (int i = 0; i < tailleGrille; i++) {
+            model.allDifferent(variables[i], coherence).post();
+        }
+        for (int j = 0; j < tailleGrille; j++) {
+            IntVar[] colonne = new IntVar[tailleGrille];
+            for (int i = 0; i < tailleGrille; i++) {
+                colonne[i] = variables[i][j];
+            }
+            model.allDifferent(colonne, coherence).post();
+        }
+        for (int ligne = 0; ligne < tailleGrille; ligne += tailleSousGrille) {
+            for (int col = 0; col < tailleGrille; col += tailleSousGrille) {
+                IntVar[] sousGrille = new IntVar[tailleGrille];
+                int index = 0;
+                for (int i = 0; i < tailleSousGrille; i++) {
+                    for (int j = 0; j < tailleSousGrille; j++) {
+                        sousGrille[index++] = variables[ligne + i][col + j];
+                    }
+                }
+                model.allDifferent(sousGrille, coherence).post();
+            }
+        }
+    }
+
+    /**
+     * Charge une nouvelle grille : les valeurs de départ de la grille précédente sont retirées du modèle
+     * et celles de la nouvelle grille sont posées comme des égalités
+     * @param grille la grille à résoudre (0 pour une case vide)
+     */
+    public void charger(int[][] grille) {
+        viderDonnees();
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                poserDonnee(i, j, grille[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Charge une nouvelle grille compacte
+     * @param grille la grille à résoudre, de même taille que le résolveur
+     */
+    public void charger(GrilleCompacte grille) {
+        viderDonnees();
+        byte[] cases = grille.getCases();
+        for (int indice = 0; indice < cases.length; indice++) {
+            poserDonnee(indice / tailleGrille, indice % tailleGrille, cases[indice]);
+        }
+    }
+
+    /**
+     * Ramène le solveur à la racine et retire les valeurs de départ de la grille précédente
+     */
+    private void viderDonnees() {
+        solver.reset();
+        if (nombreDonnees > 0) {
+            Constraint[] anciennes = new Constraint[nombreDonnees];
+            System.arraycopy(donnees, 0, anciennes, 0, nombreDonnees);
+            model.unpost(anciennes);
+            nombreDonnees = 0;
+        }
+    }
+
+    private void poserDonnee(int i, int j, int valeur) {
+        if (valeur != 0) {
+            Constraint donnee = model.arithm(variables[i][j], "=", valeur);
+            donnee.post();
+            donnees[nombreDonnees++] = donnee;
+        }
+    }
+
+    /**
+     * Fixe l'échéance surveillée pendant la recherche (délai, budget de noeuds, annulation)
+     * @param echeance l'échéance
+     */
+    public void setEcheance(Echeance echeance) {
+        this.echeance = echeance;
+    }
+
+    /**
+     * Cherche la première solution de la grille chargée
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean resoudre() {
+        solver.reset();
+        mesure.reinitialiser();
+        boolean resolu = solver.solve();
+        if (resolu) {
+            mesure.solutionTrouvee();
+        }
+        publier();
+        return resolu;
+    }
+
+    /**
+     * Cherche la solution suivante, après resoudre() ou un appel précédent
+     * @return true si une autre solution a été trouvée, false sinon
+     */
+    public boolean solutionSuivante() {
+        verifierEnumeration();
+        return solver.solve();
+    }
+
+    /**
+     * Compte les solutions de la grille chargée sans dépasser une limite
+     * @param limite le nombre maximal de solutions à compter
+     * @return le nombre de solutions trouvées, au plus limite
+     */
+    public long compterSolutions(long limite) {
+        verifierEnumeration();
+        solver.reset();
+        mesure.reinitialiser();
+        long nombre = 0;
+        while (nombre < limite && solver.solve()) {
+            if (nombre++ == 0) {
+                mesure.solutionTrouvee();
+            }
+        }
+        publier();
+        return nombre;
+    }
+
+    /**
+     * Refuse l'énumération quand les redémarrages sont actifs : sans enregistrement de nogoods, un redémarrage
+     * peut reparcourir un sous-arbre déjà exploré et renvoyer deux fois la même solution
+     */
+    private void verifierEnumeration() {
+        if (redemarrages) {
+            throw new IllegalStateException("Enumération impossible avec les redémarrages : "
+                    + "construire le résolveur sans redémarrages");
+        }
+    }
+
+    private void publier() {
+        mesure.ajouterNoeuds(solver.getNodeCount());
+        mesure.ajouterRetoursArriere(solver.getBackTrackCount());
+        mesure.ajouterRedemarrages(solver.getRestartCount());
+        Metriques.publier("choco", mesure);
+    }
+
+    /**
+     * Récupère la dernière solution trouvée
+     * @return la grille résolue
+     */
+    public int[][] getSolution() {
+        int[][] solution = new int[tailleGrille][tailleGrille];
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                solution[i][j] = variables[i][j].getValue();
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * Indique si la dernière recherche a été arrêtée par son échéance avant d'être terminée
+     * @return true si la recherche a été interrompue, false sinon
+     */
+    public boolean estInterrompue() {
+        return solver.isStopCriterionMet();
+    }
+
+    /**
+     * Récupère le nombre de noeuds explorés lors de la dernière recherche
+     * @return le nombre de noeuds
+     */
+    public long getNoeuds() {
+        return solver.getNodeCount();
+    }
+
+    /**
+     * Récupère les compteurs de la dernière recherche
+     * @return la mesure
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+}
@@ -0,0 +1,414 @@
+package src.Resolveurs;
+
+import src.Grilles.GrilleCompacte;
+import src.Metriques.Mesure;
+import src.Metriques.Metriques;
+
+public class ResolveurDLX {
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+
+    // Pool de noeuds : 0 est la racine, puis les en-têtes de colonnes, puis les noeuds des candidats
+    private final int[] gauche;
+    private final int[] droite;
+    private final int[] haut;
+    private final int[] bas;
+    private final int[] colonne;
+    private final int[] candidat;
+    private final int[] taille;
+
+    private final int[] premierNoeud;
+    private final int[] donnees;
+    private int nombreDonnees;
+    private final int[] choix;
+
+    private final int[][] grille;
+    private final int[][] solution;
+    private boolean coherente;
+    private long nombreSolutions;
+    private long limite;
+    private long noeuds;
+    private boolean interrompue;
+    private Echeance echeance = Echeance.aucune();
+    private final Mesure mesure = new Mesure();
+
+    /**
+     * Constructeur d'un résolveur Dancing Links (algorithme X de Knuth)
+     * La matrice de couverture exacte est allouée une seule fois à partir de la taille de la sous-grille,
+     * la recherche n'alloue ensuite plus rien.
+     * @param tailleSousGrille la taille de la sous-grille
+     */
+    public ResolveurDLX(int tailleSousGrille) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        int nombreCases = tailleGrille * tailleGrille;
+        int nombreColonnes = 4 * nombreCases;
+        int nombreCandidats = nombreCases * tailleGrille;
+        int nombreNoeuds = 1 + nombreColonnes + 4 * nombreCandidats;
+
+        this.gauche = new int[nombreNoeuds];
+        this.droite = new int[nombreNoeuds];
+        this.haut = new int[nombreNoeuds];
+        this.bas = new int[nombreNoeuds];
+        this.colonne = new int[nombreNoeuds];
+        this.candidat = new int[nombreNoeuds];
+        this.taille = new int[nombreColonnes + 1];
+        this.premierNoeud = new int[nombreCandidats];
+        this.donnees = new int[nombreCases];
+        this.choix = new int[nombreCases];
+        this.grille = new int[tailleGrille][tailleGrille];
+        this.solution = new int[tailleGrille][tailleGrille];
+
+        construireMatrice(nombreColonnes);
+    }
+
+    /**
+     * Constructeur d'un résolveur Dancing Links chargé avec une grille
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre
+     */
+    public ResolveurDLX(int tailleSousGrille, int[][] grille) {
+        this(tailleSousGrille);
+        charger(grille);
+    }
+
+    /**
+     * Construit la matrice : une colonne par contrainte (case, ligne/valeur, colonne/valeur, sous-grille/valeur),
+     * une ligne de quatre noeuds par candidat (ligne, colonne, valeur)
+     * @param nombreColonnes le nombre de colonnes de la matrice
+     */
+    private void construireMatrice(int nombreColonnes) {
+        // En-têtes de colonnes chaînés autour de la racine
+        for (int c = 0; c <= nombreColonnes; c++) {
+            gauche[c] = c == 0 ? nombreColonnes : c - 1;
+            droite[c] = c == nombreColonnes ? 0 : c + 1;
+            haut[c] = c;
+            bas[c] = c;
+            colonne[c] = c;
+        }
+
+        int nombreCases = tailleGrille * tailleGrille;
+        int noeud = nombreColonnes + 1;
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                int sousGrille = (i / tailleSousGrille) * tailleSousGrille + j / tailleSousGrille;
+                for (int v = 0; v < tailleGrille; v++) {
+                    int indiceCandidat = (i * tailleGrille + j) * tailleGrille + v;
+                    int[] colonnesCandidat = {
+                            1 + i * tailleGrille + j,
+                            1 + nombreCases + i * tailleGrille + v,
+                            1 + 2 * nombreCases + j * tailleGrille + v,
+                            1 + 3 * nombreCases + sousGrille * tailleGrille + v
+                    };
+                    premierNoeud[indiceCandidat] = noeud;
+                    for (int k = 0; k < 4; k++) {
+                        int c = colonnesCandidat[k];
+                        // Insertion en bas de la colonne
+                        colonne[noeud] = c;
+                        candidat[noeud] = indiceCandidat;
+                        haut[noeud] = haut[c];
+                        bas[noeud] = c;
+                        bas[haut[c]] = noeud;
+                        haut[c] = noeud;
+                        taille[c]++;
+                        // Chaînage circulaire dans la ligne du candidat
+                        gauche[noeud] = k == 0 ? noeud + 3 : noeud - 1;
+                        droite[noeud] = k == 3 ? noeud - 3 : noeud + 1;
+                        noeud++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Charge une nouvelle grille en réutilisant la matrice déjà construite
+     * @param grille la grille à résoudre (0 pour une case vide)
+     */
+    public void charger(int[][] grille) {
+        viderDonnees();
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                chargerCase(i, j, grille[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Charge une nouvelle grille compacte en réutilisant la matrice déjà construite
+     * @param grille la grille à résoudre, de même taille que le résolveur
+     */
+    public void charger(GrilleCompacte grille) {
+        viderDonnees();
+        byte[] cases = grille.getCases();
+        for (int indice = 0; indice < cases.length; indice++) {
+            chargerCase(indice / tailleGrille, indice % tailleGrille, cases[indice]);
+        }
+    }
+
+    /**
+     * Libère les données de la grille précédente dans l'ordre inverse de leur sélection
+     */
+    private void viderDonnees() {
+        while (nombreDonnees > 0) {
+            deselectionner(donnees[--nombreDonnees]);
+        }
+        coherente = true;
+    }
+
+    /**
+     * Enregistre la valeur d'une case et sélectionne son candidat si la case est remplie
+     * @param i la ligne
+     * @param j la colonne
+     * @param valeur la valeur de la case (0 pour une case vide)
+     */
+    private void chargerCase(int i, int j, int valeur) {
+        this.grille[i][j] = valeur;
+        if (valeur != 0 && coherente) {
+            int noeud = premierNoeud[(i * tailleGrille + j) * tailleGrille + valeur - 1];
+            // Une donnée dont une contrainte est déjà couverte contredit une donnée précédente
+            if (estCouverte(noeud)) {
+                coherente = false;
+            } else {
+                selectionner(noeud);
+                donnees[nombreDonnees++] = noeud;
+            }
+        }
+    }
+
+    /**
+     * Cherche la première solution
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean resoudre() {
+        return compterSolutions(1) == 1;
+    }
+
+    /**
+     * Fixe l'échéance surveillée pendant la recherche (délai, budget de noeuds, annulation)
+     * @param echeance l'échéance
+     */
+    public void setEcheance(Echeance echeance) {
+        this.echeance = echeance;
+    }
+
+    /**
+     * Compte les solutions de la grille sans dépasser une limite
+     * Si l'échéance est dépassée ou si le thread courant est interrompu, la recherche s'arrête
+     * et renvoie les solutions déjà comptées.
+     * @param limite le nombre maximal de solutions à compter
+     * @return le nombre de solutions trouvées, au plus limite
+     */
+    public long compterSolutions(long limite) {
+        mesure.reinitialiser();
+        this.nombreSolutions = 0;
+        this.limite = limite;
+        this.noeuds = 0;
+        this.interrompue = false;
+        if (coherente && limite > 0) {
+            rechercher(0);
+        }
+        mesure.ajouterNoeuds(noeuds);
+        Metriques.publier("dancingLinks", mesure);
+        return nombreSolutions;
+    }
+
+    /**
+     * Vérifie que la grille admet une et une seule solution
+     * Une recherche arrêtée par son échéance après la première solution ne prouve rien : elle renvoie false.
+     * @return true si la solution est unique, false sinon (ou si l'échéance a interrompu la vérification)
+     */
+    public boolean estUnique() {
+        return compterSolutions(2) == 1 && !interrompue;
+    }
+
+    /**
+     * Recherche récursive de l'algorithme X
+     * @param profondeur le nombre de candidats choisis
+     * @return true si la limite de solutions est atteinte, false sinon
+     */
+    private boolean rechercher(int profondeur) {
+        // Toutes les contraintes sont couvertes : on a une solution
+        if (droite[0] == 0) {
+            nombreSolutions++;
+            if (nombreSolutions == 1) {
+                enregistrerSolution(profondeur);
+                mesure.solutionTrouvee();
+            }
+            return nombreSolutions >= limite;
+        }
+        if (interrompue) {
+            return true;
+        }
+        // Le budget est vérifié à chaque noeud, le reste de l'échéance régulièrement ; la pile est alors dépilée normalement
+        if (echeance.depasseBudget(++noeuds) || ((noeuds & 1023) == 0 && echeance.estDepassee())) {
+            interrompue = true;
+            return true;
+        }
+
+        // On choisit la colonne qui a le moins de candidats
+        int c = droite[0];
+        for (int k = droite[c]; k != 0; k = droite[k]) {
+            if (taille[k] < taille[c]) {
+                c = k;
+            }
+        }
+        if (taille[c] == 0) {
+            return false;
+        }
+
+        couvrir(c);
+        boolean arret = false;
+        for (int r = bas[c]; r != c && !arret; r = bas[r]) {
+            choix[profondeur] = r;
+            for (int j = droite[r]; j != r; j = droite[j]) {
+                couvrir(colonne[j]);
+            }
+            arret = rechercher(profondeur + 1);
+            for (int j = gauche[r]; j != r; j = gauche[j]) {
+                decouvrir(colonne[j]);
+            }
+            if (!arret) {
+                mesure.retourArriere();
+            }
+        }
+        decouvrir(c);
+        return arret;
+    }
+
+    /**
+     * Recopie la grille de départ complétée par les candidats choisis
+     * @param profondeur le nombre de candidats choisis
+     */
+    private void enregistrerSolution(int profondeur) {
+        for (int i = 0; i < tailleGrille; i++) {
+            System.arraycopy(grille[i], 0, solution[i], 0, tailleGrille);
+        }
+        for (int k = 0; k < profondeur; k++) {
+            int indiceCandidat = candidat[choix[k]];
+            int caseIndice = indiceCandidat / tailleGrille;
+            solution[caseIndice / tailleGrille][caseIndice % tailleGrille] = indiceCandidat % tailleGrille + 1;
+        }
+    }
+
+    /**
+     * Vérifie si l'une des colonnes d'un candidat est déjà couverte
+     * @param noeud le premier noeud du candidat
+     * @return true si une colonne du candidat est couverte, false sinon
+     */
+    private boolean estCouverte(int noeud) {
+        int r = noeud;
+        do {
+            int c = colonne[r];
+            if (droite[gauche[c]] != c) {
+                return true;
+            }
+            r = droite[r];
+        } while (r != noeud);
+        return false;
+    }
+
+    /**
+     * Sélectionne un candidat en couvrant toutes ses colonnes
+     * @param noeud un noeud du candidat
+     */
+    private void selectionner(int noeud) {
+        int r = noeud;
+        do {
+            couvrir(colonne[r]);
+            r = droite[r];
+        } while (r != noeud);
+    }
+
+    /**
+     * Annule la sélection d'un candidat
+     * @param noeud le noeud passé à selectionner
+     */
+    private void deselectionner(int noeud) {
+        int r = gauche[noeud];
+        do {
+            decouvrir(colonne[r]);
+            r = gauche[r];
+        } while (r != gauche[noeud]);
+    }
+
+    /**
+     * Retire une colonne et toutes les lignes qui la couvrent
+     * @param c la colonne
+     */
+    private void couvrir(int c) {
+        droite[gauche[c]] = droite[c];
+        gauche[droite[c]] = gauche[c];
+        for (int i = bas[c]; i != c; i = bas[i]) {
+            for (int j = droite[i]; j != i; j = droite[j]) {
+                bas[haut[j]] = bas[j];
+                haut[bas[j]] = haut[j];
+                taille[colonne[j]]--;
+            }
+        }
+    }
+
+    /**
+     * Réinsère une colonne retirée par couvrir
+     * @param c la colonne
+     */
+    private void decouvrir(int c) {
+        for (int i = haut[c]; i != c; i = haut[i]) {
+            for (int j = gauche[i]; j != i; j = gauche[j]) {
+                taille[colonne[j]]++;
+                bas[haut[j]] = j;
+                haut[bas[j]] = j;
+            }
+        }
+        droite[gauche[c]] = c;
+        gauche[droite[c]] = c;
+    }
+
+    /**
+     * Indique si la dernière recherche a été interrompue avant d'être terminée
+     * @return true si la recherche a été interrompue, false sinon
+     */
+    public boolean estInterrompue() {
+        return this.interrompue;
+    }
+
+    /**
+     * Récupère la première solution trouvée lors de la dernière recherche
+     * @return la grille résolue
+     */
+    public int[][] getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Recopie la première solution trouvée lors de la dernière recherche dans une grille compacte
+     * @param destination la grille de destination, de même taille que le résolveur
+     */
+    public void copierSolution(GrilleCompacte destination) {
+        byte[] cases = destination.getCases();
+        for (int i = 0; i < tailleGrille; i++) {
+            int[] ligne = solution[i];
+            int debut = i * tailleGrille;
+            for (int j = 0; j < tailleGrille; j++) {
+                cases[debut + j] = (byte) ligne[j];
+            }
+        }
+    }
+
+    /**
+     * Récupère le nombre de noeuds explorés lors de la dernière recherche
+     * @return le nombre de noeuds
+     */
+    public long getNoeuds() {
+        return this.noeuds;
+    }
+
+    /**
+     * Récupère les compteurs de la dernière recherche
+     * @return la mesure
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+}
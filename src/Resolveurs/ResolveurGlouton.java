@@ -0,0 +1,340 @@
+package src.Resolveurs;
+
+import java.util.Arrays;
+import src.Grilles.Geometrie;
+import src.Grilles.GrilleCompacte;
+import src.Metriques.Mesure;
+import src.Metriques.Metriques;
+
+public class ResolveurGlouton {
+
+    private final int tailleGrille;
+    private final int[] lignes;
+    private final int[] colonnes;
+    private final int[] sousGrilles;
+    private final int[][] unites;
+    private final long pleine;
+    private final GrilleCompacte grille;
+    private final byte[] cases;
+    private final long[] masqueLignes;
+    private final long[] masqueColonnes;
+    private final long[] masqueSousGrilles;
+
+    // File à seaux : les cases vides sont rangées par nombre de candidats restants (-1 pour une case remplie)
+    private final int[] nombreCandidats;
+    private final int[] tetes;
+    private final int[] suivantes;
+    private final int[] precedentes;
+
+    private long limiteReparation;
+    // Cases fixées par une propagation de l'appelant, comptées dans la mesure de la résolution
+    private long propagationsPrealables;
+    private int vides;
+    private int meilleurVides;
+    private byte[] meilleur;
+    private long noeuds;
+    private boolean interrompue;
+    private boolean abandon;
+    private Echeance echeance = Echeance.aucune();
+    private final Mesure mesure = new Mesure();
+
+    /**
+     * Constructeur d'un résolveur glouton qui remplit d'abord la case la plus contrainte
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre (elle est copiée)
+     */
+    public ResolveurGlouton(int tailleSousGrille, int[][] grille) {
+        this(GrilleCompacte.depuis(grille));
+    }
+
+    /**
+     * Constructeur d'un résolveur glouton travaillant sur une grille compacte
+     * @param grille la grille à résoudre (elle est modifiée : elle contient le remplissage après resoudre())
+     */
+    public ResolveurGlouton(GrilleCompacte grille) {
+        Geometrie geometrie = grille.getGeometrie();
+        this.tailleGrille = geometrie.getTailleGrille();
+        this.lignes = geometrie.getLignes();
+        this.colonnes = geometrie.getColonnes();
+        this.sousGrilles = geometrie.getSousGrilles();
+        this.unites = geometrie.getUnites();
+        this.pleine = geometrie.getPleine();
+        this.grille = grille;
+        this.cases = grille.getCases();
+        this.masqueLignes = new long[tailleGrille];
+        this.masqueColonnes = new long[tailleGrille];
+        this.masqueSousGrilles = new long[tailleGrille];
+        this.nombreCandidats = new int[cases.length];
+        this.tetes = new int[tailleGrille + 1];
+        this.suivantes = new int[cases.length];
+        this.precedentes = new int[cases.length];
+    }
+
+    /**
+     * Fixe le nombre de noeuds autorisés pour réparer le remplissage par retour arrière quand il est bloqué
+     * @param limiteReparation le nombre maximal de noeuds, 0 pour s'arrêter dès le premier blocage
+     */
+    public void setLimiteReparation(long limiteReparation) {
+        this.limiteReparation = limiteReparation;
+    }
+
+    /**
+     * Indique le nombre de cases déjà fixées par une propagation de l'appelant, pour que la mesure publiée
+     * par la résolution les compte
+     * @param propagationsPrealables le nombre de cases fixées avant la résolution
+     */
+    public void setPropagationsPrealables(long propagationsPrealables) {
+        this.propagationsPrealables = propagationsPrealables;
+    }
+
+    /**
+     * Fixe l'échéance surveillée pendant la recherche (délai, budget de noeuds, annulation)
+     * @param echeance l'échéance
+     */
+    public void setEcheance(Echeance echeance) {
+        this.echeance = echeance;
+    }
+
+    /**
+     * Remplit les cases vides en choisissant toujours celle qui a le moins de candidats
+     * Le remplissage s'arrête dès que la grille est complète ou qu'une case n'a plus de candidat ;
+     * avec une limite de réparation, il revient alors sur ses derniers choix tant que la limite le permet.
+     * Si la grille n'est pas complétée, elle garde le remplissage qui a laissé le moins de cases vides.
+     * @return true si la grille a été complétée, false sinon
+     */
+    public boolean resoudre() {
+        mesure.reinitialiser();
+        mesure.ajouterPropagations(propagationsPrealables);
+        noeuds = 0;
+        interrompue = false;
+        abandon = false;
+        meilleur = null;
+        boolean resolu = initialiser() && chercher();
+        if (resolu) {
+            mesure.solutionTrouvee();
+        } else if (meilleur != null && meilleurVides < vides) {
+            System.arraycopy(meilleur, 0, cases, 0, cases.length);
+        }
+        mesure.ajouterNoeuds(noeuds);
+        Metriques.publier("glouton", mesure);
+        return resolu;
+    }
+
+    /**
+     * Calcule les masques des unités et range chaque case vide dans le seau de son nombre de candidats
+     * @return false si une valeur de départ se répète dans une unité, true sinon
+     */
+    private boolean initialiser() {
+        Arrays.fill(masqueLignes, 0);
+        Arrays.fill(masqueColonnes, 0);
+        Arrays.fill(masqueSousGrilles, 0);
+        Arrays.fill(tetes, -1);
+        vides = 0;
+        for (int indice = 0; indice < cases.length; indice++) {
+            int valeur = cases[indice];
+            if (valeur != 0) {
+                long bit = 1L << (valeur - 1);
+                if (((masqueLignes[lignes[indice]] | masqueColonnes[colonnes[indice]]
+                        | masqueSousGrilles[sousGrilles[indice]]) & bit) != 0) {
+                    return false;
+                }
+                masqueLignes[lignes[indice]] |= bit;
+                masqueColonnes[colonnes[indice]] |= bit;
+                masqueSousGrilles[sousGrilles[indice]] |= bit;
+            }
+        }
+        for (int indice = 0; indice < cases.length; indice++) {
+            nombreCandidats[indice] = -1;
+            if (cases[indice] == 0) {
+                vides++;
+                inserer(indice, Long.bitCount(candidats(indice)));
+            }
+        }
+        meilleurVides = vides;
+        return true;
+    }
+
+    /**
+     * Remplit la case la plus contrainte avec ses candidats par ordre croissant
+     * @return true si la grille a été complétée, false sinon
+     */
+    private boolean chercher() {
+        if (interrompue) {
+            return false;
+        }
+        // Le budget est vérifié à chaque noeud, le délai, l'annulation et la course entre résolveurs régulièrement
+        if (echeance.depasseBudget(++noeuds) || ((noeuds & 1023) == 0 && echeance.estDepassee())) {
+            interrompue = true;
+            return false;
+        }
+
+        int indice = plusContrainte();
+        if (indice < 0) {
+            return true;
+        }
+        long candidats = candidats(indice);
+        while (candidats != 0) {
+            long bit = candidats & -candidats;
+            candidats ^= bit;
+            placer(indice, bit);
+            if (chercher()) {
+                return true;
+            }
+            // Bloqué : on garde le remplissage le plus avancé, puis on répare tant que la limite le permet
+            if (abandon || interrompue || noeuds >= limiteReparation) {
+                abandon = true;
+                return false;
+            }
+            if (vides < meilleurVides) {
+                meilleurVides = vides;
+                meilleur = cases.clone();
+            }
+            enlever(indice, bit);
+            mesure.retourArriere();
+        }
+        return false;
+    }
+
+    /**
+     * Récupère la case vide qui a le moins de candidats
+     * @return l'indice de la case, -1 si la grille est complète
+     */
+    private int plusContrainte() {
+        for (int nombre = 0; nombre <= tailleGrille; nombre++) {
+            if (tetes[nombre] >= 0) {
+                return tetes[nombre];
+            }
+        }
+        return -1;
+    }
+
+    private long candidats(int indice) {
+        return ~(masqueLignes[lignes[indice]] | masqueColonnes[colonnes[indice]]
+                | masqueSousGrilles[sousGrilles[indice]]) & pleine;
+    }
+
+    /**
+     * Place une valeur et met à jour le seau des cases vides de ses trois unités
+     */
+    private void placer(int indice, long bit) {
+        retirer(indice);
+        vides--;
+        cases[indice] = (byte) (Long.numberOfTrailingZeros(bit) + 1);
+        masqueLignes[lignes[indice]] |= bit;
+        masqueColonnes[colonnes[indice]] |= bit;
+        masqueSousGrilles[sousGrilles[indice]] |= bit;
+        actualiserVoisines(indice);
+    }
+
+    /**
+     * Vide une case et met à jour le seau des cases vides de ses trois unités
+     */
+    private void enlever(int indice, long bit) {
+        cases[indice] = 0;
+        masqueLignes[lignes[indice]] ^= bit;
+        masqueColonnes[colonnes[indice]] ^= bit;
+        masqueSousGrilles[sousGrilles[indice]] ^= bit;
+        vides++;
+        inserer(indice, Long.bitCount(candidats(indice)));
+        actualiserVoisines(indice);
+    }
+
+    /**
+     * Recalcule le nombre de candidats des cases vides qui partagent une unité avec une case
+     * @param indice la case qui vient de changer
+     */
+    private void actualiserVoisines(int indice) {
+        actualiserUnite(unites[lignes[indice]]);
+        actualiserUnite(unites[tailleGrille + colonnes[indice]]);
+        actualiserUnite(unites[2 * tailleGrille + sousGrilles[indice]]);
+    }
+
+    private void actualiserUnite(int[] unite) {
+        for (int voisine : unite) {
+            if (nombreCandidats[voisine] >= 0) {
+                int nombre = Long.bitCount(candidats(voisine));
+                if (nombre != nombreCandidats[voisine]) {
+                    retirer(voisine);
+                    inserer(voisine, nombre);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ajoute une case vide en tête du seau de son nombre de candidats
+     */
+    private void inserer(int indice, int nombre) {
+        nombreCandidats[indice] = nombre;
+        precedentes[indice] = -1;
+        suivantes[indice] = tetes[nombre];
+        if (tetes[nombre] >= 0) {
+            precedentes[tetes[nombre]] = indice;
+        }
+        tetes[nombre] = indice;
+    }
+
+    /**
+     * Retire une case de son seau
+     */
+    private void retirer(int indice) {
+        int nombre = nombreCandidats[indice];
+        if (precedentes[indice] >= 0) {
+            suivantes[precedentes[indice]] = suivantes[indice];
+        } else {
+            tetes[nombre] = suivantes[indice];
+        }
+        if (suivantes[indice] >= 0) {
+            precedentes[suivantes[indice]] = precedentes[indice];
+        }
+        nombreCandidats[indice] = -1;
+    }
+
+    /**
+     * Récupère une copie int[][] de la grille (complète si resoudre() a renvoyé true)
+     * @return la grille
+     */
+    public int[][] getGrille() {
+        return this.grille.versTableau();
+    }
+
+    /**
+     * Récupère la grille compacte sur laquelle travaille le résolveur
+     * @return la grille compacte
+     */
+    public GrilleCompacte getGrilleCompacte() {
+        return this.grille;
+    }
+
+    /**
+     * Récupère le nombre de cases restées vides après la dernière résolution
+     * @return le nombre de cases vides
+     */
+    public int getCasesVides() {
+        return this.grille.nombreVides();
+    }
+
+    /**
+     * Indique si la dernière résolution a été arrêtée par son échéance avant d'être terminée
+     * @return true si la résolution a été interrompue, false sinon
+     */
+    public boolean estInterrompue() {
+        return this.interrompue;
+    }
+
+    /**
+     * Récupère le nombre de noeuds explorés lors de la dernière résolution
+     * @return le nombre de noeuds
+     */
+    public long getNoeuds() {
+        return this.noeuds;
+    }
+
+    /**
+     * Récupère les compteurs de la dernière résolution
+     * @return la mesure
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+}
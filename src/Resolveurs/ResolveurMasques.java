@@ -0,0 +1,219 @@
+package src.Resolveurs;
+
+import src.Grilles.Geometrie;
+import src.Grilles.GrilleCompacte;
+import src.Metriques.Mesure;
+import src.Metriques.Metriques;
+
+public class ResolveurMasques {
+
+    private final int tailleGrille;
+    private final int[] sousGrilles;
+    private final GrilleCompacte grille;
+    private final byte[] cases;
+    private final long[] masqueLignes;
+    private final long[] masqueColonnes;
+    private final long[] masqueSousGrilles;
+    private final int[] casesVides;
+    private long noeuds;
+    private boolean interrompue;
+    private Echeance echeance = Echeance.aucune();
+    private final Mesure mesure = new Mesure();
+
+    /**
+     * Constructeur d'un résolveur par backtracking sur masques de bits
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre (elle est copiée)
+     */
+    public ResolveurMasques(int tailleSousGrille, int[][] grille) {
+        this(copie(tailleSousGrille, grille));
+    }
+
+    /**
+     * Constructeur d'un résolveur par backtracking sur masques de bits travaillant sur une grille compacte
+     * @param grille la grille à résoudre (elle est modifiée : elle contient la solution après resoudre())
+     */
+    public ResolveurMasques(GrilleCompacte grille) {
+        Geometrie geometrie = grille.getGeometrie();
+        this.tailleGrille = geometrie.getTailleGrille();
+        this.sousGrilles = geometrie.getSousGrilles();
+        this.grille = grille;
+        this.cases = grille.getCases();
+        this.masqueLignes = new long[tailleGrille];
+        this.masqueColonnes = new long[tailleGrille];
+        this.masqueSousGrilles = new long[tailleGrille];
+
+        // On remplit les masques et on liste les cases vides
+        int[] vides = new int[cases.length];
+        int nombreVides = 0;
+        for (int indice = 0; indice < cases.length; indice++) {
+            int valeur = cases[indice];
+            if (valeur == 0) {
+                vides[nombreVides++] = indice;
+            } else {
+                long bit = 1L << (valeur - 1);
+                masqueLignes[indice / tailleGrille] |= bit;
+                masqueColonnes[indice % tailleGrille] |= bit;
+                masqueSousGrilles[sousGrilles[indice]] |= bit;
+            }
+        }
+        this.casesVides = new int[nombreVides];
+        System.arraycopy(vides, 0, this.casesVides, 0, nombreVides);
+    }
+
+    /**
+     * Copie une grille int[][] dans une grille compacte
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à copier
+     * @return la copie compacte
+     */
+    private static GrilleCompacte copie(int tailleSousGrille, int[][] grille) {
+        GrilleCompacte compacte = new GrilleCompacte(tailleSousGrille);
+        compacte.charger(grille);
+        return compacte;
+    }
+
+    /**
+     * Fixe l'échéance surveillée pendant la recherche (délai, budget de noeuds, annulation)
+     * @param echeance l'échéance
+     */
+    public void setEcheance(Echeance echeance) {
+        this.echeance = echeance;
+    }
+
+    /**
+     * Résout la grille par backtracking
+     * La recherche s'arrête sans solution si l'échéance est dépassée ou si le thread courant est interrompu.
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean resoudre() {
+        mesure.reinitialiser();
+        noeuds = 0;
+        interrompue = false;
+        boolean resolu = grilleCoherente() && resoudre(0);
+        if (resolu) {
+            mesure.solutionTrouvee();
+        }
+        mesure.ajouterNoeuds(noeuds);
+        Metriques.publier("backtrackingMasques", mesure);
+        return resolu;
+    }
+
+    /**
+     * Place une valeur dans la case vide d'indice donné puis passe à la suivante
+     * @param indice l'indice de la case vide à remplir dans casesVides
+     * @return true si la grille a pu être complétée, false sinon
+     */
+    private boolean resoudre(int indice) {
+        // Toutes les cases vides sont remplies
+        if (indice == casesVides.length) {
+            return true;
+        }
+        if (interrompue) {
+            return false;
+        }
+        // Le budget est vérifié à chaque noeud, le délai, l'annulation et la course entre résolveurs régulièrement
+        if (echeance.depasseBudget(++noeuds) || ((noeuds & 1023) == 0 && echeance.estDepassee())) {
+            interrompue = true;
+            return false;
+        }
+
+        int caseVide = casesVides[indice];
+        int ligne = caseVide / tailleGrille;
+        int col = caseVide % tailleGrille;
+        int sousGrille = sousGrilles[caseVide];
+
+        // Les candidats sont les valeurs absentes de la ligne, de la colonne et de la sous-grille
+        long pleine = tailleGrille == 64 ? -1L : (1L << tailleGrille) - 1;
+        long candidats = ~(masqueLignes[ligne] | masqueColonnes[col] | masqueSousGrilles[sousGrille]) & pleine;
+
+        // Parcours des candidats par ordre croissant
+        while (candidats != 0) {
+            long bit = candidats & -candidats;
+            candidats ^= bit;
+
+            cases[caseVide] = (byte) (Long.numberOfTrailingZeros(bit) + 1);
+            masqueLignes[ligne] |= bit;
+            masqueColonnes[col] |= bit;
+            masqueSousGrilles[sousGrille] |= bit;
+
+            if (resoudre(indice + 1)) {
+                return true;
+            }
+
+            masqueLignes[ligne] ^= bit;
+            masqueColonnes[col] ^= bit;
+            masqueSousGrilles[sousGrille] ^= bit;
+            mesure.retourArriere();
+        }
+        cases[caseVide] = 0;
+        return false;
+    }
+
+    /**
+     * Vérifie que les valeurs initiales ne se répètent dans aucune ligne, colonne ou sous-grille
+     * @return true si la grille de départ est cohérente, false sinon
+     */
+    private boolean grilleCoherente() {
+        int remplies = tailleGrille * tailleGrille - casesVides.length;
+        int total = 0;
+        for (int k = 0; k < tailleGrille; k++) {
+            total += Long.bitCount(masqueLignes[k]);
+        }
+        if (total != remplies) {
+            return false;
+        }
+        total = 0;
+        for (int k = 0; k < tailleGrille; k++) {
+            total += Long.bitCount(masqueColonnes[k]);
+        }
+        if (total != remplies) {
+            return false;
+        }
+        total = 0;
+        for (int k = 0; k < tailleGrille; k++) {
+            total += Long.bitCount(masqueSousGrilles[k]);
+        }
+        return total == remplies;
+    }
+
+    /**
+     * Récupère une copie int[][] de la grille (résolue si resoudre() a renvoyé true)
+     * @return la grille
+     */
+    public int[][] getGrille() {
+        return this.grille.versTableau();
+    }
+
+    /**
+     * Récupère la grille compacte sur laquelle travaille le résolveur
+     * @return la grille compacte
+     */
+    public GrilleCompacte getGrilleCompacte() {
+        return this.grille;
+    }
+
+    /**
+     * Indique si la dernière résolution a été arrêtée par son échéance avant d'être terminée
+     * @return true si la résolution a été interrompue, false sinon
+     */
+    public boolean estInterrompue() {
+        return this.interrompue;
+    }
+
+    /**
+     * Récupère le nombre de noeuds explorés lors de la dernière résolution
+     * @return le nombre de noeuds
+     */
+    public long getNoeuds() {
+        return this.noeuds;
+    }
+
+    /**
+     * Récupère les compteurs de la dernière résolution
+     * @return la mesure
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+}
@@ -0,0 +1,381 @@
+package src.Resolveurs;
+
+import src.Grilles.GrilleCompacte;
+import src.Metriques.Mesure;
+import src.Metriques.Metriques;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ResolveurParallele {
+
+    private final int tailleSousGrille;
+    private final int tailleGrille;
+    private final int[][] grille;
+    private final int parallelisme;
+    private final int profondeurCoupure;
+
+    private final AtomicReference<int[]> solution = new AtomicReference<>();
+    private final LongAdder noeuds = new LongAdder();
+    private final LongAdder retoursArriere = new LongAdder();
+    private final Mesure mesure = new Mesure();
+    private volatile long instantPremiereSolution;
+    private volatile boolean arret;
+    private volatile boolean interrompu;
+    // Noeuds de toutes les tâches, comptés un à un seulement si l'échéance a un budget
+    private final AtomicLong noeudsVerifies = new AtomicLong();
+    private Echeance echeance = Echeance.aucune();
+    private long limite;
+    // Thread qui a lancé la recherche : son interruption arrête les tâches, car pool.invoke ne l'écoute pas
+    private Thread appelant;
+
+    /**
+     * Constructeur d'un résolveur par backtracking parallèle (fork/join)
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     * @param parallelisme le nombre de threads du pool
+     * @param profondeurCoupure la profondeur jusqu'à laquelle l'arbre est découpé en sous-tâches
+     */
+    public ResolveurParallele(int tailleSousGrille, int[][] grille, int parallelisme, int profondeurCoupure) {
+        this.tailleSousGrille = tailleSousGrille;
+        this.tailleGrille = tailleSousGrille * tailleSousGrille;
+        this.grille = grille;
+        this.parallelisme = parallelisme;
+        this.profondeurCoupure = profondeurCoupure;
+    }
+
+    /**
+     * Constructeur d'un résolveur par backtracking parallèle pour une grille compacte
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     * @param parallelisme le nombre de threads du pool
+     * @param profondeurCoupure la profondeur jusqu'à laquelle l'arbre est découpé en sous-tâches
+     */
+    public ResolveurParallele(GrilleCompacte grille, int parallelisme, int profondeurCoupure) {
+        this(grille.getGeometrie().getTailleSousGrille(), grille.versTableau(), parallelisme, profondeurCoupure);
+    }
+
+    /**
+     * Constructeur d'un résolveur parallèle utilisant tous les coeurs disponibles
+     * @param tailleSousGrille la taille de la sous-grille
+     * @param grille la grille à résoudre (elle n'est pas modifiée)
+     */
+    public ResolveurParallele(int tailleSousGrille, int[][] grille) {
+        this(tailleSousGrille, grille, Runtime.getRuntime().availableProcessors(), 4);
+    }
+
+    /**
+     * Fixe l'échéance surveillée par toutes les tâches (délai, budget de noeuds, annulation)
+     * @param echeance l'échéance
+     */
+    public void setEcheance(Echeance echeance) {
+        this.echeance = echeance;
+    }
+
+    /**
+     * Cherche une solution, la première tâche qui en trouve une arrête les autres
+     * @return true si une solution a été trouvée, false sinon
+     */
+    public boolean resoudre() {
+        return lancer(1) == 1;
+    }
+
+    /**
+     * Compte les solutions sans dépasser une limite
+     * Chaque sous-arbre est plafonné à la limite avant d'être sommé, le résultat
+     * ne dépend donc pas de l'ordre d'exécution des tâches.
+     * @param limite le nombre maximal de solutions à compter
+     * @return le nombre de solutions, au plus limite
+     */
+    public long compterSolutions(long limite) {
+        return lancer(limite);
+    }
+
+    /**
+     * Construit la tâche racine et l'exécute dans un pool dédié
+     * @param limite le nombre maximal de solutions à compter
+     * @return le nombre de solutions trouvées, au plus limite
+     */
+    private long lancer(long limite) {
+        this.limite = limite;
+        this.appelant = Thread.currentThread();
+        this.arret = false;
+        this.interrompu = false;
+        this.noeudsVerifies.set(0);
+        this.solution.set(null);
+        this.noeuds.reset();
+        this.retoursArriere.reset();
+        this.instantPremiereSolution = -1;
+        mesure.reinitialiser();
+
+        Tache racine = new Tache(0);
+        for (int i = 0; i < tailleGrille; i++) {
+            for (int j = 0; j < tailleGrille; j++) {
+                int valeur = grille[i][j];
+                if (valeur != 0) {
+                    long bit = 1L << (valeur - 1);
+                    int b = sousGrille(i, j);
+                    // Une valeur répétée dans une unité rend la grille insoluble
+                    if (((racine.lignes[i] | racine.colonnes[j] | racine.sousGrilles[b]) & bit) != 0) {
+                        return 0;
+                    }
+                    racine.placer(i * tailleGrille + j, valeur);
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelisme);
+        try {
+            return Math.min(pool.invoke(racine), limite);
+        } finally {
+            pool.shutdown();
+            mesure.ajouterNoeuds(noeuds.sum());
+            mesure.ajouterRetoursArriere(retoursArriere.sum());
+            if (instantPremiereSolution >= 0) {
+                mesure.solutionTrouvee(instantPremiereSolution);
+            }
+            Metriques.publier("backtrackingParallele", mesure);
+        }
+    }
+
+    /**
+     * Sous-arbre de recherche possédant sa propre copie de la grille et des masques
+     */
+    private final class Tache extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int profondeur;
+        private final int[] cases;
+        private final long[] lignes;
+        private final long[] colonnes;
+        private final long[] sousGrilles;
+        private long noeudsLocaux;
+        private long retoursLocaux;
+
+        Tache(int profondeur) {
+            this.profondeur = profondeur;
+            this.cases = new int[tailleGrille * tailleGrille];
+            this.lignes = new long[tailleGrille];
+            this.colonnes = new long[tailleGrille];
+            this.sousGrilles = new long[tailleGrille];
+        }
+
+        Tache(Tache parent) {
+            this.profondeur = parent.profondeur + 1;
+            this.cases = parent.cases.clone();
+            this.lignes = parent.lignes.clone();
+            this.colonnes = parent.colonnes.clone();
+            this.sousGrilles = parent.sousGrilles.clone();
+        }
+
+        @Override
+        protected Long compute() {
+            long total = profondeur < profondeurCoupure ? decouper() : explorer();
+            noeuds.add(noeudsLocaux);
+            retoursArriere.add(retoursLocaux);
+            return total;
+        }
+
+        /**
+         * Crée une sous-tâche par candidat de la case la plus contrainte
+         * @return le nombre de solutions du sous-arbre, au plus limite
+         */
+        private long decouper() {
+            if (arret) {
+                return 0;
+            }
+            int indice = caseLaPlusContrainte();
+            if (indice < 0) {
+                enregistrer();
+                return 1;
+            }
+            if (noeudDepasse()) {
+                return 0;
+            }
+
+            List<Tache> sousTaches = new ArrayList<>();
+            long candidats = candidats(indice);
+            while (candidats != 0) {
+                long bit = candidats & -candidats;
+                candidats ^= bit;
+                Tache sousTache = new Tache(this);
+                sousTache.placer(indice, Long.numberOfTrailingZeros(bit) + 1);
+                sousTaches.add(sousTache);
+            }
+            invokeAll(sousTaches);
+
+            // Somme dans l'ordre des candidats pour rester déterministe
+            long total = 0;
+            for (Tache sousTache : sousTaches) {
+                total += sousTache.join();
+            }
+            return Math.min(total, limite);
+        }
+
+        /**
+         * Backtracking séquentiel sur la case la plus contrainte
+         * @return le nombre de solutions du sous-arbre, au plus limite
+         */
+        private long explorer() {
+            if (arret) {
+                return 0;
+            }
+            int indice = caseLaPlusContrainte();
+            if (indice < 0) {
+                enregistrer();
+                return 1;
+            }
+            if (noeudDepasse()) {
+                return 0;
+            }
+
+            long total = 0;
+            long candidats = candidats(indice);
+            while (candidats != 0 && total < limite) {
+                long bit = candidats & -candidats;
+                candidats ^= bit;
+                placer(indice, Long.numberOfTrailingZeros(bit) + 1);
+                total += explorer();
+                retirer(indice);
+                retoursLocaux++;
+            }
+            return total;
+        }
+
+        /**
+         * Compte un noeud et vérifie l'échéance : le budget à chaque noeud, le reste tous les 1024 noeuds
+         * L'échéance ne voit que l'interruption du thread du pool, celle de l'appelant est vérifiée à part.
+         * @return true si la recherche doit s'arrêter, toutes tâches confondues
+         */
+        private boolean noeudDepasse() {
+            noeudsLocaux++;
+            if ((echeance.aUnBudget() && echeance.depasseBudget(noeudsVerifies.incrementAndGet()))
+                    || ((noeudsLocaux & 1023) == 0 && (echeance.estDepassee() || appelant.isInterrupted()))) {
+                interrompu = true;
+                arret = true;
+            }
+            return arret;
+        }
+
+        /**
+         * Cherche la case vide qui a le moins de candidats
+         * @return l'indice de la case, -1 si la grille est complète
+         */
+        private int caseLaPlusContrainte() {
+            int meilleure = -1;
+            int meilleurNombre = Integer.MAX_VALUE;
+            for (int indice = 0; indice < cases.length; indice++) {
+                if (cases[indice] == 0) {
+                    int nombre = Long.bitCount(candidats(indice));
+                    if (nombre < meilleurNombre) {
+                        meilleure = indice;
+                        meilleurNombre = nombre;
+                        if (nombre <= 1) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return meilleure;
+        }
+
+        /**
+         * Calcule les candidats d'une case vide
+         * @param indice l'indice de la case
+         * @return le masque des valeurs possibles
+         */
+        private long candidats(int indice) {
+            int ligne = indice / tailleGrille;
+            int col = indice % tailleGrille;
+            long pleine = tailleGrille == 64 ? -1L : (1L << tailleGrille) - 1;
+            return ~(lignes[ligne] | colonnes[col] | sousGrilles[sousGrille(ligne, col)]) & pleine;
+        }
+
+        private void placer(int indice, int valeur) {
+            int ligne = indice / tailleGrille;
+            int col = indice % tailleGrille;
+            long bit = 1L << (valeur - 1);
+            cases[indice] = valeur;
+            lignes[ligne] |= bit;
+            colonnes[col] |= bit;
+            sousGrilles[sousGrille(ligne, col)] |= bit;
+        }
+
+        private void retirer(int indice) {
+            int ligne = indice / tailleGrille;
+            int col = indice % tailleGrille;
+            long bit = 1L << (cases[indice] - 1);
+            cases[indice] = 0;
+            lignes[ligne] ^= bit;
+            colonnes[col] ^= bit;
+            sousGrilles[sousGrille(ligne, col)] ^= bit;
+        }
+
+        /**
+         * Conserve la première solution trouvée et, en mode première solution, arrête les autres tâches
+         */
+        private void enregistrer() {
+            if (solution.compareAndSet(null, cases.clone())) {
+                instantPremiereSolution = System.nanoTime();
+            }
+            if (limite == 1) {
+                arret = true;
+            }
+        }
+    }
+
+    /**
+     * Calcule l'indice de la sous-grille contenant une case
+     * @param ligne la ligne
+     * @param col la colonne
+     * @return l'indice de la sous-grille
+     */
+    private int sousGrille(int ligne, int col) {
+        return (ligne / tailleSousGrille) * tailleSousGrille + col / tailleSousGrille;
+    }
+
+    /**
+     * Récupère une solution trouvée lors de la dernière recherche
+     * @return la grille résolue, null si aucune solution n'a été trouvée
+     */
+    public int[][] getSolution() {
+        int[] cases = solution.get();
+        if (cases == null) {
+            return null;
+        }
+        int[][] resultat = new int[tailleGrille][tailleGrille];
+        for (int i = 0; i < tailleGrille; i++) {
+            System.arraycopy(cases, i * tailleGrille, resultat[i], 0, tailleGrille);
+        }
+        return resultat;
+    }
+
+    /**
+     * Indique si la dernière recherche a été arrêtée par son échéance avant d'être terminée
+     * @return true si la recherche a été interrompue, false sinon
+     */
+    public boolean estInterrompue() {
+        return this.interrompu;
+    }
+
+    /**
+     * Récupère les compteurs de la dernière recherche
+     * @return la mesure
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+
+    /**
+     * Récupère le nombre de noeuds explorés par toutes les tâches lors de la dernière recherche
+     * @return le nombre de noeuds
+     */
+    public long getNoeuds() {
+        return this.noeuds.sum();
+    }
+}
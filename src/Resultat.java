@@ -0,0 +1,98 @@
+package src;
+
+import src.Metriques.Mesure;
+
+public final class Resultat {
+
+    /**
+     * Issue d'une résolution
+     */
+    public enum Statut {
+        /** La grille renvoyée est une solution */
+        RESOLU,
+        /** La méthode complète a prouvé que la grille n'a pas de solution */
+        SANS_SOLUTION,
+        /** La méthode incomplète s'est arrêtée sans trouver de solution */
+        NON_RESOLU,
+        /** La résolution a été arrêtée par son échéance (délai, budget ou annulation) avant d'aboutir */
+        HORS_DELAI
+    }
+
+    private final Statut statut;
+    private final int[][] grille;
+    private final long noeuds;
+    private final long dureeNanos;
+    private final int evaluation;
+    private final int casesFixees;
+    private final Mesure mesure;
+
+    /**
+     * Constructeur du résultat d'une résolution
+     * @param statut l'issue de la résolution
+     * @param grille la grille obtenue (la solution si le statut est RESOLU)
+     * @param noeuds le nombre de noeuds explorés, ou d'itérations pour les méthodes incomplètes
+     * @param dureeNanos la durée de la résolution en nanosecondes
+     * @param evaluation 0 pour une solution, le nombre de contraintes non respectées (de cases vides pour
+     *                   l'heuristique gloutonne) pour une méthode incomplète, -1 si aucune grille n'est évaluée
+     * @param casesFixees le nombre de cases fixées par la propagation avant la recherche
+     */
+    public Resultat(Statut statut, int[][] grille, long noeuds, long dureeNanos, int evaluation, int casesFixees) {
+        this(statut, grille, noeuds, dureeNanos, evaluation, casesFixees, null);
+    }
+
+    /**
+     * Constructeur du résultat d'une résolution avec les compteurs détaillés du moteur
+     * @param statut l'issue de la résolution
+     * @param grille la grille obtenue (la solution si le statut est RESOLU)
+     * @param noeuds le nombre de noeuds explorés, ou d'itérations pour les méthodes incomplètes
+     * @param dureeNanos la durée de la résolution en nanosecondes
+     * @param evaluation l'évaluation de la grille obtenue (voir le constructeur précédent)
+     * @param casesFixees le nombre de cases fixées par la propagation avant la recherche
+     * @param mesure les compteurs du moteur, null s'il n'en fournit pas
+     */
+    public Resultat(Statut statut, int[][] grille, long noeuds, long dureeNanos, int evaluation, int casesFixees, Mesure mesure) {
+        this.statut = statut;
+        this.grille = grille;
+        this.noeuds = noeuds;
+        this.dureeNanos = dureeNanos;
+        this.evaluation = evaluation;
+        this.casesFixees = casesFixees;
+        this.mesure = mesure;
+    }
+
+    public Statut getStatut() {
+        return this.statut;
+    }
+
+    public boolean estResolu() {
+        return this.statut == Statut.RESOLU;
+    }
+
+    public int[][] getGrille() {
+        return this.grille;
+    }
+
+    public long getNoeuds() {
+        return this.noeuds;
+    }
+
+    public long getDureeNanos() {
+        return this.dureeNanos;
+    }
+
+    public int getEvaluation() {
+        return this.evaluation;
+    }
+
+    public int getCasesFixees() {
+        return this.casesFixees;
+    }
+
+    /**
+     * Récupère les compteurs détaillés du moteur (retours arrière, mouvements, redémarrages...)
+     * @return la mesure, null si le moteur n'en fournit pas
+     */
+    public Mesure getMesure() {
+        return this.mesure;
+    }
+}
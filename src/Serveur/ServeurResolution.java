@@ -0,0 +1,533 @@
+package src.Serveur;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import src.Grilles.GrilleCompacte;
+import src.Grilles.Verificateur;
+import src.Lots.FormatGrille;
+import src.Metriques.HistogrammeLatences;
+import src.Resolveurs.Echeance;
+import src.Resolveurs.ResolveurChoco;
+import src.Resolveurs.ResolveurDLX;
+import src.Resolveurs.ResolveurMasques;
+import src.Resultat;
+
+public class ServeurResolution {
+
+    /**
+     * Moteur de résolution d'une demande, choisi par le paramètre moteur de l'URL
+     */
+    public enum Moteur {
+        /** Dancing Links, le moteur par défaut : exact et rapide à toutes les tailles */
+        DANCING_LINKS("dancingLinks"),
+        /** Backtracking sur masques de bits */
+        MASQUES("masques"),
+        /** ChocoSolver, avec un modèle réutilisé par taille de grille */
+        CHOCO("choco");
+
+        private final String nom;
+
+        Moteur(String nom) {
+            this.nom = nom;
+        }
+
+        /**
+         * Retrouve un moteur depuis son nom dans l'URL
+         * @param nom le nom du moteur
+         * @return le moteur, null si le nom est inconnu
+         */
+        static Moteur depuis(String nom) {
+            for (Moteur moteur : values()) {
+                if (moteur.nom.equals(nom)) {
+                    return moteur;
+                }
+            }
+            return null;
+        }
+
+        public String getNom() {
+            return this.nom;
+        }
+    }
+
+    /**
+     * Grille reçue, en attente d'un thread de résolution
+     */
+    private static final class Demande {
+        private final int[][] grille;
+        private final boolean generalise;
+        private final Moteur moteur;
+        private final Echeance echeance;
+        private final CompletableFuture<Reponse> reponse = new CompletableFuture<>();
+
+        private Demande(int[][] grille, boolean generalise, Moteur moteur, Echeance echeance) {
+            this.grille = grille;
+            this.generalise = generalise;
+            this.moteur = moteur;
+            this.echeance = echeance;
+        }
+    }
+
+    /**
+     * Résolveurs et vérificateurs d'un thread de résolution, un par taille de sous-grille, réutilisés d'un lot à l'autre
+     */
+    private static final class Resolveurs {
+        private final Map<Integer, ResolveurDLX> dancingLinks = new HashMap<>();
+        private final Map<Integer, ResolveurChoco> chocos = new HashMap<>();
+        private final Map<Integer, Verificateur> verificateurs = new HashMap<>();
+    }
+
+    /**
+     * Issue d'une demande, rendue par le thread de résolution
+     */
+    private static final class Reponse {
+        private final Resultat.Statut statut;
+        private final String solution;
+        private final long resolutionNanos;
+
+        private Reponse(Resultat.Statut statut, String solution, long resolutionNanos) {
+            this.statut = statut;
+            this.solution = solution;
+            this.resolutionNanos = resolutionNanos;
+        }
+    }
+
+    // Une grille 64x64 au format généralisé tient en moins de 16 Ko : au-delà, la demande est refusée (413)
+    private static final int TAILLE_MAX_CORPS = 64 * 1024;
+
+    private final HttpServer serveur;
+    private final ExecutorService requetes;
+    private final BlockingQueue<Demande> file;
+    private final List<Thread> travailleurs = new ArrayList<>();
+    private final int tailleLot;
+    private final long delaiNanos;
+
+    private final HistogrammeLatences latences = new HistogrammeLatences();
+    private final LongAdder recues = new LongAdder();
+    private final LongAdder rejetees = new LongAdder();
+    private final LongAdder resolues = new LongAdder();
+    private final LongAdder sansSolution = new LongAdder();
+    private final LongAdder horsDelai = new LongAdder();
+    private final LongAdder lots = new LongAdder();
+    private final LongAdder grillesEnLot = new LongAdder();
+
+    /**
+     * Constructeur d'un serveur de résolution HTTP sur l'interface locale
+     * Les requêtes sont acceptées par des threads virtuels (Java 21 et plus, sinon un pool de threads) qui
+     * ne font qu'attendre ; la résolution est faite par un petit nombre de threads de calcul qui vident la
+     * file des demandes par lots.
+     * @param port le port d'écoute, 0 pour un port libre
+     * @param nombreTravailleurs le nombre de threads de résolution
+     * @param capaciteFile le nombre maximal de demandes en attente, au-delà le serveur répond 503
+     * @param tailleLot le nombre maximal de demandes traitées par un thread de résolution avant de revenir à la file
+     * @param delai le délai de résolution d'une demande, compté à partir de son arrivée
+     * @param unite l'unité du délai
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public ServeurResolution(int port, int nombreTravailleurs, int capaciteFile, int tailleLot, long delai,
+                             TimeUnit unite) throws IOException {
+        this.serveur = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.requetes = executeurRequetes();
+        this.file = new ArrayBlockingQueue<>(capaciteFile);
+        this.tailleLot = tailleLot;
+        this.delaiNanos = unite.toNanos(delai);
+        serveur.setExecutor(requetes);
+        serveur.createContext("/resoudre", this::resoudre);
+        serveur.createContext("/statistiques", this::statistiques);
+        for (int k = 0; k < nombreTravailleurs; k++) {
+            Thread thread = new Thread(this::travailler, "resolution-" + k);
+            thread.setDaemon(true);
+            travailleurs.add(thread);
+        }
+    }
+
+    /**
+     * Constructeur d'un serveur avec un thread de résolution par coeur, 4096 demandes en attente,
+     * des lots de 32 grilles et un délai de 10 secondes
+     * @param port le port d'écoute, 0 pour un port libre
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public ServeurResolution(int port) throws IOException {
+        this(port, Runtime.getRuntime().availableProcessors(), 4096, 32, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Crée l'exécuteur des requêtes : un thread virtuel par requête si la JVM en dispose
+     * @return l'exécuteur
+     */
+    private static ExecutorService executeurRequetes() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // Avant Java 21, un thread par requête en attente : leur nombre est borné par la file des demandes
+            return Executors.newCachedThreadPool(tache -> {
+                Thread thread = new Thread(tache, "requete");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Démarre les threads de résolution puis l'écoute
+     */
+    public void demarrer() {
+        for (Thread thread : travailleurs) {
+            thread.start();
+        }
+        serveur.start();
+    }
+
+    /**
+     * Arrête l'écoute, les threads de résolution et l'exécuteur des requêtes
+     */
+    public void arreter() {
+        serveur.stop(0);
+        for (Thread thread : travailleurs) {
+            thread.interrupt();
+        }
+        requetes.shutdownNow();
+    }
+
+    /**
+     * Récupère le port d'écoute (utile quand le serveur a été créé sur le port 0)
+     * @return le port
+     */
+    public int getPort() {
+        return serveur.getAddress().getPort();
+    }
+
+    //region REQUETES
+
+    /**
+     * POST /resoudre : la grille est une ligne au format de FormatGrille, ou un objet JSON dont le champ "grille"
+     * est une telle ligne ou un tableau de lignes de nombres. La réponse est au même format que la demande.
+     * Le paramètre moteur de l'URL (dancingLinks, masques ou choco) choisit le résolveur, Dancing Links par défaut.
+     */
+    private void resoudre(HttpExchange echange) throws IOException {
+        long arrivee = System.nanoTime();
+        try {
+            if (!echange.getRequestMethod().equals("POST")) {
+                repondre(echange, 405, "#méthode non autorisée", false);
+                return;
+            }
+            recues.increment();
+            // Lecture bornée : un corps démesuré ne doit pas pouvoir remplir la mémoire
+            byte[] octets = echange.getRequestBody().readNBytes(TAILLE_MAX_CORPS + 1);
+            if (octets.length > TAILLE_MAX_CORPS) {
+                repondre(echange, 413, "#demande trop volumineuse", false);
+                return;
+            }
+            String corps = new String(octets, StandardCharsets.UTF_8).trim();
+            boolean json = corps.startsWith("{");
+            String ligne = json ? ligneJson(corps) : corps;
+            int[][] grille = ligne == null ? null : FormatGrille.lire(ligne);
+            if (grille == null) {
+                repondre(echange, 400, json ? "{\"erreur\":\"grille invalide\"}" : "#ligne invalide", json);
+                return;
+            }
+
+            String nomMoteur = parametre(echange, "moteur");
+            Moteur moteur = nomMoteur == null ? Moteur.DANCING_LINKS : Moteur.depuis(nomMoteur);
+            if (moteur == null) {
+                repondre(echange, 400, json ? "{\"erreur\":\"moteur inconnu\"}" : "#moteur inconnu", json);
+                return;
+            }
+
+            // File pleine : on refuse tout de suite plutôt que de laisser les latences exploser
+            Demande demande = new Demande(grille, FormatGrille.estGeneralise(ligne), moteur,
+                    Echeance.dans(delaiNanos, TimeUnit.NANOSECONDS));
+            if (!file.offer(demande)) {
+                rejetees.increment();
+                echange.getResponseHeaders().set("Retry-After", "1");
+                repondre(echange, 503, json ? "{\"erreur\":\"serveur saturé\"}" : "#serveur saturé", json);
+                return;
+            }
+
+            Reponse reponse;
+            try {
+                reponse = demande.reponse.get(delaiNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // La demande est encore dans la file : son thread de résolution l'écartera car son échéance est passée
+                reponse = new Reponse(Resultat.Statut.HORS_DELAI, null, 0);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                repondre(echange, 500, json ? "{\"erreur\":\"erreur interne\"}" : "#erreur interne", json);
+                return;
+            }
+            compter(reponse.statut);
+            long latence = System.nanoTime() - arrivee;
+            latences.enregistrer(latence);
+            int code = reponse.statut == Resultat.Statut.HORS_DELAI ? 504 : 200;
+            repondre(echange, code, json ? reponseJson(reponse, latence) : reponseTexte(reponse), json);
+        } finally {
+            echange.close();
+        }
+    }
+
+    /**
+     * GET /statistiques : compteurs et latences (de l'arrivée de la demande à sa réponse) en JSON
+     */
+    private void statistiques(HttpExchange echange) throws IOException {
+        try {
+            repondre(echange, 200, statistiquesJson(), true);
+        } finally {
+            echange.close();
+        }
+    }
+
+    /**
+     * Lit un paramètre de la requête de l'URL (?nom=valeur&...)
+     * @return la valeur, null si le paramètre est absent
+     */
+    private static String parametre(HttpExchange echange, String nom) {
+        String requete = echange.getRequestURI().getRawQuery();
+        if (requete == null) {
+            return null;
+        }
+        for (String paire : requete.split("&")) {
+            int egal = paire.indexOf('=');
+            if (egal > 0 && paire.substring(0, egal).equals(nom)) {
+                return URLDecoder.decode(paire.substring(egal + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private void repondre(HttpExchange echange, int code, String corps, boolean json) throws IOException {
+        byte[] octets = corps.getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().set("Content-Type",
+                (json ? "application/json" : "text/plain") + "; charset=utf-8");
+        echange.sendResponseHeaders(code, octets.length);
+        try (OutputStream sortie = echange.getResponseBody()) {
+            sortie.write(octets);
+        }
+    }
+
+    private void compter(Resultat.Statut statut) {
+        switch (statut) {
+            case RESOLU:
+                resolues.increment();
+                break;
+            case SANS_SOLUTION:
+                sansSolution.increment();
+                break;
+            default:
+                horsDelai.increment();
+                break;
+        }
+    }
+
+    //endregion
+
+    //region RESOLUTION PAR LOTS
+
+    /**
+     * Boucle d'un thread de résolution : attend une demande puis prend en plus celles déjà en attente,
+     * jusqu'à tailleLot, et les résout à la suite avec les mêmes résolveurs
+     */
+    private void travailler() {
+        Resolveurs resolveurs = new Resolveurs();
+        List<Demande> lot = new ArrayList<>(tailleLot);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                lot.add(file.take());
+                file.drainTo(lot, tailleLot - 1);
+                lots.increment();
+                grillesEnLot.add(lot.size());
+                for (Demande demande : lot) {
+                    traiter(demande, resolveurs);
+                }
+                lot.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void traiter(Demande demande, Resolveurs resolveurs) {
+        long depart = System.nanoTime();
+        try {
+            if (demande.echeance.estDepassee()) {
+                demande.reponse.complete(new Reponse(Resultat.Statut.HORS_DELAI, null, 0));
+                return;
+            }
+            GrilleCompacte donnees = GrilleCompacte.depuis(demande.grille);
+            int tailleSousGrille = donnees.getGeometrie().getTailleSousGrille();
+            GrilleCompacte grille = new GrilleCompacte(donnees.getGeometrie());
+            boolean resolu;
+            boolean interrompue;
+            switch (demande.moteur) {
+                case MASQUES: {
+                    // Le résolveur sur masques travaille sur place : il reçoit la grille à remplir
+                    donnees.copierDans(grille);
+                    ResolveurMasques resolveur = new ResolveurMasques(grille);
+                    resolveur.setEcheance(demande.echeance);
+                    resolu = resolveur.resoudre();
+                    interrompue = resolveur.estInterrompue();
+                    break;
+                }
+                case CHOCO: {
+                    ResolveurChoco resolveur = resolveurs.chocos.computeIfAbsent(tailleSousGrille, ResolveurChoco::new);
+                    resolveur.charger(donnees);
+                    resolveur.setEcheance(demande.echeance);
+                    resolu = resolveur.resoudre();
+                    if (resolu) {
+                        grille.charger(resolveur.getSolution());
+                    }
+                    interrompue = resolveur.estInterrompue();
+                    break;
+                }
+                default: {
+                    ResolveurDLX resolveur = resolveurs.dancingLinks.computeIfAbsent(tailleSousGrille, ResolveurDLX::new);
+                    resolveur.charger(donnees);
+                    resolveur.setEcheance(demande.echeance);
+                    resolu = resolveur.resoudre();
+                    if (resolu) {
+                        resolveur.copierSolution(grille);
+                    }
+                    interrompue = resolveur.estInterrompue();
+                    break;
+                }
+            }
+
+            Resultat.Statut statut;
+            String solution = null;
+            if (resolu) {
+                Verificateur verificateur = resolveurs.verificateurs.computeIfAbsent(tailleSousGrille, Verificateur::new);
+                if (!verificateur.estSolution(donnees, grille)) {
+                    throw new IllegalStateException("Solution fausse : "
+                            + verificateur.decrire(verificateur.premiereUniteInvalide(donnees, grille)));
+                }
+                statut = Resultat.Statut.RESOLU;
+                solution = FormatGrille.ecrire(grille.versTableau(), demande.generalise);
+            } else {
+                statut = interrompue ? Resultat.Statut.HORS_DELAI : Resultat.Statut.SANS_SOLUTION;
+            }
+            demande.reponse.complete(new Reponse(statut, solution, System.nanoTime() - depart));
+        } catch (RuntimeException e) {
+            demande.reponse.completeExceptionally(e);
+        }
+    }
+
+    //endregion
+
+    //region FORMATS
+
+    /**
+     * Extrait la grille du champ "grille" d'un objet JSON, sans bibliothèque : une chaîne est rendue telle
+     * quelle, un tableau (de tableaux) de nombres devient une ligne au format généralisé
+     * @param json l'objet JSON
+     * @return la ligne de la grille, null si le champ est absent ou mal formé
+     */
+    private static String ligneJson(String json) {
+        int champ = json.indexOf("\"grille\"");
+        if (champ < 0) {
+            return null;
+        }
+        int k = json.indexOf(':', champ) + 1;
+        while (k > 0 && k < json.length() && Character.isWhitespace(json.charAt(k))) {
+            k++;
+        }
+        if (k <= 0 || k >= json.length()) {
+            return null;
+        }
+        if (json.charAt(k) == '"') {
+            int fin = json.indexOf('"', k + 1);
+            return fin < 0 ? null : json.substring(k + 1, fin);
+        }
+        if (json.charAt(k) != '[') {
+            return null;
+        }
+        // On recopie le tableau jusqu'au crochet qui le ferme, les crochets intérieurs devenant des séparateurs
+        StringBuilder ligne = new StringBuilder();
+        int profondeur = 0;
+        for (; k < json.length(); k++) {
+            char c = json.charAt(k);
+            if (c == '[') {
+                profondeur++;
+                ligne.append(' ');
+            } else if (c == ']') {
+                ligne.append(' ');
+                if (--profondeur == 0) {
+                    return ligne.toString().trim();
+                }
+            } else {
+                ligne.append(c == ',' ? ' ' : c);
+            }
+        }
+        return null;
+    }
+
+    private static String reponseTexte(Reponse reponse) {
+        switch (reponse.statut) {
+            case RESOLU:
+                return reponse.solution;
+            case SANS_SOLUTION:
+                return "#aucune solution";
+            default:
+                return "#hors délai";
+        }
+    }
+
+    private static String reponseJson(Reponse reponse, long latenceNanos) {
+        StringBuilder json = new StringBuilder(64 + (reponse.solution == null ? 0 : reponse.solution.length()));
+        json.append("{\"statut\":\"").append(reponse.statut).append('"');
+        if (reponse.solution != null) {
+            json.append(",\"solution\":\"").append(reponse.solution).append('"');
+        }
+        json.append(",\"resolution_us\":").append(reponse.resolutionNanos / 1000);
+        json.append(",\"latence_us\":").append(latenceNanos / 1000);
+        return json.append('}').toString();
+    }
+
+    private String statistiquesJson() {
+        long nombreLots = lots.sum();
+        return "{\"recues\":" + recues.sum()
+                + ",\"rejetees\":" + rejetees.sum()
+                + ",\"resolues\":" + resolues.sum()
+                + ",\"sans_solution\":" + sansSolution.sum()
+                + ",\"hors_delai\":" + horsDelai.sum()
+                + ",\"en_attente\":" + file.size()
+                + ",\"lots\":" + nombreLots
+                + ",\"taille_moyenne_lot\":" + String.format(Locale.ROOT, "%.2f",
+                        nombreLots == 0 ? 0.0 : (double) grillesEnLot.sum() / nombreLots)
+                + ",\"p50_us\":" + latences.centile(50)
+                + ",\"p90_us\":" + latences.centile(90)
+                + ",\"p99_us\":" + latences.centile(99)
+                + ",\"max_us\":" + latences.getMaximum()
+                + "}";
+    }
+
+    //endregion
+
+    /**
+     * Récupère l'histogramme des latences des demandes
+     * @return l'histogramme
+     */
+    public HistogrammeLatences getLatences() {
+        return this.latences;
+    }
+}